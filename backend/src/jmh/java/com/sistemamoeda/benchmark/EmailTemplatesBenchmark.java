@@ -0,0 +1,217 @@
+package com.sistemamoeda.benchmark;
+
+import com.sistemamoeda.service.EmailTemplates;
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Tempo para montar o HTML de um e-mail (e, com "-prof gc", bytes alocados por mensagem em gc.alloc.rate.norm).
+//   modelos:  EmailTemplates atual (modelos compilados na inicialização, escape em uma passada no buffer da thread)
+//   anterior: o caminho antigo do EmailService, copiado abaixo (text block + String.format/formatted a cada envio,
+//             StringEscapeUtils.escapeHtml4 e o escapeHtml feito à mão com replace encadeado)
+// Os valores têm caracteres que precisam de escape e a mensagem tem quebras de linha, como um envio real.
+//   mvn -Pbenchmark compile exec:exec -Djmh.args="EmailTemplatesBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplatesBenchmark {
+
+    private static final String GIF = "https://media.giphy.com/media/3o6Zt6ML6BklcajjsA/giphy.gif";
+
+    @Param({"moedas-recebidas", "cupom-resgatado", "cupom-transferido"})
+    public String modelo;
+
+    private EmailTemplates emailTemplates;
+    private Map<String, String> valores;
+
+    @Setup
+    public void preparar() throws Exception {
+        emailTemplates = new EmailTemplates();
+        valores = new HashMap<>();
+        valores.put("mensagem", "Parabéns pela apresentação do projeto \"Moeda Estudantil\"!\n"
+                + "Você recebeu 50 moedas pela participação & pelo empenho.\nContinue assim <3");
+        valores.put("gif", GIF);
+        valores.put("nomeAluno", "Pedro Maia D'Ávila");
+        valores.put("nomeDestinatario", "Maria Souza & Silva");
+        valores.put("nomeRemetente", "Pedro Maia D'Ávila");
+        valores.put("nomeVantagem", "Café + Pão de Queijo <combo>");
+        valores.put("codigoCupom", "CUP-7Q4M-K2XD-9PLA-W3RT");
+        valores.put("qrCodeUrl", "https://api.sistemamoeda.com/api/cupons/CUP-7Q4M-K2XD-9PLA-W3RT/qrcode");
+    }
+
+    @Benchmark
+    public String modelos() {
+        return emailTemplates.renderizar(modelo, valores);
+    }
+
+    @Benchmark
+    public String anterior() {
+        return switch (modelo) {
+            case "moedas-recebidas" -> htmlMoedasRecebidasAnterior(valores.get("mensagem"), valores.get("gif"));
+            case "cupom-resgatado" -> htmlCupomResgatado(valores);
+            default -> htmlCupomTransferido(valores);
+        };
+    }
+
+    // ===== Caminho anterior (EmailService antes dos modelos compilados) =====
+
+    private String htmlMoedasRecebidasAnterior(String mensagem, String gif) {
+        return """
+        <html>
+        <body style="font-family: Arial, sans-serif; background-color:#f2f2f2; padding:30px;">
+            <div style="
+                max-width:600px;
+                margin:auto;
+                background:white;
+                padding:25px;
+                border-radius:12px;
+                box-shadow:0 4px 15px rgba(0,0,0,0.1);
+                text-align:center;
+            ">
+                <h2 style="color:#4A90E2; margin-bottom:20px;">📩 Você recebeu uma mensagem!</h2>
+                
+                <p style="
+                    font-size:16px;
+                    color:#333;
+                    line-height:1.6;
+                    text-align:left;
+                ">
+                    %s
+                </p>
+
+                <div style="margin:25px 0;">
+                    <img src="%s" alt="gif" style="width:100%%; max-width:380px; border-radius:10px;">
+                </div>
+
+                <p style="color:#888; font-size:13px; margin-top:25px;">
+                    Esta é uma mensagem automática — por favor, não responda.
+                </p>
+            </div>
+        </body>
+        </html>
+        """.formatted(
+            escapeHtml(mensagem).replace("\n", "<br/>"),
+            gif
+        );
+
+    }
+
+    private String htmlCupomResgatado(Map<String, String> parametros) {
+        return String.format("""
+        <html>
+        <body style="font-family: Arial; background:#f7f7f7; padding:20px;">
+            <div style="max-width:600px;margin:auto;background:white;padding:25px;border-radius:10px">
+                
+                <h2 style="text-align:center;color:#333">🎉 Seu Cupom Está Pronto!</h2>
+
+                <p>Olá <b>%s</b>, obrigado por resgatar a vantagem:</p>
+
+                <div style="padding:10px;background:#eef5ff;border-left:4px solid #4a90e2;border-radius:5px;margin:10px 0">
+                    <b>%s</b>
+                </div>
+
+                <!-- Agora a imagem é carregada via CID -->
+                <div style="text-align:center;margin:20px 0">
+                    <img src="cid:imagemVantagem" style="max-width:300px;width:100%%;border-radius:12px"/>
+                </div>
+
+                <p>Use o código abaixo para resgatar sua vantagem:</p>
+
+                <div style="background:#fff3cd;border-left:4px solid #f0ad4e;padding:10px;font-size:20px;margin:10px 0">
+                    <b>%s</b>
+                </div>
+
+                <p>Ou utilize o QR Code abaixo:</p>
+
+                <div style="text-align:center;margin-top:15px">
+                    <img src="cid:qrcodeinline" style="width:250px;height:250px"/>
+                </div>
+
+                <p style="margin-top:25px">Atenciosamente,<br><b>Sistema de Moeda</b></p>
+
+                <hr style="margin-top:30px">
+                <p style="font-size:12px;color:#777;text-align:center">E-mail automático — não responda</p>
+            </div>
+        </body>
+        </html>
+        """,
+            StringEscapeUtils.escapeHtml4(parametros.get("nomeAluno")),
+            StringEscapeUtils.escapeHtml4(parametros.get("nomeVantagem")),
+            StringEscapeUtils.escapeHtml4(parametros.get("codigoCupom"))
+        );
+    }
+
+    private String htmlCupomTransferido(Map<String, String> parametros) {
+        return String.format(
+            """
+            <html>
+            <body style="font-family: Arial, sans-serif; background-color:#f7f7f7; padding:20px;">
+                <div style="max-width:600px; margin:auto; background:white; padding:25px; border-radius:10px; box-shadow:0 2px 10px rgba(0,0,0,0.08);">
+                    
+                    <h2 style="color:#333; text-align:center;">🎁 Você recebeu um Cupom!</h2>
+                    
+                    <p>Olá <b>%s</b>,</p>
+
+                    <p>O aluno(a) <b>%s</b> transferiu a seguinte vantagem para você:</p>
+                    
+                    <div style="padding:10px 15px; background:#eef5ff; border-left:4px solid #4a90e2; border-radius:5px; margin:10px 0;">
+                        <b>%s</b>
+                    </div>
+
+                    <!-- Agora a imagem é carregada via CID -->
+                    <div style="text-align:center;margin:20px 0">
+                        <img src="cid:imagemVantagem" style="max-width:300px;width:100%%;border-radius:12px"/>
+                    </div>
+
+                    <p>O seu código do cupom é:</p>
+
+                    <div style="font-size:20px; padding:10px 15px; background:#fff3cd; border-left:4px solid #f0ad4e; border-radius:5px; margin:10px 0;">
+                        <b>%s</b>
+                    </div>
+
+                    <p>
+                        Você pode apresentar esse código <b>ou</b> utilizar o QR Code abaixo para resgatar sua vantagem:<br><br>
+                    </p>
+
+                    <div style="text-align:center;">
+                        <img src="cid:qrcodeinline" style="width:250px; height:250px;"/>
+                    </div>
+
+                    <p style="margin-top:25px;">
+                        Atenciosamente,<br/>
+                        <b>Sistema de Moeda</b>
+                    </p>
+
+                    <hr style="margin:30px 0; border:none; border-top:1px solid #ddd;"/>
+
+                    <p style="font-size:12px; color:#777; text-align:center;">
+                        Este é um e-mail automático. Não responda.
+                    </p>
+
+                </div>
+            </body>
+            </html>
+            """,
+            StringEscapeUtils.escapeHtml4(parametros.get("nomeDestinatario")),   // 1º %s: Nome do Destinatário
+            StringEscapeUtils.escapeHtml4(parametros.get("nomeRemetente")),      // 2º %s: Nome de quem enviou
+            StringEscapeUtils.escapeHtml4(parametros.get("nomeVantagem")),       // 3º %s: Nome da Vantagem
+            StringEscapeUtils.escapeHtml4(parametros.get("codigoCupom"))         // 4º %s: Código do Cupom
+        );
+    }
+
+    // utilitário seguro de escape HTML (mantido localmente)
+    private String escapeHtml(String text) {
+        if (text == null) return "";
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&#x27;");
+    }
+}
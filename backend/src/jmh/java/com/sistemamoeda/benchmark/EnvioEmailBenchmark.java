@@ -0,0 +1,165 @@
+package com.sistemamoeda.benchmark;
+
+import com.sistemamoeda.config.JavaMailSenderComPool;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Mensagens/s enviadas a um servidor SMTP local (stand-in dentro do próprio benchmark). "atrasoConexaoMs" simula o
+// custo de abrir uma conexão com o relay de verdade (TCP + STARTTLS + AUTH) antes do 220 de boas-vindas.
+//   unica:  JavaMailSenderImpl padrão, um send() por mensagem (conecta, envia, QUIT a cada e-mail)
+//   pool:   JavaMailSenderComPool, um send() por mensagem (reaproveita a conexão aberta)
+//   lote:   JavaMailSenderComPool, send(MimeMessage...) com todas as mensagens pela mesma conexão
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvioEmailBenchmark {
+
+    private static final int MENSAGENS = 50;
+
+    @Param({"0", "20"})
+    public int atrasoConexaoMs;
+
+    private ServerSocket servidor;
+    private ExecutorService conexoes;
+    private JavaMailSenderImpl unica;
+    private JavaMailSenderComPool pool;
+    private MimeMessage[] mensagensUnica;
+    private MimeMessage[] mensagensPool;
+
+    @Setup
+    public void preparar() throws Exception {
+        servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        conexoes = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "smtp-local");
+            thread.setDaemon(true);
+            return thread;
+        });
+        conexoes.submit(this::aceitar);
+
+        unica = new JavaMailSenderImpl();
+        pool = new JavaMailSenderComPool(4, Duration.ofSeconds(60), Duration.ofSeconds(5), 100);
+        for (JavaMailSenderImpl sender : new JavaMailSenderImpl[] {unica, pool}) {
+            sender.setHost(servidor.getInetAddress().getHostAddress());
+            sender.setPort(servidor.getLocalPort());
+            sender.setDefaultEncoding("UTF-8");
+        }
+        mensagensUnica = criarMensagens(unica);
+        mensagensPool = criarMensagens(pool);
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        pool.destroy();
+        servidor.close();
+        conexoes.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MENSAGENS)
+    public void unica() {
+        for (MimeMessage mensagem : mensagensUnica) {
+            unica.send(mensagem);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MENSAGENS)
+    public void pool() {
+        for (MimeMessage mensagem : mensagensPool) {
+            pool.send(mensagem);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MENSAGENS)
+    public void lote() {
+        pool.send(mensagensPool);
+    }
+
+    private static MimeMessage[] criarMensagens(JavaMailSenderImpl sender) throws Exception {
+        MimeMessage[] mensagens = new MimeMessage[MENSAGENS];
+        for (int i = 0; i < MENSAGENS; i++) {
+            mensagens[i] = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mensagens[i], true, "UTF-8");
+            helper.setFrom("sistema@moeda.com");
+            helper.setTo("aluno" + i + "@teste.com");
+            helper.setSubject("Você recebeu moedas!");
+            helper.setText("<p>Olá, aluno " + i + "! Você recebeu 10 moedas.</p>", true);
+        }
+        return mensagens;
+    }
+
+    private void aceitar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                conexoes.submit(() -> atender(socket));
+            } catch (IOException e) {
+                return; // servidor fechado no TearDown
+            }
+        }
+    }
+
+    // SMTP mínimo: aceita qualquer remetente/destinatário e descarta o conteúdo
+    private void atender(Socket socket) {
+        try (socket) {
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            OutputStream saida = socket.getOutputStream();
+            if (atrasoConexaoMs > 0) {
+                Thread.sleep(atrasoConexaoMs);
+            }
+            responder(saida, "220 localhost");
+
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                String comando = linha.length() >= 4 ? linha.substring(0, 4).toUpperCase() : linha.toUpperCase();
+                switch (comando) {
+                    case "DATA" -> {
+                        responder(saida, "354 fim com <CRLF>.<CRLF>");
+                        while ((linha = entrada.readLine()) != null && !linha.equals(".")) {
+                            // descarta o corpo
+                        }
+                        responder(saida, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        responder(saida, "221 tchau");
+                        return;
+                    }
+                    default -> responder(saida, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // cliente fechou a conexão
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void responder(OutputStream saida, String resposta) {
+        try {
+            saida.write((resposta + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            saida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sistemamoeda.benchmark;
+
+import com.sistemamoeda.model.TipoUsuario;
+import com.sistemamoeda.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Verificações de token por ms (por thread, "-t N" na linha de comando). Cada thread percorre os tokens de "sessoes"
+// usuários diferentes, como o filtro JWT recebendo requisições de várias sessões.
+//   verificarComCache:   JwtService atual (chave/parser únicos + cache de tokens verificados)
+//   verificarSemCache:   JwtService com o cache desligado (uma verificação completa por chamada)
+//   verificacaoAnterior: o caminho antigo do filtro (chave e parser recriados a cada leitura, três parses por requisição)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SEGREDO = "chave-do-benchmark-jwt-0123456789abcdef0123456789";
+
+    @Param({"1000"})
+    public int sessoes;
+
+    private JwtService comCache;
+    private JwtService semCache;
+    private String[] tokens;
+
+    @State(Scope.Thread)
+    public static class Posicao {
+        int indice;
+    }
+
+    @Setup
+    public void preparar() {
+        comCache = new JwtService(SEGREDO, Duration.ofHours(1), Duration.ofDays(1), 10_000, new SimpleMeterRegistry());
+        semCache = new JwtService(SEGREDO, Duration.ofHours(1), Duration.ofDays(1), 0, new SimpleMeterRegistry());
+        tokens = new String[sessoes];
+        for (int i = 0; i < sessoes; i++) {
+            tokens[i] = comCache.gerarAcesso("usuario" + i + "@teste.com", (long) i + 1, TipoUsuario.ALUNO);
+        }
+    }
+
+    @Benchmark
+    public Claims verificarComCache(Posicao posicao) {
+        return comCache.verificar(proximo(posicao));
+    }
+
+    @Benchmark
+    public Claims verificarSemCache(Posicao posicao) {
+        return semCache.verificar(proximo(posicao));
+    }
+
+    @Benchmark
+    public boolean verificacaoAnterior(Posicao posicao) {
+        String token = proximo(posicao);
+        String email = parseAnterior(token).getSubject();                 // extractUsername no filtro
+        return email.equals(parseAnterior(token).getSubject())             // isTokenValid: extractUsername
+                && !parseAnterior(token).getExpiration().before(new Date()); // e extractExpiration
+    }
+
+    private String proximo(Posicao posicao) {
+        String token = tokens[posicao.indice];
+        posicao.indice = (posicao.indice + 1) % tokens.length;
+        return token;
+    }
+
+    private static Claims parseAnterior(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
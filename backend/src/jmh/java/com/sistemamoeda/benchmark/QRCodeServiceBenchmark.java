@@ -0,0 +1,78 @@
+package com.sistemamoeda.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.sistemamoeda.service.CodigosCupom;
+import com.sistemamoeda.service.QRCodeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Tempo para obter o PNG do QR code de um cupom (e, com "-prof gc", bytes alocados por QR em gc.alloc.rate.norm).
+// Cada chamada usa o próximo de "cupons" códigos diferentes, no formato gerado por CodigosCupom.
+//   semCache: QRCodeService atual com o cache desligado (matriz do Encoder + PNG de 1 bit escrito direto)
+//   comCache: QRCodeService atual com cache que comporta todos os códigos (transferências/acessos repetidos)
+//   anterior: o caminho antigo (QRCodeWriter 300x300 + MatrixToImageWriter, BufferedImage e ImageIO)
+//   mvn -Pbenchmark compile exec:exec -Djmh.args="QRCodeServiceBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QRCodeServiceBenchmark {
+
+    @Param({"1000"})
+    public int cupons;
+
+    private QRCodeService semCache;
+    private QRCodeService comCache;
+    private String[] codigos;
+
+    @State(Scope.Thread)
+    public static class Posicao {
+        int indice;
+    }
+
+    @Setup
+    public void preparar() {
+        semCache = new QRCodeService(DataSize.ofBytes(0), new SimpleMeterRegistry());
+        comCache = new QRCodeService(DataSize.ofMegabytes(4), new SimpleMeterRegistry());
+        CodigosCupom codigosCupom = new CodigosCupom("chave-do-benchmark-0123456789abcdef0123456789");
+        codigos = new String[cupons];
+        for (int i = 0; i < cupons; i++) {
+            codigos[i] = codigosCupom.gerar(i + 1, 1 + i % 20);
+            comCache.gerarQRCodeBytes(codigos[i]);
+        }
+    }
+
+    @Benchmark
+    public byte[] semCache(Posicao posicao) {
+        return semCache.gerarQRCodeBytes(proximo(posicao));
+    }
+
+    @Benchmark
+    public byte[] comCache(Posicao posicao) {
+        return comCache.gerarQRCodeBytes(proximo(posicao));
+    }
+
+    @Benchmark
+    public byte[] anterior(Posicao posicao) throws WriterException, IOException {
+        var bitMatrix = new QRCodeWriter().encode(proximo(posicao), BarcodeFormat.QR_CODE, 300, 300);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", baos);
+        return baos.toByteArray();
+    }
+
+    private String proximo(Posicao posicao) {
+        String codigo = codigos[posicao.indice];
+        posicao.indice = (posicao.indice + 1) % codigos.length;
+        return codigo;
+    }
+}
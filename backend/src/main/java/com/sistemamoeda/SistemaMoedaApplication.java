@@ -2,12 +2,12 @@ package com.sistemamoeda;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
 @SpringBootApplication
-@EnableAsync
+@EnableScheduling
 public class SistemaMoedaApplication {
     public static void main(String[] args) {
         SpringApplication.run(SistemaMoedaApplication.class, args);
@@ -0,0 +1,48 @@
+package com.sistemamoeda.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Bancos criados antes da tabela cupom só têm os cupons no histórico de transações. Na inicialização, se a tabela
+// estiver vazia, cada código ganha uma linha com o dono da sua transação mais recente (resgate ou troca),
+// num único INSERT ... SELECT. Duas instâncias subindo juntas podem passar as duas pela contagem: o INSERT pula
+// códigos que já estão na tabela e, se ainda assim bater em uk_cupom_codigo, a outra instância já migrou.
+@Configuration
+public class CupomMigracao {
+
+    private static final String PREENCHER_CUPONS =
+            "INSERT INTO cupom (codigo, vantagem_id, proprietario_id, status, versao, data_criacao, data_aquisicao) " +
+            "SELECT t.codigo_cupom, t.vantagem_id, t.destinatario_id, 'ATIVO', 0, " +
+            "       (SELECT MIN(o.data_transacao) FROM transacao o WHERE o.codigo_cupom = t.codigo_cupom), " +
+            "       t.data_transacao " +
+            "FROM transacao t " +
+            "WHERE t.codigo_cupom IS NOT NULL AND t.vantagem_id IS NOT NULL AND t.destinatario_id IS NOT NULL " +
+            "  AND NOT EXISTS (SELECT 1 FROM transacao p WHERE p.codigo_cupom = t.codigo_cupom " +
+            "                  AND (p.data_transacao > t.data_transacao " +
+            "                       OR (p.data_transacao = t.data_transacao AND p.id > t.id))) " +
+            "  AND NOT EXISTS (SELECT 1 FROM cupom c WHERE c.codigo = t.codigo_cupom)";
+
+    @Bean
+    public CommandLineRunner migrarCupons(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            Integer cupons = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cupom", Integer.class);
+            if (cupons == null || cupons > 0) {
+                return;
+            }
+
+            int migrados;
+            try {
+                migrados = jdbcTemplate.update(PREENCHER_CUPONS);
+            } catch (DataIntegrityViolationException e) {
+                System.out.println(">>> Cupons já migrados por outra instância <<<");
+                return;
+            }
+            if (migrados > 0) {
+                System.out.println(">>> " + migrados + " cupom(ns) migrado(s) do histórico de transações para a tabela cupom <<<");
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.sistemamoeda.config;
+
+import com.sistemamoeda.model.ParametroSistema;
+import com.sistemamoeda.repository.ParametroSistemaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Custo (log2 das rodadas) dos hashes BCrypt novos. Com app.senha.bcrypt.custo informado, usa esse valor; senão mede
+// o BCrypt nesta máquina na inicialização e escolhe o maior custo cujo hash cabe no orçamento de latência, entre
+// custo-minimo e custo-maximo. O custo calibrado fica gravado em parametro_sistema e só muda quando a medição se
+// afasta dele mais que TOLERANCIA (ruído de uma medição não troca o custo de todas as senhas); a troca sai em WARN.
+// Hashes abaixo do custo, ou acima dele mais que TOLERANCIA, são refeitos no próximo login com senha certa.
+// Com várias instâncias em máquinas diferentes, fixe o custo: todas leem o mesmo valor gravado, mas a recalibração
+// de uma mais lenta ou mais rápida muda o custo das outras no próximo reinício.
+@Component
+public class CustoBCrypt {
+
+    // Cada ponto a mais no custo dobra o tempo; a medição usa um custo baixo e extrapola
+    private static final int CUSTO_MEDICAO = 8;
+    private static final int MEDICOES = 5;
+    // Diferença (em pontos de custo) entre medição e custo gravado, ou entre hash guardado e custo, que é tolerada
+    private static final int TOLERANCIA = 1;
+    private static final String PARAMETRO_CUSTO = "senha.bcrypt.custo";
+    private static final Pattern HASH_BCRYPT = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$.{53}$");
+
+    private final Logger log = LoggerFactory.getLogger(CustoBCrypt.class);
+    private final int custo;
+
+    public CustoBCrypt(@Value("${app.senha.bcrypt.custo:0}") int custoFixo,
+                       @Value("${app.senha.bcrypt.orcamento:100ms}") Duration orcamento,
+                       @Value("${app.senha.bcrypt.custo-minimo:10}") int custoMinimo,
+                       @Value("${app.senha.bcrypt.custo-maximo:14}") int custoMaximo,
+                       ParametroSistemaRepository parametros,
+                       MeterRegistry registry) {
+        this.custo = custoFixo > 0 ? custoFixo : custoCalibrado(parametros, orcamento, custoMinimo, custoMaximo);
+        Gauge.builder("senha.bcrypt.custo", () -> custo)
+                .description("Custo do BCrypt usado nos hashes de senha novos")
+                .register(registry);
+    }
+
+    public int getCusto() {
+        return custo;
+    }
+
+    // BCrypt com o custo escolhido que também pede a troca de hashes com custo bem maior (não só menor, como o padrão):
+    // baixar o custo em máquinas pequenas vale para as senhas já guardadas, sem refazer hashes um ponto acima
+    public BCryptPasswordEncoder encoder() {
+        return new BCryptPasswordEncoder(custo) {
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                Matcher matcher = encodedPassword == null ? null : HASH_BCRYPT.matcher(encodedPassword);
+                if (matcher == null || !matcher.matches()) {
+                    return true;
+                }
+                int custoHash = Integer.parseInt(matcher.group(1));
+                return custoHash < custo || custoHash > custo + TOLERANCIA;
+            }
+        };
+    }
+
+    private int custoCalibrado(ParametroSistemaRepository parametros, Duration orcamento, int custoMinimo, int custoMaximo) {
+        int medido = calibrar(orcamento, custoMinimo, custoMaximo);
+        Optional<Integer> gravado = lerCusto(parametros);
+        // Valor gravado fora de custo-minimo/custo-maximo (limites mudaram) também é trocado
+        if (gravado.isPresent() && gravado.get() >= custoMinimo && gravado.get() <= custoMaximo
+                && Math.abs(medido - gravado.get()) <= TOLERANCIA) {
+            log.info("Custo do BCrypt mantido em {} (gravado em {}; medição indicou {})", gravado.get(), PARAMETRO_CUSTO, medido);
+            return gravado.get();
+        }
+
+        try {
+            parametros.save(new ParametroSistema(PARAMETRO_CUSTO, String.valueOf(medido)));
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou o primeiro valor ao mesmo tempo: usa o dela
+            Optional<Integer> concorrente = lerCusto(parametros);
+            if (concorrente.isPresent()) {
+                log.info("Custo do BCrypt {} gravado por outra instância", concorrente.get());
+                return concorrente.get();
+            }
+            throw e;
+        }
+        if (gravado.isPresent()) {
+            log.warn("=== CUSTO DO BCRYPT ALTERADO de {} para {} === Medição fora da tolerância de {} (ou dos limites); "
+                    + "as senhas serão refeitas com o custo novo no próximo login. Para evitar, fixe app.senha.bcrypt.custo.",
+                    gravado.get(), medido, TOLERANCIA);
+        } else {
+            log.info("Custo do BCrypt {} gravado em {}", medido, PARAMETRO_CUSTO);
+        }
+        return medido;
+    }
+
+    // Valor ilegível conta como ausente e é recalibrado
+    private Optional<Integer> lerCusto(ParametroSistemaRepository parametros) {
+        return parametros.findById(PARAMETRO_CUSTO)
+                .map(ParametroSistema::getValor)
+                .filter(valor -> valor.matches("\\d{1,2}"))
+                .map(Integer::valueOf);
+    }
+
+    private int calibrar(Duration orcamento, int custoMinimo, int custoMaximo) {
+        String sal = BCrypt.gensalt(CUSTO_MEDICAO);
+        // Primeira rodada só aquece o JIT; a medição usa o menor tempo (menos afetado por ruído)
+        BCrypt.hashpw("calibracao", sal);
+        long menorNanos = Long.MAX_VALUE;
+        for (int i = 0; i < MEDICOES; i++) {
+            long inicio = System.nanoTime();
+            BCrypt.hashpw("calibracao", sal);
+            menorNanos = Math.min(menorNanos, System.nanoTime() - inicio);
+        }
+
+        int escolhido = custoMinimo;
+        for (int c = custoMinimo; c <= custoMaximo; c++) {
+            if (menorNanos << (c - CUSTO_MEDICAO) <= orcamento.toNanos()) {
+                escolhido = c;
+            }
+        }
+        log.info("Custo do BCrypt medido em {} (~{} ms por hash; orçamento {} ms)", escolhido,
+                (menorNanos << (escolhido - CUSTO_MEDICAO)) / 1_000_000, orcamento.toMillis());
+        return escolhido;
+    }
+}
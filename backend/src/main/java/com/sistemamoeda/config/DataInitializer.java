@@ -142,8 +142,7 @@ public class DataInitializer {
                         empresa,
                         "Café + Pão de Queijo",
                         "Um copo de café 200ml e uma porção de pão de queijo.",
-                        new BigDecimal("15.00"),
-                        null 
+                        new BigDecimal("15.00")
                 );
                 vantagemRepo.save(vantagem);
                 System.out.println(">>> Vantagem 'Café + Pão de Queijo' criada <<<");
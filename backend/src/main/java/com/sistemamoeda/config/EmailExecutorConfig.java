@@ -0,0 +1,33 @@
+package com.sistemamoeda.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Executor exclusivo dos envios de e-mail, com threads e fila limitadas. A fila guarda só as linhas da outbox
+// (a mensagem MIME, com QR code e foto, é montada na thread de envio), e o EmailOutboxDispatcher só reserva
+// o que cabe nela; se mesmo assim o executor recusar, o e-mail volta para a outbox em vez de ser perdido.
+// Métricas executor.* (tag name=emailExecutor) vêm do actuator.
+@Configuration
+public class EmailExecutorConfig {
+
+    @Bean(name = "emailExecutor")
+    public ThreadPoolTaskExecutor emailExecutor(@Value("${app.email.executor.threads:4}") int threads,
+                                                @Value("${app.email.executor.fila:100}") int fila,
+                                                @Value("${app.email.executor.espera-encerramento:30s}") Duration esperaEncerramento) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setThreadNamePrefix("email-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // No encerramento, termina o que já está na fila (até o limite de espera); o resto volta pela reserva vencida
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(esperaEncerramento.toMillis());
+        return executor;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sistemamoeda.config;
+
+import com.sistemamoeda.dto.ReconstrucaoEstatisticasDTO;
+import com.sistemamoeda.service.EstatisticasTransacaoService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Bancos criados antes da tabela estatistica_transacao têm só o histórico de transações. Na inicialização, se a
+// tabela estiver vazia e houver envios ou resgates, os contadores são montados pela reconstrução em blocos.
+@Configuration
+public class EstatisticaMigracao {
+
+    @Bean
+    public CommandLineRunner migrarEstatisticas(JdbcTemplate jdbcTemplate, EstatisticasTransacaoService estatisticas) {
+        return args -> {
+            Integer contadores = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM estatistica_transacao", Integer.class);
+            if (contadores == null || contadores > 0) {
+                return;
+            }
+            Integer transacoes = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM transacao WHERE tipo_transacao IN ('ENVIO_MOEDA', 'RESGATE_VANTAGEM')", Integer.class);
+            if (transacoes == null || transacoes == 0) {
+                return;
+            }
+
+            ReconstrucaoEstatisticasDTO resultado = estatisticas.reconstruir(true);
+            System.out.println(">>> " + resultado.getDivergencias() + " contador(es) de estatísticas montado(s) a partir do histórico de transações <<<");
+        };
+    }
+}
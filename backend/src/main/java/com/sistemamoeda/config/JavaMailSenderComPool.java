@@ -0,0 +1,202 @@
+package com.sistemamoeda.config;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+// JavaMailSender que mantém um pool pequeno de conexões SMTP já abertas (STARTTLS + AUTH feitos uma vez),
+// em vez de conectar e desconectar a cada send(). send(MimeMessage...) envia todas as mensagens pela mesma conexão.
+// Conexões ociosas há pouco tempo são usadas direto; ociosas há mais tempo passam por um NOOP antes; ociosas além
+// do limite, com erro de envio ou que atingiram o máximo de mensagens são fechadas.
+public class JavaMailSenderComPool extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final Logger log = LoggerFactory.getLogger(JavaMailSenderComPool.class);
+
+    private final Semaphore vagas;
+    private final Deque<Conexao> livres = new ArrayDeque<>();
+    private final long ociosidadeMaxima;
+    private final long verificarApos;
+    private final int maxMensagensPorConexao;
+
+    public JavaMailSenderComPool(int conexoes, Duration ociosidadeMaxima, Duration verificarApos, int maxMensagensPorConexao) {
+        this.vagas = new Semaphore(Math.max(1, conexoes), true);
+        this.ociosidadeMaxima = ociosidadeMaxima.toMillis();
+        this.verificarApos = verificarApos.toMillis();
+        this.maxMensagensPorConexao = Math.max(1, maxMensagensPorConexao);
+    }
+
+    private static class Conexao {
+        private final Transport transport;
+        private long ultimoUso = System.currentTimeMillis();
+        private int mensagensEnviadas = 0;
+
+        private Conexao(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> falhas = new LinkedHashMap<>();
+        try {
+            vagas.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrompido aguardando conexão SMTP livre", e);
+        }
+
+        Conexao conexao = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                // Lote cancelado (o EmailOutboxDispatcher desistiu de esperar e já devolveu tudo para a fila): as
+                // mensagens restantes não saem, senão seriam enviadas de novo na próxima tentativa
+                if (Thread.currentThread().isInterrupted()) {
+                    MessagingException cancelado = new MessagingException("Envio do lote cancelado");
+                    for (int j = i; j < mimeMessages.length; j++) {
+                        falhas.put(original(mimeMessages, originalMessages, j), cancelado);
+                    }
+                    break;
+                }
+                if (conexao == null) {
+                    try {
+                        conexao = obterConexao();
+                    } catch (AuthenticationFailedException e) {
+                        throw new MailAuthenticationException(e);
+                    } catch (MessagingException e) {
+                        // Sem conexão, todas as mensagens restantes falham
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            falhas.put(original(mimeMessages, originalMessages, j), e);
+                        }
+                        throw new MailSendException("Mail server connection failed", e, falhas);
+                    }
+                }
+
+                MimeMessage mensagem = mimeMessages[i];
+                try {
+                    if (mensagem.getSentDate() == null) {
+                        mensagem.setSentDate(new Date());
+                    }
+                    String messageId = mensagem.getMessageID();
+                    mensagem.saveChanges();
+                    if (messageId != null) {
+                        // saveChanges() gera um Message-ID novo; mantém o que já existia
+                        mensagem.setHeader(HEADER_MESSAGE_ID, messageId);
+                    }
+                    Address[] destinatarios = mensagem.getAllRecipients();
+                    conexao.transport.sendMessage(mensagem, destinatarios != null ? destinatarios : new Address[0]);
+                    conexao.mensagensEnviadas++;
+                } catch (Exception e) {
+                    falhas.put(original(mimeMessages, originalMessages, i), e);
+                    // Destinatário recusado não afeta a conexão; qualquer outro erro pode ter deixado a sessão SMTP
+                    // num estado inválido, então a próxima mensagem vai por uma conexão nova
+                    if (!(e instanceof SendFailedException)) {
+                        fechar(conexao);
+                        conexao = null;
+                    }
+                }
+
+                if (conexao != null && conexao.mensagensEnviadas >= maxMensagensPorConexao) {
+                    fechar(conexao);
+                    conexao = null;
+                }
+            }
+        } finally {
+            if (conexao != null) {
+                devolver(conexao);
+            }
+            vagas.release();
+        }
+
+        if (!falhas.isEmpty()) {
+            throw new MailSendException(falhas);
+        }
+    }
+
+    // Fecha as conexões paradas há mais tempo que a ociosidade máxima (o servidor fecharia do lado dele)
+    @Scheduled(fixedDelayString = "${app.email.smtp.limpeza-intervalo:60000}")
+    public void fecharConexoesOciosas() {
+        long agora = System.currentTimeMillis();
+        synchronized (livres) {
+            Iterator<Conexao> iterator = livres.iterator();
+            while (iterator.hasNext()) {
+                Conexao conexao = iterator.next();
+                if (agora - conexao.ultimoUso > ociosidadeMaxima) {
+                    iterator.remove();
+                    fechar(conexao);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (livres) {
+            livres.forEach(this::fechar);
+            livres.clear();
+        }
+    }
+
+    // A mais usada recentemente primeiro (LIFO): as outras envelhecem e são fechadas pela limpeza
+    private Conexao obterConexao() throws MessagingException {
+        while (true) {
+            Conexao conexao;
+            synchronized (livres) {
+                conexao = livres.pollFirst();
+            }
+            if (conexao == null) {
+                return new Conexao(connectTransport());
+            }
+
+            long ociosa = System.currentTimeMillis() - conexao.ultimoUso;
+            if (ociosa > ociosidadeMaxima) {
+                fechar(conexao);
+            } else if (ociosa <= verificarApos || conexao.transport.isConnected()) {
+                // isConnected() do SMTP manda um NOOP ao servidor
+                return conexao;
+            } else {
+                fechar(conexao);
+            }
+        }
+    }
+
+    private void devolver(Conexao conexao) {
+        conexao.ultimoUso = System.currentTimeMillis();
+        synchronized (livres) {
+            livres.addFirst(conexao);
+        }
+    }
+
+    private void fechar(Conexao conexao) {
+        try {
+            conexao.transport.close();
+        } catch (Exception e) {
+            log.debug("Erro ao fechar conexão SMTP: {}", e.getMessage());
+        }
+    }
+
+    private static Object original(MimeMessage[] mimeMessages, Object[] originalMessages, int indice) {
+        return originalMessages != null ? originalMessages[indice] : mimeMessages[indice];
+    }
+}
@@ -1,7 +1,9 @@
 package com.sistemamoeda.config;
 
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.MalformedJwtException;
+import com.sistemamoeda.model.TipoUsuario;
+import com.sistemamoeda.repository.UsuarioRepository.SituacaoUsuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,19 +11,24 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
-// IMPORTAÇÃO DA SUA CLASSE - ajuste o 'service' se necessário
 import com.sistemamoeda.service.JwtService;
+import com.sistemamoeda.service.RevogacaoTokens;
+import com.sistemamoeda.service.UsuariosAtivosCache;
 
 
+// Autenticação por token: a assinatura e a expiração são verificadas uma única vez e a autenticação é montada com
+// o id e o tipo que vêm nas claims. O banco só entra pelo UsuariosAtivosCache (conta ainda ativa?), com TTL curto.
+// Tokens de renovação não valem como acesso, e tokens revogados (logout) são recusados pelo conjunto em memória.
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -29,7 +36,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtService jwtService;
     
     @Autowired
-    private UserDetailsService userDetailsService; // O seu CustomUserDetailsService
+    private UsuariosAtivosCache usuariosAtivos;
+    
+    @Autowired
+    private RevogacaoTokens revogacoes;
+
+    // /refresh e /logout tratam os tokens por conta própria: um token de acesso já expirado no cabeçalho
+    // não pode impedir a renovação nem o logout
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String caminho = request.getServletPath();
+        return caminho.equals("/api/auth/refresh") || caminho.equals("/api/auth/logout");
+    }
 
     @Override
     protected void doFilterInternal(
@@ -41,8 +59,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 1. Pega o cabeçalho "Authorization"
         final String authHeader = request.getHeader("Authorization");
 
-        // 2. Se não existir ou não começar com "Bearer ", passa para o próximo filtro
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        // 2. Se não existir ou não começar com "Bearer ", ou se a requisição já estiver autenticada, segue adiante
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -50,36 +69,59 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 3. Extrai o token (ex: "Bearer eyJhbGci...")
         final String jwt = authHeader.substring(7); // "Bearer " tem 7 caracteres
 
+        UsuarioAutenticado usuario;
         try {
-            // 4. Extrai o email (username) do token
-            final String userEmail = jwtService.extractUsername(jwt);
-
-            // 5. Se o usuário existe E AINDA NÃO FOI AUTENTICADO
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                
-                // 6. Busca o usuário no banco (usando seu UserDetailsService)
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-                // 7. Se o token for válido...
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    // 8. CRIA a autenticação e COLOCA no Contexto de Segurança do Spring
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null, // Credenciais (senha) são nulas em auth por token
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            // 4. Verifica o token (uma vez) e monta o usuário a partir das claims
+            Claims claims = jwtService.verificar(jwt);
+            if (JwtService.USO_RENOVACAO.equals(claims.get(JwtService.CLAIM_USO, String.class))
+                    || revogacoes.revogado(claims.getId())) {
+                recusar(response, "Token inválido ou expirado");
+                return;
             }
-            filterChain.doFilter(request, response);
-        
-        } catch (ExpiredJwtException | MalformedJwtException e) {
-            // Se o token estiver inválido ou expirado, não autentica
-            // (pode customizar a resposta de erro aqui se quiser)
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.getWriter().write("Token inválido ou expirado");
-            response.getWriter().flush();
+            usuario = usuarioDoToken(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido, expirado ou com assinatura errada
+            recusar(response, "Token inválido ou expirado");
+            return;
+        }
+
+        // 5. Conta removida ou desativada depois da emissão do token
+        if (usuario == null || !usuariosAtivos.estaAtivo(usuario.email())) {
+            recusar(response, "Usuário inativo ou inexistente");
+            return;
         }
+
+        // 6. CRIA a autenticação e COLOCA no Contexto de Segurança do Spring
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                usuario,
+                null, // Credenciais (senha) são nulas em auth por token
+                List.of(new SimpleGrantedAuthority("ROLE_" + usuario.tipoUsuario().name()))
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Tokens emitidos antes das claims uid/role (e sem jti) não trazem id e tipo: esses dados vêm do cache (banco no máximo
+    // uma vez por TTL) até o token expirar
+    private UsuarioAutenticado usuarioDoToken(Claims claims) {
+        String email = claims.getSubject();
+        if (email == null) {
+            return null;
+        }
+        Number usuarioId = claims.get(JwtService.CLAIM_USUARIO_ID, Number.class);
+        String tipo = claims.get(JwtService.CLAIM_TIPO_USUARIO, String.class);
+        if (usuarioId != null && tipo != null) {
+            return new UsuarioAutenticado(usuarioId.longValue(), email, TipoUsuario.valueOf(tipo));
+        }
+        Optional<SituacaoUsuario> situacao = usuariosAtivos.situacao(email);
+        return situacao.map(s -> new UsuarioAutenticado(s.getId(), email, s.getTipoUsuario())).orElse(null);
+    }
+
+    private void recusar(HttpServletResponse response, String mensagem) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.getWriter().write(mensagem);
+        response.getWriter().flush();
     }
-}
\ No newline at end of file
+}
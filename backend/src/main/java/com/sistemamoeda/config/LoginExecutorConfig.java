@@ -0,0 +1,29 @@
+package com.sistemamoeda.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Executor exclusivo do login (BCrypt). O hash roda aqui, não nas threads do Tomcat: com muitos logins ao mesmo
+// tempo, só estas threads ficam ocupadas e o resto da API continua respondendo. Threads = processadores por
+// padrão (o BCrypt é só CPU); com a fila cheia o executor recusa na hora e o login responde 503.
+// Métricas executor.* (tag name=loginExecutor) vêm do actuator.
+@Configuration
+public class LoginExecutorConfig {
+
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${app.login.executor.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${app.login.executor.fila:64}") int fila) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,41 @@
+package com.sistemamoeda.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Properties;
+
+// Substitui o JavaMailSender padrão do Spring Boot pelo JavaMailSenderComPool, com as mesmas propriedades spring.mail.*
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public JavaMailSenderComPool mailSender(MailProperties mailProperties,
+                                            @Value("${app.email.smtp.conexoes:4}") int conexoes,
+                                            @Value("${app.email.smtp.ociosidade-maxima:60s}") Duration ociosidadeMaxima,
+                                            @Value("${app.email.smtp.verificar-apos:5s}") Duration verificarApos,
+                                            @Value("${app.email.smtp.max-mensagens-por-conexao:100}") int maxMensagensPorConexao) {
+        JavaMailSenderComPool sender = new JavaMailSenderComPool(conexoes, ociosidadeMaxima, verificarApos, maxMensagensPorConexao);
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties propriedades = new Properties();
+            propriedades.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(propriedades);
+        }
+        return sender;
+    }
+}
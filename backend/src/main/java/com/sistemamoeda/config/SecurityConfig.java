@@ -10,13 +10,17 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -28,18 +32,27 @@ public class SecurityConfig {
     
     // (Opcional) Injete seu CORS
     private final CorsConfigurationSource corsConfigurationSource;
+    
+    private final CustoBCrypt custoBCrypt;
 
     public SecurityConfig(UserDetailsService userDetailsService, 
                           JwtAuthenticationFilter jwtAuthFilter, 
-                          CorsConfigurationSource corsConfigurationSource) {
+                          CorsConfigurationSource corsConfigurationSource,
+                          CustoBCrypt custoBCrypt) {
         this.userDetailsService = userDetailsService;
         this.jwtAuthFilter = jwtAuthFilter;
         this.corsConfigurationSource = corsConfigurationSource;
+        this.custoBCrypt = custoBCrypt;
     }
 
+    // Hashes novos saem como "{bcrypt}$2a$<custo>$..." (prefixo com o algoritmo, custo do CustoBCrypt). Os antigos,
+    // sem prefixo, continuam conferindo pelo BCrypt padrão e são refeitos no próximo login (upgradeEncoding)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", custoBCrypt.encoder()));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 
     @Bean
@@ -52,6 +65,10 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Regrava o hash quando a senha confere mas o hash guardado está com outro custo ou formato
+        if (userDetailsService instanceof UserDetailsPasswordService senhas) {
+            authProvider.setUserDetailsPasswordService(senhas);
+        }
         return authProvider;
     }
 
@@ -66,16 +83,22 @@ public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
             
                 .requestMatchers("/api/auth/**", "/api/h2-console/**").permitAll() 
                 .requestMatchers(HttpMethod.GET, "/api/instituicoes").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/api/alunos", "/api/professores", "/api/empresas").permitAll()
 
 
                 .requestMatchers(HttpMethod.GET, "/api/alunos/**").hasAnyRole("ALUNO", "PROFESSOR", "ADMIN")                
                 .requestMatchers(HttpMethod.GET, "/api/empresas/**").hasAnyRole("EMPRESA", "ALUNO", "ADMIN")
+                // Fotos são carregadas por <img>, que não envia o token
+                .requestMatchers(HttpMethod.GET, "/api/vantagens/*/foto").permitAll()
+                // QR code do cupom: também carregado por <img>, inclusive nos clientes de e-mail
+                .requestMatchers(HttpMethod.GET, "/api/cupons/*/qrcode").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/vantagens/**").hasAnyRole("EMPRESA", "ALUNO", "ADMIN")
                 
                 .requestMatchers(HttpMethod.GET, "/api/transacoes/**").hasAnyRole("PROFESSOR", "ALUNO", "ADMIN")
 
-                .requestMatchers(HttpMethod.POST, "/api/transacoes/enviar-moedas").hasAnyRole("PROFESSOR", "ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/transacoes/enviar-moedas", "/api/transacoes/enviar-moedas/lote").hasAnyRole("PROFESSOR", "ADMIN")
                 
 
                 .requestMatchers(HttpMethod.POST, "/api/transacoes/resgatar-vantagem").hasAnyRole("ALUNO", "ADMIN")
@@ -0,0 +1,14 @@
+package com.sistemamoeda.config;
+
+import com.sistemamoeda.model.TipoUsuario;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// Principal das requisições autenticadas por token, montado a partir das claims do JWT (sem consultar o banco).
+// authentication.getName() continua devolvendo o e-mail.
+public record UsuarioAutenticado(Long usuarioId, String email, TipoUsuario tipoUsuario) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,63 @@
+package com.sistemamoeda.config;
+
+import com.sistemamoeda.service.VantagemService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+// Bancos criados antes das fotos em tabela separada ainda têm as fotos na coluna vantagem.foto.
+// Na inicialização, cada foto antiga passa pelo processamento de imagem (rendições em vantagem_foto_rendicao)
+// e a coluna é zerada, uma transação por vantagem. Uma foto que falhar (bytes corrompidos gravados pelo caminho
+// antigo, sem validação) fica na coluna para correção manual e a migração segue com as outras.
+@Configuration
+public class VantagemFotoMigracao {
+
+    @Bean
+    public CommandLineRunner migrarFotosVantagens(JdbcTemplate jdbcTemplate,
+                                                  TransactionTemplate transactionTemplate,
+                                                  VantagemService vantagemService) {
+        return args -> {
+            if (!colunaFotoAntigaExiste(jdbcTemplate)) {
+                return;
+            }
+
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM vantagem WHERE foto IS NOT NULL", Long.class);
+            int migradas = 0;
+            for (Long id : ids) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        byte[] foto = jdbcTemplate.queryForObject("SELECT foto FROM vantagem WHERE id = ?", byte[].class, id);
+                        if (foto != null && foto.length > 0) {
+                            vantagemService.atualizarFoto(id, foto);
+                        }
+                        jdbcTemplate.update("UPDATE vantagem SET foto = NULL WHERE id = ?", id);
+                    });
+                    migradas++;
+                } catch (RuntimeException e) {
+                    // Imagem ilegível ou decodificador falhou: fica na coluna antiga para correção manual, sem
+                    // impedir a aplicação de subir
+                    System.err.println("⚠️ Foto da vantagem " + id + " não migrada: "
+                            + e.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+            }
+
+            if (migradas > 0) {
+                System.out.println(">>> " + migradas + " foto(s) de vantagem migrada(s) para vantagem_foto_rendicao <<<");
+            }
+        };
+    }
+
+    private boolean colunaFotoAntigaExiste(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet colunas = connection.getMetaData().getColumns(connection.getCatalog(), null, "vantagem", "foto")) {
+                return colunas.next();
+            }
+        }));
+    }
+}
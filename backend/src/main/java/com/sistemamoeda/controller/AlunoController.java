@@ -1,14 +1,20 @@
 package com.sistemamoeda.controller;
 
+import com.sistemamoeda.config.UsuarioAutenticado;
 import com.sistemamoeda.dto.AlunoRequestDTO;
 import com.sistemamoeda.dto.AlunoResponseDTO;
+import com.sistemamoeda.dto.CupomResponseDTO;
+import com.sistemamoeda.model.TipoUsuario;
 import com.sistemamoeda.service.AlunoService;
+import com.sistemamoeda.service.CupomService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,6 +30,7 @@ import java.util.Map;
 public class AlunoController {
     
     private final AlunoService alunoService;
+    private final CupomService cupomService;
     
     // Criar novo aluno
     @PostMapping
@@ -69,6 +76,32 @@ public class AlunoController {
         }
     }
 
+    // Cupons que o aluno tem hoje (uma consulta indexada por dono, sem reconstruir pelo extrato)
+    // Só o próprio aluno (ou ADMIN) vê os códigos: o código basta para uma empresa consumir o cupom
+    @GetMapping("/{id}/cupons")
+    public ResponseEntity<?> listarCupons(@PathVariable Long id, Authentication authentication) {
+        if (!podeVerCupons(id, authentication)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", "Aluno não corresponde ao usuário logado");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        try {
+            List<CupomResponseDTO> cupons = cupomService.listarCuponsDoAluno(id);
+            return ResponseEntity.ok(cupons);
+        } catch (EntityNotFoundException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+    }
+
+    private boolean podeVerCupons(Long alunoId, Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof UsuarioAutenticado usuario)) {
+            return false;
+        }
+        return usuario.tipoUsuario() == TipoUsuario.ADMIN || alunoService.pertenceAoUsuario(alunoId, usuario.usuarioId());
+    }
+
     // ADICIONE ESTE ENDPOINT:
     @GetMapping("/por-usuario/{usuarioId}")
     public ResponseEntity<?> buscarPorUsuarioId(@PathVariable Long usuarioId) {
@@ -94,6 +127,10 @@ public class AlunoController {
             Map<String, String> error = new HashMap<>();
             error.put("erro", e.getMessage());
             return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", "Aluno alterado por outra operação, tente novamente");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("erro", "Erro interno do servidor");
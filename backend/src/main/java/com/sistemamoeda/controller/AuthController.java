@@ -1,30 +1,38 @@
 package com.sistemamoeda.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.sistemamoeda.dto.TokensResponseDTO;
 import com.sistemamoeda.model.Usuario;
 import com.sistemamoeda.repository.UsuarioRepository;
-import com.sistemamoeda.service.JwtService;
+import com.sistemamoeda.service.LoginService;
+import com.sistemamoeda.service.SessaoTokensService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginService loginService;
     
     @Autowired
-    private JwtService jwtService;
+    private SessaoTokensService sessaoTokens;
 
     @Autowired
     private UsuarioRepository usuarioRepository; // Ou um service que faça isso
@@ -32,6 +40,9 @@ public class AuthController {
     //DTO (Data Transfer Object) simples para o corpo da requisição de login
     public record LoginRequest(String email, String senha) {}
 
+    // Corpo de /refresh e /logout
+    public record RenovacaoRequest(String tokenRenovacao) {}
+
     @GetMapping("/me")
     public ResponseEntity<?> getMyProfile(Authentication authentication) {
         
@@ -42,19 +53,50 @@ public class AuthController {
         return ResponseEntity.ok(usuario);
     }
 
+    // O BCrypt roda no loginExecutor (LoginService) e esta thread volta para o Tomcat; a resposta sai quando o futuro
+    // terminar: 200 com os tokens, 401 senha errada, 429 tentativas demais, 503 executor de login saturado
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody LoginRequest request) {
-        // 1. O AuthenticationManager usa seu UserDetailsService para validar
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.email(), request.senha())
-        );
-
-        // 2. Se a autenticação deu certo, gera o token
-        if (authentication.isAuthenticated()) {
-            String token = jwtService.generateToken(request.email());
-            return ResponseEntity.ok(token);
-        } else {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        return loginService.entrar(request.email(), request.senha(), httpRequest.getRemoteAddr())
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(this::recusaLogin);
+    }
+
+    private ResponseEntity<?> recusaLogin(Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (causa instanceof LoginService.TentativasExcedidasException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getTentarEmSegundos()))
+                    .body(e.getMessage());
+        }
+        if (causa instanceof LoginService.LoginSobrecarregadoException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(e.getMessage());
+        }
+        if (causa instanceof AuthenticationException) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Email ou senha inválidos");
         }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro ao realizar login");
+    }
+
+    // Novo par de tokens a partir do token de renovação, sem pedir a senha de novo
+    @PostMapping("/refresh")
+    public ResponseEntity<?> renovar(@RequestBody RenovacaoRequest request) {
+        try {
+            TokensResponseDTO tokens = sessaoTokens.renovar(request.tokenRenovacao());
+            return ResponseEntity.ok(tokens);
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
+    // Logout: revoga o token de renovação e o token de acesso enviado no cabeçalho
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) RenovacaoRequest request,
+                                    @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String tokenAcesso = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        sessaoTokens.encerrar(request != null ? request.tokenRenovacao() : null, tokenAcesso);
+        return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.sistemamoeda.controller;
+
+import com.sistemamoeda.service.CodigosCupom;
+import com.sistemamoeda.service.CupomService;
+import com.sistemamoeda.service.QRCodeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/api/cupons")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class CupomController {
+    
+    // Muda quando o desenho do QR code mudar (escala, margem, correção de erro), invalidando os ETags antigos
+    private static final String VERSAO_QRCODE = "1";
+    private static final Pattern FORMATO_CODIGO = Pattern.compile("[A-Za-z0-9_-]{1,50}");
+    private static final MediaType IMAGE_SVG = MediaType.parseMediaType("image/svg+xml");
+    
+    private final CupomService cupomService;
+    private final QRCodeService qrCodeService;
+    private final CodigosCupom codigosCupom;
+    
+    // QR code do cupom em PNG (padrão, funciona em qualquer cliente de e-mail) ou SVG. O QR de um cupom nunca muda:
+    // o ETag depende só do código, do formato e da versão do desenho, e a resposta pode ficar em cache por um ano.
+    // Revalidação com If-None-Match responde 304 sem gerar a imagem. O código é levado à forma canônica (a mesma
+    // gravada no cupom); outras grafias são redirecionadas (301) para a URL canônica, com uma única entrada de cache.
+    // Nenhum caminho consulta o banco: a resposta não revela se o cupom existe (ver CupomService.podeGerarQRCode).
+    @GetMapping("/{codigo}/qrcode")
+    public ResponseEntity<?> buscarQRCode(@PathVariable String codigo,
+                                          @RequestParam(value = "formato", required = false, defaultValue = "png") String formato,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String tipo = formato.trim().toLowerCase();
+            if (!tipo.equals("png") && !tipo.equals("svg")) {
+                throw new IllegalArgumentException("formato inválido (use png ou svg)");
+            }
+            if (!FORMATO_CODIGO.matcher(codigo).matches()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Cupom não encontrado");
+            }
+            
+            String canonico = codigosCupom.canonico(codigo);
+            if (!cupomService.podeGerarQRCode(canonico)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Cupom não encontrado");
+            }
+            
+            if (!canonico.equals(codigo)) {
+                URI destino = ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/cupons/{codigo}/qrcode")
+                        .queryParam("formato", tipo)
+                        .buildAndExpand(canonico)
+                        .toUri();
+                return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY).location(destino).build();
+            }
+            
+            String etag = "\"qr" + VERSAO_QRCODE + "-" + tipo + "-" + resumo(canonico) + "\"";
+            CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+            
+            if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+            }
+            
+            byte[] imagem = tipo.equals("svg") ? qrCodeService.gerarQRCodeSvg(canonico) : qrCodeService.gerarQRCodeBytes(canonico);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .contentType(tipo.equals("svg") ? IMAGE_SVG : MediaType.IMAGE_PNG)
+                    .contentLength(imagem.length)
+                    .body(imagem);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao gerar QR Code: " + e.getMessage());
+        }
+    }
+    
+    // O código não vai no ETag em claro (o ETag pode aparecer em logs de proxies)
+    private static String resumo(String codigo) throws NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(codigo.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, 12);
+    }
+}
@@ -1,7 +1,12 @@
 package com.sistemamoeda.controller;
 
+import com.sistemamoeda.config.UsuarioAutenticado;
 import com.sistemamoeda.dto.EmpresaRequestDTO;
 import com.sistemamoeda.dto.EmpresaResponseDTO;
+import com.sistemamoeda.dto.ValidacaoCupomRequestDTO;
+import com.sistemamoeda.dto.ValidacaoCupomResponseDTO;
+import com.sistemamoeda.model.TipoUsuario;
+import com.sistemamoeda.service.CupomService;
 import com.sistemamoeda.service.EmpresaService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
@@ -9,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,6 +30,7 @@ import java.util.Map;
 public class EmpresaController {
     
     private final EmpresaService empresaService;
+    private final CupomService cupomService;
     
     // Criar nova empresa
     @PostMapping
@@ -62,6 +69,68 @@ public class EmpresaController {
         }
     }
     
+    // Validar cupom apresentado no balcão (não altera o cupom). 200 com valido = true/false; 404 se o código não existe;
+    // 403 se a empresa do caminho não é a do usuário logado
+    @PostMapping("/{id}/cupons/validar")
+    public ResponseEntity<?> validarCupom(@PathVariable Long id, @Valid @RequestBody ValidacaoCupomRequestDTO request,
+                                          Authentication authentication) {
+        if (!podeOperarCupons(id, authentication)) {
+            return proibido();
+        }
+        try {
+            ValidacaoCupomResponseDTO validacao = cupomService.validarCupom(id, request);
+            return ResponseEntity.ok(validacao);
+        } catch (EntityNotFoundException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", "Erro interno do servidor");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+    
+    // Consumir (usar) o cupom. 200 se foi marcado como usado; 409 com o motivo se não pode ser usado; 404 se não existe;
+    // 403 se a empresa do caminho não é a do usuário logado
+    @PostMapping("/{id}/cupons/consumir")
+    public ResponseEntity<?> consumirCupom(@PathVariable Long id, @Valid @RequestBody ValidacaoCupomRequestDTO request,
+                                           Authentication authentication) {
+        if (!podeOperarCupons(id, authentication)) {
+            return proibido();
+        }
+        try {
+            ValidacaoCupomResponseDTO consumo = cupomService.consumirCupom(id, request);
+            return consumo.isValido()
+                    ? ResponseEntity.ok(consumo)
+                    : ResponseEntity.status(HttpStatus.CONFLICT).body(consumo);
+        } catch (EntityNotFoundException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("erro", "Erro interno do servidor");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+    
+    // Cada empresa só valida e consome cupons como ela mesma; ADMIN pode agir por qualquer empresa
+    private boolean podeOperarCupons(Long empresaId, Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof UsuarioAutenticado usuario)) {
+            return false;
+        }
+        return usuario.tipoUsuario() == TipoUsuario.ADMIN || empresaService.pertenceAoUsuario(empresaId, usuario.usuarioId());
+    }
+    
+    private ResponseEntity<?> proibido() {
+        Map<String, String> error = new HashMap<>();
+        error.put("erro", "Empresa não corresponde ao usuário logado");
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+    
     // Atualizar empresa
     @PutMapping("/{id}")
     public ResponseEntity<?> atualizarEmpresa(@PathVariable Long id, @Valid @RequestBody EmpresaRequestDTO request) {
@@ -6,6 +6,7 @@ import com.sistemamoeda.service.ProfessorService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -70,6 +71,9 @@ public class ProfessorController {
             return ResponseEntity.ok(professor);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Professor alterado por outra operação, tente novamente");
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -161,6 +165,9 @@ public class ProfessorController {
         try {
             ProfessorResponseDTO professor = professorService.adicionarMoedasSemestrais(id);
             return ResponseEntity.ok(professor);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Saldo do professor alterado por outra operação, tente novamente");
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
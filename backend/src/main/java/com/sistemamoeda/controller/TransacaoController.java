@@ -1,10 +1,18 @@
 package com.sistemamoeda.controller;
 
+import com.sistemamoeda.dto.CreditoSemestralResumoDTO;
+import com.sistemamoeda.dto.EnvioMoedasLoteRequestDTO;
+import com.sistemamoeda.dto.EnvioMoedasLoteResponseDTO;
+import com.sistemamoeda.dto.ExtratoPaginaDTO;
+import com.sistemamoeda.dto.ReconstrucaoEstatisticasDTO;
 import com.sistemamoeda.dto.ResgateVantagemRequestDTO;
 import com.sistemamoeda.dto.TransacaoRequestDTO;
 import com.sistemamoeda.dto.TransacaoResponseDTO;
 import com.sistemamoeda.model.TipoTransacao;
+import com.sistemamoeda.service.CreditoSemestralService;
+import com.sistemamoeda.service.EstatisticasTransacaoService;
 import com.sistemamoeda.service.TransacaoService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -13,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -23,6 +32,8 @@ import java.util.List;
 public class TransacaoController {
     
     private final TransacaoService transacaoService;
+    private final CreditoSemestralService creditoSemestralService;
+    private final EstatisticasTransacaoService estatisticasService;
     
     // Enviar moedas (Professor -> Aluno)
     @PostMapping("/enviar-moedas")
@@ -39,6 +50,21 @@ public class TransacaoController {
         }
     }
     
+    // Enviar moedas para vários alunos em uma única requisição (Professor -> Alunos)
+    @PostMapping("/enviar-moedas/lote")
+    public ResponseEntity<?> enviarMoedasEmLote(@Valid @RequestBody EnvioMoedasLoteRequestDTO request) {
+        try {
+            EnvioMoedasLoteResponseDTO resultado = transacaoService.enviarMoedasEmLote(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor: " + e.getMessage());
+        }
+    }
+    
     // Resgatar vantagem (Aluno -> Empresa)
     @PostMapping("/resgatar-vantagem")
     public ResponseEntity<?> resgatarVantagem(@Valid @RequestBody ResgateVantagemRequestDTO request) {
@@ -55,11 +81,16 @@ public class TransacaoController {
     }
     
     // Adicionar crédito semestral para todos os professores (endpoint administrativo)
+    // Executado em lotes; chamar de novo para o mesmo semestre retoma uma execução interrompida.
+    // Semestre anterior ao atual exige confirmacao com o mesmo semestre; semestre futuro é recusado
     @PostMapping("/credito-semestral")
-    public ResponseEntity<?> adicionarCreditoSemestral() {
+    public ResponseEntity<?> adicionarCreditoSemestral(@RequestParam(required = false) String semestre,
+                                                       @RequestParam(required = false) String confirmacao) {
         try {
-            List<TransacaoResponseDTO> transacoes = transacaoService.adicionarCreditoSemestral();
-            return ResponseEntity.ok(transacoes);
+            CreditoSemestralResumoDTO resumo = creditoSemestralService.executar(semestre, confirmacao);
+            return ResponseEntity.ok(resumo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -121,6 +152,26 @@ public class TransacaoController {
         }
     }
     
+    // Buscar extrato de um usuário paginado (use o nextCursor da resposta para a próxima página)
+    @GetMapping("/extrato/usuario/{usuarioId}/paginado")
+    public ResponseEntity<?> buscarExtratoUsuarioPaginado(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            ExtratoPaginaDTO pagina = transacaoService.buscarExtratoUsuarioPaginado(usuarioId, cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao buscar extrato: " + e.getMessage());
+        }
+    }
+    
     // Buscar extrato por período
     @GetMapping("/extrato/usuario/{usuarioId}/periodo")
     public ResponseEntity<?> buscarExtratoPorPeriodo(
@@ -191,12 +242,19 @@ public class TransacaoController {
         }
     }
     
+    // Estatísticas (lidas dos contadores pré-agregados). Sem datas: acumulado desde o início;
+    // com dataInicio e/ou dataFim (AAAA-MM-DD): soma dos dias do período
     // Estatísticas - moedas enviadas por professor
     @GetMapping("/estatisticas/professor/{professorId}/enviadas")
-    public ResponseEntity<?> calcularMoedasEnviadasPorProfessor(@PathVariable Long professorId) {
+    public ResponseEntity<?> calcularMoedasEnviadasPorProfessor(
+            @PathVariable Long professorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
         try {
-            BigDecimal total = transacaoService.calcularMoedasEnviadasPorProfessor(professorId);
+            BigDecimal total = transacaoService.calcularMoedasEnviadasPorProfessor(professorId, dataInicio, dataFim);
             return ResponseEntity.ok(total);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -206,10 +264,15 @@ public class TransacaoController {
     
     // Estatísticas - moedas recebidas por aluno
     @GetMapping("/estatisticas/aluno/{alunoId}/recebidas")
-    public ResponseEntity<?> calcularMoedasRecebidasPorAluno(@PathVariable Long alunoId) {
+    public ResponseEntity<?> calcularMoedasRecebidasPorAluno(
+            @PathVariable Long alunoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
         try {
-            BigDecimal total = transacaoService.calcularMoedasRecebidasPorAluno(alunoId);
+            BigDecimal total = transacaoService.calcularMoedasRecebidasPorAluno(alunoId, dataInicio, dataFim);
             return ResponseEntity.ok(total);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -219,10 +282,15 @@ public class TransacaoController {
     
     // Estatísticas - moedas gastas por aluno
     @GetMapping("/estatisticas/aluno/{alunoId}/gastas")
-    public ResponseEntity<?> calcularMoedasGastasPorAluno(@PathVariable Long alunoId) {
+    public ResponseEntity<?> calcularMoedasGastasPorAluno(
+            @PathVariable Long alunoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
         try {
-            BigDecimal total = transacaoService.calcularMoedasGastasPorAluno(alunoId);
+            BigDecimal total = transacaoService.calcularMoedasGastasPorAluno(alunoId, dataInicio, dataFim);
             return ResponseEntity.ok(total);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -232,14 +300,33 @@ public class TransacaoController {
     
     // Estatísticas - resgates de uma vantagem
     @GetMapping("/estatisticas/vantagem/{vantagemId}/resgates")
-    public ResponseEntity<?> contarResgatesPorVantagem(@PathVariable Long vantagemId) {
+    public ResponseEntity<?> contarResgatesPorVantagem(
+            @PathVariable Long vantagemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
         try {
-            Long total = transacaoService.contarResgatesPorVantagem(vantagemId);
+            Long total = transacaoService.contarResgatesPorVantagem(vantagemId, dataInicio, dataFim);
             return ResponseEntity.ok(total);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erro ao calcular estatísticas: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    // Recalcula as estatísticas a partir do histórico de transações (endpoint administrativo).
+    // corrigir=false apenas compara e informa as divergências
+    @PostMapping("/estatisticas/reconstruir")
+    public ResponseEntity<?> reconstruirEstatisticas(@RequestParam(defaultValue = "false") boolean corrigir) {
+        try {
+            ReconstrucaoEstatisticasDTO resultado = estatisticasService.reconstruir(corrigir);
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao reconstruir estatísticas: " + e.getMessage());
+        }
+    }
+}
@@ -2,15 +2,29 @@ package com.sistemamoeda.controller;
 
 import com.sistemamoeda.dto.VantagemRequestDTO;
 import com.sistemamoeda.dto.VantagemResponseDTO;
+import com.sistemamoeda.model.FotoRendicao;
+import com.sistemamoeda.model.VantagemFoto;
+import com.sistemamoeda.repository.VantagemFotoRepository;
+import com.sistemamoeda.service.ImagemService;
 import com.sistemamoeda.service.VantagemService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/vantagens")
@@ -74,6 +88,116 @@ public class VantagemController {
         }
     }
     
+    // Foto da vantagem (JPEG na rendição pedida: miniatura, card ou email; padrão card).
+    // ETag = hash do conteúdo; com ?v= igual à versão atual (exatamente o valor das URLs geradas, ver
+    // VantagemService.versaoFoto) a resposta é imutável; sem ?v= ou com outro valor o navegador revalida e recebe
+    // 304 enquanto a foto não mudar
+    @GetMapping("/{id}/foto")
+    public ResponseEntity<?> buscarFoto(@PathVariable Long id,
+                                        @RequestParam(value = "rendicao", required = false, defaultValue = "card") String rendicao,
+                                        @RequestParam(value = "v", required = false) String versao,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            FotoRendicao tamanho = FotoRendicao.valueOf(rendicao.trim().toUpperCase());
+            
+            Optional<VantagemFotoRepository.HashesFoto> hashes = vantagemService.buscarHashesFoto(id, tamanho);
+            if (hashes.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Vantagem sem foto");
+            }
+            
+            String etag = "\"" + hashes.get().getHash() + "\"";
+            CacheControl cacheControl = VantagemService.versaoFoto(hashes.get().getHashOrigem()).equals(versao)
+                    ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                    : CacheControl.noCache().cachePublic();
+            
+            if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+            }
+            
+            VantagemFoto foto = vantagemService.buscarFoto(id, tamanho);
+            return ResponseEntity.ok()
+                    .eTag("\"" + foto.getHash() + "\"")
+                    .cacheControl(cacheControl)
+                    .contentType(MediaType.parseMediaType(foto.getContentType()))
+                    .contentLength(foto.getTamanho())
+                    .body(foto.getDados());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: rendição inválida (use miniatura, card ou email)");
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao buscar foto: " + e.getMessage());
+        }
+    }
+    
+    // Upload da foto com o arquivo como corpo da requisição (Content-Type image/*), sem Base64 no JSON.
+    // Content-Length acima do limite é recusado antes de ler o corpo; sem Content-Length, a leitura para no limite.
+    @PutMapping("/{id}/foto")
+    public ResponseEntity<?> enviarFoto(@PathVariable Long id, HttpServletRequest request) {
+        long tamanho = request.getContentLengthLong();
+        if (tamanho > vantagemService.getTamanhoMaximoFoto()) {
+            return fotoMuitoGrande();
+        }
+        if (tamanho == 0) {
+            return ResponseEntity.badRequest().body("Erro de validação: corpo da requisição vazio");
+        }
+        
+        try (InputStream corpo = request.getInputStream()) {
+            VantagemResponseDTO vantagem = vantagemService.atualizarFoto(id, corpo);
+            return ResponseEntity.ok(vantagem);
+        } catch (ImagemService.TamanhoMaximoExcedidoException e) {
+            return fotoMuitoGrande();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao enviar foto: " + e.getMessage());
+        }
+    }
+    
+    // Upload da foto via multipart/form-data (campo "foto"); o arquivo fica em disco temporário, não em memória
+    @PostMapping(value = "/{id}/foto", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> enviarFotoMultipart(@PathVariable Long id, @RequestParam("foto") MultipartFile foto) {
+        if (foto.getSize() > vantagemService.getTamanhoMaximoFoto()) {
+            return fotoMuitoGrande();
+        }
+        if (foto.isEmpty()) {
+            return ResponseEntity.badRequest().body("Erro de validação: arquivo vazio");
+        }
+        
+        try (InputStream conteudo = foto.getInputStream()) {
+            VantagemResponseDTO vantagem = vantagemService.atualizarFoto(id, conteudo);
+            return ResponseEntity.ok(vantagem);
+        } catch (ImagemService.TamanhoMaximoExcedidoException e) {
+            return fotoMuitoGrande();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro de validação: " + e.getMessage());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao enviar foto: " + e.getMessage());
+        }
+    }
+    
+    // Multipart acima de spring.servlet.multipart.max-file-size (resolvido só ao chegar neste controller)
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> uploadMuitoGrande(MaxUploadSizeExceededException e) {
+        return fotoMuitoGrande();
+    }
+    
+    private ResponseEntity<?> fotoMuitoGrande() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body("Erro de validação: a imagem excede o tamanho máximo de "
+                        + (vantagemService.getTamanhoMaximoFoto() / (1024 * 1024)) + "MB");
+    }
+    
     // Atualizar vantagem
     @PutMapping("/{id}")
     public ResponseEntity<?> atualizarVantagem(@PathVariable Long id, 
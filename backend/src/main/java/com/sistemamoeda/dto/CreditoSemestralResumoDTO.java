@@ -0,0 +1,26 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditoSemestralResumoDTO {
+    
+    private String semestre;
+    
+    // Dados desta execução
+    private Integer professoresCreditados;
+    private BigDecimal totalCreditado;
+    private Integer lotesProcessados;
+    private Long duracaoMs;
+    
+    // Acumulado do semestre (inclui execuções anteriores interrompidas)
+    private Integer professoresCreditadosNoSemestre;
+    private BigDecimal totalCreditadoNoSemestre;
+    private Boolean concluido;
+}
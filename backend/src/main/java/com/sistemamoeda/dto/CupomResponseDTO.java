@@ -0,0 +1,30 @@
+package com.sistemamoeda.dto;
+
+import com.sistemamoeda.model.StatusCupom;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CupomResponseDTO {
+    
+    private String codigoCupom;
+    private String status;
+    private LocalDateTime dataResgate;
+    private LocalDateTime dataAquisicao;
+    
+    // Dados da vantagem
+    private Long vantagemId;
+    private String vantagemNome;
+    private String empresaNome;
+    
+    // Construtor usado pelas projeções JPQL (SELECT new ...) do CupomRepository
+    public CupomResponseDTO(String codigoCupom, StatusCupom status, LocalDateTime dataResgate, LocalDateTime dataAquisicao,
+                            Long vantagemId, String vantagemNome, String empresaNome) {
+        this(codigoCupom, status.name(), dataResgate, dataAquisicao, vantagemId, vantagemNome, empresaNome);
+    }
+}
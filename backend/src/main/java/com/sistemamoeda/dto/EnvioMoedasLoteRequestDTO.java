@@ -0,0 +1,24 @@
+package com.sistemamoeda.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnvioMoedasLoteRequestDTO {
+    
+    @NotNull(message = "ID do remetente é obrigatório")
+    private Long remetenteId;
+    
+    @NotEmpty(message = "O lote deve ter ao menos um aluno")
+    @Size(max = 1000, message = "O lote deve ter no máximo 1000 alunos")
+    private List<@Valid ItemEnvioMoedasDTO> itens;
+}
@@ -0,0 +1,22 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnvioMoedasLoteResponseDTO {
+    
+    private Long professorId;
+    private BigDecimal totalEnviado;
+    private Integer quantidadeEnviada;
+    private Integer quantidadeFalhas;
+    
+    // Resultado de cada item, na mesma ordem do pedido
+    private List<ResultadoEnvioMoedasDTO> resultados;
+}
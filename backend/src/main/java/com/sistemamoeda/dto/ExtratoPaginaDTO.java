@@ -0,0 +1,19 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtratoPaginaDTO {
+    
+    private List<TransacaoResponseDTO> transacoes;
+    
+    // Cursor para buscar a próxima página (null quando não há mais transações)
+    private String nextCursor;
+    private Boolean temMais;
+}
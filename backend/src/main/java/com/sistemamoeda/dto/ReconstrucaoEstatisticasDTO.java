@@ -0,0 +1,21 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconstrucaoEstatisticasDTO {
+    
+    // false = só verificação (nada é gravado)
+    private Boolean corrigido;
+    private Integer blocosProcessados;
+    
+    // Contadores (por dia e acumulados) comparados com o histórico e quantos estavam diferentes,
+    // faltando ou sobrando
+    private Long contadoresVerificados;
+    private Long divergencias;
+    private Long duracaoMs;
+}
@@ -0,0 +1,20 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoEnvioMoedasDTO {
+    
+    private Long alunoId;
+    private String alunoNome;
+    private BigDecimal valor;
+    private Boolean sucesso;
+    private Long transacaoId;
+    private String erro;
+}
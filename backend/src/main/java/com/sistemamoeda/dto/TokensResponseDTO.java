@@ -0,0 +1,20 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokensResponseDTO {
+    
+    // Enviado em "Authorization: Bearer ..." em cada requisição; vale por pouco tempo
+    private String tokenAcesso;
+    
+    // Usado apenas em /api/auth/refresh para obter um novo par (cada token de renovação vale uma única vez)
+    private String tokenRenovacao;
+    
+    private String tipoToken;
+    private Long expiraEmSegundos;
+}
@@ -1,5 +1,6 @@
 package com.sistemamoeda.dto;
 
+import com.sistemamoeda.model.TipoTransacao;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -31,4 +32,15 @@ public class TransacaoResponseDTO {
     private Long vantagemId;
     private String vantagemNome;
     private String empresaNome;
+    
+    // Construtor usado pelas projeções JPQL (SELECT new ...) do TransacaoRepository
+    public TransacaoResponseDTO(Long id, TipoTransacao tipoTransacao, BigDecimal valor, String descricao,
+                                LocalDateTime dataTransacao, String codigoCupom,
+                                Long remetenteId, String remetenteNome,
+                                Long destinatarioId, String destinatarioNome,
+                                Long vantagemId, String vantagemNome, String empresaNome) {
+        this(id, tipoTransacao.name(), valor, descricao, dataTransacao, codigoCupom,
+             remetenteId, remetenteNome, destinatarioId, destinatarioNome,
+             vantagemId, vantagemNome, empresaNome);
+    }
 }
\ No newline at end of file
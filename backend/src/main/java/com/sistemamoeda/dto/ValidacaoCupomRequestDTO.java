@@ -0,0 +1,18 @@
+package com.sistemamoeda.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidacaoCupomRequestDTO {
+
+    @NotBlank(message = "Código do cupom é obrigatório")
+    private String codigoCupom;
+
+    // Opcional: aluno que apresentou o cupom (confere se é o dono atual)
+    private Long alunoId;
+}
@@ -0,0 +1,26 @@
+package com.sistemamoeda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidacaoCupomResponseDTO {
+    
+    private String codigoCupom;
+    private boolean valido;
+    private String motivo; // preenchido quando o cupom não pode ser usado
+    private String status;
+    
+    // Dados da vantagem e do dono atual (omitidos se o cupom for de outra empresa)
+    private Long vantagemId;
+    private String vantagemNome;
+    private Long alunoId;
+    private String alunoNome;
+    private LocalDateTime dataResgate;
+    private LocalDateTime dataUso;
+}
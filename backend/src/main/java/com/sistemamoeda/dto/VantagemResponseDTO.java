@@ -1,28 +1,23 @@
 package com.sistemamoeda.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class VantagemResponseDTO {
+// Imutável: as mesmas instâncias ficam no CatalogoVantagensCache e são entregues a todas as requisições
+public record VantagemResponseDTO(
     
-    private Long id;
+    Long id,
     
     // Dados da empresa
-    private Long empresaId;
-    private String empresaNome;
+    Long empresaId,
+    String empresaNome,
     
     // Dados da vantagem
-    private String nome;
-    private String descricao;
-    private BigDecimal custoMoedas;
-    private String fotoUrl;
-    private Boolean ativa;
-    private LocalDateTime dataCriacao;
-}
\ No newline at end of file
+    String nome,
+    String descricao,
+    BigDecimal custoMoedas,
+    String fotoUrl,        // rendição CARD
+    String miniaturaUrl,   // rendição MINIATURA, para grades com muitos itens
+    Boolean ativa,
+    LocalDateTime dataCriacao
+) {}
@@ -54,6 +54,11 @@ public class Aluno {
     @Column(name = "saldo_moedas", nullable = false, precision = 10, scale = 2)
     private BigDecimal saldoMoedas = BigDecimal.ZERO;
     
+    // Controle de concorrência otimista (incrementado também pelos UPDATEs condicionais de saldo)
+    @Version
+    @Column(nullable = false)
+    private Long versao = 0L;
+    
     @CreationTimestamp
     @Column(name = "data_cadastro", nullable = false, updatable = false)
     private LocalDateTime dataCadastro;
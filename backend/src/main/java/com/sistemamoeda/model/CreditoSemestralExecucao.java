@@ -0,0 +1,76 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Checkpoint da rotina de crédito semestral: cada lote processado avança ultimoProfessorId
+// na mesma transação do crédito, então uma nova execução continua de onde a anterior parou.
+@Entity
+@Table(name = "credito_semestral_execucao")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditoSemestralExecucao {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Formato AAAA-S (ex: 2025-1)
+    @Column(nullable = false, unique = true, length = 7)
+    private String semestre;
+    
+    @Column(name = "ultimo_professor_id", nullable = false)
+    private Long ultimoProfessorId = 0L;
+    
+    @Column(name = "professores_creditados", nullable = false)
+    private Integer professoresCreditados = 0;
+    
+    @Column(name = "total_creditado", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalCreditado = BigDecimal.ZERO;
+    
+    @Column(name = "lotes_processados", nullable = false)
+    private Integer lotesProcessados = 0;
+    
+    @Column(nullable = false)
+    private Boolean concluido = false;
+    
+    @CreationTimestamp
+    @Column(name = "data_inicio", nullable = false, updatable = false)
+    private LocalDateTime dataInicio;
+    
+    @UpdateTimestamp
+    @Column(name = "data_atualizacao")
+    private LocalDateTime dataAtualizacao;
+    
+    @Column(name = "data_conclusao")
+    private LocalDateTime dataConclusao;
+    
+    public CreditoSemestralExecucao(String semestre) {
+        this.semestre = semestre;
+        this.ultimoProfessorId = 0L;
+        this.professoresCreditados = 0;
+        this.totalCreditado = BigDecimal.ZERO;
+        this.lotesProcessados = 0;
+        this.concluido = false;
+    }
+    
+    public void registrarLote(Long ultimoProfessorId, int quantidade, BigDecimal valor) {
+        this.ultimoProfessorId = ultimoProfessorId;
+        this.professoresCreditados += quantidade;
+        this.totalCreditado = this.totalCreditado.add(valor);
+        this.lotesProcessados++;
+    }
+    
+    public void concluir() {
+        this.concluido = true;
+        this.dataConclusao = LocalDateTime.now();
+    }
+}
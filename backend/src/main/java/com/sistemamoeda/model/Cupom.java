@@ -0,0 +1,65 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Estado atual de cada cupom (dono e status). As transações RESGATE_VANTAGEM/TROCA_VANTAGEM continuam sendo o
+// histórico; esta tabela evita percorrer esse histórico para saber quem é o dono de um cupom.
+@Entity
+@Table(name = "cupom",
+       uniqueConstraints = @UniqueConstraint(name = "uk_cupom_codigo", columnNames = "codigo"),
+       indexes = @Index(name = "idx_cupom_proprietario", columnList = "proprietario_id, status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Cupom {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Código assinado gerado a partir do id, então é preenchido logo depois do INSERT (ver CodigosCupom)
+    @Column(length = 50)
+    private String codigo;
+    
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "vantagem_id", nullable = false)
+    private Vantagem vantagem;
+    
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "proprietario_id", nullable = false)
+    private Usuario proprietario;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatusCupom status = StatusCupom.ATIVO;
+    
+    // Controle de concorrência otimista (incrementado também pelo UPDATE condicional de transferência)
+    @Version
+    @Column(nullable = false)
+    private Long versao = 0L;
+    
+    @CreationTimestamp
+    @Column(name = "data_criacao", nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+    
+    // Quando o dono atual recebeu o cupom (resgate ou última transferência)
+    @Column(name = "data_aquisicao", nullable = false)
+    private LocalDateTime dataAquisicao;
+    
+    // Quando a empresa consumiu o cupom (status USADO)
+    @Column(name = "data_uso")
+    private LocalDateTime dataUso;
+    
+    // Construtor para resgate
+    public Cupom(Vantagem vantagem, Usuario proprietario) {
+        this.vantagem = vantagem;
+        this.proprietario = proprietario;
+        this.dataAquisicao = LocalDateTime.now();
+    }
+}
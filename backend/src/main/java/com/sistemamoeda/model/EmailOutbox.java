@@ -0,0 +1,77 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// E-mail a enviar, gravado na mesma transação da operação que o originou (outbox transacional).
+// Guarda só o tipo e os parâmetros; HTML, QR code e foto são gerados pelo EmailOutboxDispatcher no envio.
+@Entity
+@Table(name = "email_outbox",
+       indexes = @Index(name = "idx_email_outbox_fila", columnList = "status, proxima_tentativa"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoEmail tipo;
+    
+    @Column(nullable = false)
+    private String destinatario;
+    
+    @Column(nullable = false, length = 500)
+    private String assunto;
+    
+    // Parâmetros do modelo em JSON (nomes, código do cupom, mensagem...)
+    @Column(columnDefinition = "TEXT")
+    private String parametros;
+    
+    // Vantagem cuja foto vai inline no e-mail (cupons)
+    @Column(name = "vantagem_id")
+    private Long vantagemId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatusEmail status = StatusEmail.PENDENTE;
+    
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+    
+    @Column(name = "proxima_tentativa", nullable = false)
+    private LocalDateTime proximaTentativa;
+    
+    // Enquanto status = ENVIANDO, nenhum outro dispatcher pega o e-mail até este horário
+    @Column(name = "reservado_ate")
+    private LocalDateTime reservadoAte;
+    
+    @Column(name = "ultimo_erro", length = 1000)
+    private String ultimoErro;
+    
+    @CreationTimestamp
+    @Column(name = "data_criacao", nullable = false, updatable = false)
+    private LocalDateTime dataCriacao;
+    
+    @Column(name = "data_envio")
+    private LocalDateTime dataEnvio;
+    
+    public EmailOutbox(TipoEmail tipo, String destinatario, String assunto, String parametros, Long vantagemId) {
+        this.tipo = tipo;
+        this.destinatario = destinatario;
+        this.assunto = assunto;
+        this.parametros = parametros;
+        this.vantagemId = vantagemId;
+        this.status = StatusEmail.PENDENTE;
+        this.tentativas = 0;
+        this.proximaTentativa = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,45 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Totais por métrica/referência, um registro por dia mais um registro acumulado (dia = DIA_TOTAL). Atualizados
+// na mesma transação de cada Transacao inserida (EstatisticasTransacaoService); as telas de estatísticas leem
+// daqui em vez de somar o histórico inteiro do usuário.
+@Entity
+@Table(name = "estatistica_transacao",
+       uniqueConstraints = @UniqueConstraint(name = "uk_estatistica_transacao",
+                                             columnNames = {"metrica", "referencia_id", "dia"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticaTransacao {
+    
+    // Dia usado no registro acumulado desde o início (fica fora de qualquer período consultado)
+    public static final LocalDate DIA_TOTAL = LocalDate.of(1900, 1, 1);
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private MetricaEstatistica metrica;
+    
+    @Column(name = "referencia_id", nullable = false)
+    private Long referenciaId;
+    
+    @Column(nullable = false)
+    private LocalDate dia;
+    
+    @Column(nullable = false)
+    private Long quantidade = 0L;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal valor = BigDecimal.ZERO;
+}
@@ -0,0 +1,24 @@
+package com.sistemamoeda.model;
+
+// Tamanhos em que a foto de uma vantagem é armazenada (lado maior, em pixels) e a qualidade JPEG de cada um
+public enum FotoRendicao {
+    MINIATURA(320, 0.75f),  // grade do catálogo do aluno
+    CARD(640, 0.80f),       // cards e detalhes das telas de empresa/admin
+    EMAIL(600, 0.80f);      // imagem inline do e-mail de cupom (exibida a 300px, 2x para telas densas)
+    
+    private final int ladoMaximo;
+    private final float qualidadeJpeg;
+    
+    FotoRendicao(int ladoMaximo, float qualidadeJpeg) {
+        this.ladoMaximo = ladoMaximo;
+        this.qualidadeJpeg = qualidadeJpeg;
+    }
+    
+    public int getLadoMaximo() {
+        return ladoMaximo;
+    }
+    
+    public float getQualidadeJpeg() {
+        return qualidadeJpeg;
+    }
+}
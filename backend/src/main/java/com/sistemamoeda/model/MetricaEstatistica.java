@@ -0,0 +1,10 @@
+package com.sistemamoeda.model;
+
+// Contadores pré-agregados em estatistica_transacao. A referência é o id do usuário (professor/aluno)
+// ou, em RESGATES_VANTAGEM, o id da vantagem.
+public enum MetricaEstatistica {
+    MOEDAS_ENVIADAS,    // ENVIO_MOEDA, pelo remetente
+    MOEDAS_RECEBIDAS,   // ENVIO_MOEDA, pelo destinatário
+    MOEDAS_GASTAS,      // RESGATE_VANTAGEM, pelo aluno
+    RESGATES_VANTAGEM   // RESGATE_VANTAGEM, pela vantagem
+}
@@ -0,0 +1,34 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// Valores que o sistema decide sozinho e precisam sobreviver a reinícios (ex.: custo do BCrypt calibrado)
+@Entity
+@Table(name = "parametro_sistema")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParametroSistema {
+    
+    @Id
+    @Column(length = 100)
+    private String chave;
+    
+    @Column(nullable = false)
+    private String valor;
+    
+    @UpdateTimestamp
+    @Column(name = "data_atualizacao", nullable = false)
+    private LocalDateTime dataAtualizacao;
+    
+    public ParametroSistema(String chave, String valor) {
+        this.chave = chave;
+        this.valor = valor;
+    }
+}
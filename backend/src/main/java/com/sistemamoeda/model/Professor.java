@@ -19,6 +19,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Professor {
     
+    // Valor creditado a cada professor no início de cada semestre
+    public static final BigDecimal CREDITO_SEMESTRAL = new BigDecimal("1000.00");
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -44,6 +47,11 @@ public class Professor {
     @Column(name = "saldo_moedas", nullable = false, precision = 10, scale = 2)
     private BigDecimal saldoMoedas = new BigDecimal("1000.00");
     
+    // Controle de concorrência otimista (incrementado também pelos UPDATEs condicionais de saldo)
+    @Version
+    @Column(nullable = false)
+    private Long versao = 0L;
+    
     @CreationTimestamp
     @Column(name = "data_cadastro", nullable = false, updatable = false)
     private LocalDateTime dataCadastro;
@@ -59,7 +67,7 @@ public class Professor {
     
     // Métodos de negócio
     public void adicionarMoedasSemestrais() {
-        this.saldoMoedas = this.saldoMoedas.add(new BigDecimal("1000.00"));
+        this.saldoMoedas = this.saldoMoedas.add(CREDITO_SEMESTRAL);
     }
     
     public boolean podeEnviar(BigDecimal valor) {
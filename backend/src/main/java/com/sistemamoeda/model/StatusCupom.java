@@ -0,0 +1,6 @@
+package com.sistemamoeda.model;
+
+public enum StatusCupom {
+    ATIVO,
+    USADO
+}
@@ -0,0 +1,8 @@
+package com.sistemamoeda.model;
+
+public enum StatusEmail {
+    PENDENTE,
+    ENVIANDO,
+    ENVIADO,
+    FALHOU
+}
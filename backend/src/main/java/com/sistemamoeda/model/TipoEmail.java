@@ -0,0 +1,9 @@
+package com.sistemamoeda.model;
+
+// Modelo usado para montar o e-mail da outbox na hora do envio
+public enum TipoEmail {
+    TEXTO,
+    MOEDAS_RECEBIDAS,
+    CUPOM_RESGATADO,
+    CUPOM_TRANSFERIDO
+}
@@ -0,0 +1,40 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Tokens revogados antes do vencimento (renovação já usada e logout), pelo jti. Depois de expiraEm o token já é
+// recusado pela própria validade, então a linha pode ser apagada.
+@Entity
+@Table(name = "token_revogado",
+       uniqueConstraints = @UniqueConstraint(name = "uk_token_revogado_jti", columnNames = "jti"),
+       indexes = @Index(name = "idx_token_revogado_expira_em", columnList = "expira_em"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevogado {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 36)
+    private String jti;
+    
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+    
+    @CreationTimestamp
+    @Column(name = "data_revogacao", nullable = false, updatable = false)
+    private LocalDateTime dataRevogacao;
+    
+    public TokenRevogado(String jti, LocalDateTime expiraEm) {
+        this.jti = jti;
+        this.expiraEm = expiraEm;
+    }
+}
@@ -12,7 +12,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transacao")
+@Table(name = "transacao", indexes = {
+    // Índices do extrato paginado por cursor (data_transacao, id)
+    @Index(name = "idx_transacao_remetente_data", columnList = "remetente_id, data_transacao, id"),
+    @Index(name = "idx_transacao_destinatario_data", columnList = "destinatario_id, data_transacao, id"),
+    @Index(name = "idx_transacao_codigo_cupom", columnList = "codigo_cupom")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
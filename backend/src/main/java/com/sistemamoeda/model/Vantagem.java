@@ -44,9 +44,9 @@ public class Vantagem {
     @Column(name = "custo_moedas", nullable = false, precision = 10, scale = 2)
     private BigDecimal custoMoedas;
     
-    @Lob
-    @Column(name = "foto", columnDefinition = "LONGBLOB")
-    private byte[] foto;
+    // Hash (SHA-256) da foto atual; os bytes ficam em VantagemFoto. NULL = sem foto
+    @Column(name = "foto_hash", length = 64)
+    private String fotoHash;
 
     @Column(nullable = false)
     private Boolean ativa = true;
@@ -55,12 +55,11 @@ public class Vantagem {
     @Column(name = "data_criacao", nullable = false, updatable = false)
     private LocalDateTime dataCriacao;
     
-    public Vantagem(Empresa empresa, String nome, String descricao, BigDecimal custoMoedas, byte[] foto) {
+    public Vantagem(Empresa empresa, String nome, String descricao, BigDecimal custoMoedas) {
         this.empresa = empresa;
         this.nome = nome;
         this.descricao = descricao;
         this.custoMoedas = custoMoedas;
-        this.foto = foto;
         this.ativa = true;
     }
     
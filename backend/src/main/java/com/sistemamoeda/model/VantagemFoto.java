@@ -0,0 +1,60 @@
+package com.sistemamoeda.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// Foto da vantagem em tabela separada, uma linha por rendição (miniatura, card, e-mail), já redimensionada e
+// recomprimida em JPEG. As listagens carregam só a entidade Vantagem (com o hash da foto) e os bytes são
+// lidos apenas pelo endpoint /api/vantagens/{id}/foto e pelo e-mail de cupom.
+@Entity
+@Table(name = "vantagem_foto_rendicao",
+       uniqueConstraints = @UniqueConstraint(name = "uk_vantagem_foto_rendicao", columnNames = {"vantagem_id", "rendicao"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VantagemFoto {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "vantagem_id", nullable = false)
+    private Long vantagemId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private FotoRendicao rendicao;
+    
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] dados;
+    
+    @Column(name = "content_type", nullable = false, length = 50)
+    private String contentType;
+    
+    // SHA-256 (hex) dos bytes desta rendição, usado como ETag
+    @Column(nullable = false, length = 64)
+    private String hash;
+    
+    // SHA-256 do arquivo enviado pela empresa (igual a Vantagem.fotoHash)
+    @Column(name = "hash_origem", nullable = false, length = 64)
+    private String hashOrigem;
+    
+    @Column(nullable = false)
+    private Integer largura;
+    
+    @Column(nullable = false)
+    private Integer altura;
+    
+    @Column(nullable = false)
+    private Integer tamanho;
+    
+    @UpdateTimestamp
+    @Column(name = "data_atualizacao")
+    private LocalDateTime dataAtualizacao;
+}
@@ -3,11 +3,13 @@ package com.sistemamoeda.repository;
 import com.sistemamoeda.model.Aluno;
 import com.sistemamoeda.model.Instituicao;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,9 @@ public interface AlunoRepository extends JpaRepository<Aluno, Long> {
     // Buscar por usuário ID
     Optional<Aluno> findByUsuarioId(Long usuarioId);
     
+    // O aluno pertence a este usuário? (dono dos cupons listados)
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+    
     // Buscar por email do usuário
     @Query("SELECT a FROM Aluno a WHERE a.usuario.email = :email")
     Optional<Aluno> findByUsuarioEmail(@Param("email") String email);
@@ -62,4 +67,23 @@ public interface AlunoRepository extends JpaRepository<Aluno, Long> {
     // Top alunos com maior saldo
     @Query("SELECT a FROM Aluno a ORDER BY a.saldoMoedas DESC")
     List<Aluno> findTopBySaldoMoedas();
-}
\ No newline at end of file
+    
+    // Buscar vários alunos já com o usuário carregado (envio em lote)
+    @Query("SELECT a FROM Aluno a JOIN FETCH a.usuario WHERE a.id IN :ids")
+    List<Aluno> findAllComUsuarioByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Saldo atual lido no banco (não na entidade já carregada), para a mensagem quando o débito atômico não passa
+    @Query("SELECT a.saldoMoedas FROM Aluno a WHERE a.id = :id")
+    BigDecimal findSaldoMoedasById(@Param("id") Long id);
+    
+    // Débito atômico: verifica o saldo e desconta no mesmo UPDATE (retorna 0 se o saldo for insuficiente)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Aluno a SET a.saldoMoedas = a.saldoMoedas - :valor, a.versao = a.versao + 1 " +
+           "WHERE a.id = :id AND a.saldoMoedas >= :valor")
+    int debitarSaldo(@Param("id") Long id, @Param("valor") BigDecimal valor);
+    
+    // Crédito atômico (sem leitura prévia do saldo)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Aluno a SET a.saldoMoedas = a.saldoMoedas + :valor, a.versao = a.versao + 1 WHERE a.id = :id")
+    int creditarSaldo(@Param("id") Long id, @Param("valor") BigDecimal valor);
+}
@@ -0,0 +1,23 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.CreditoSemestralExecucao;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CreditoSemestralExecucaoRepository extends JpaRepository<CreditoSemestralExecucao, Long> {
+    
+    // Buscar execução de um semestre
+    Optional<CreditoSemestralExecucao> findBySemestre(String semestre);
+    
+    // Buscar execução bloqueando a linha (duas execuções simultâneas do mesmo semestre processam lotes em fila)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM CreditoSemestralExecucao e WHERE e.semestre = :semestre")
+    Optional<CreditoSemestralExecucao> findBySemestreParaAtualizacao(@Param("semestre") String semestre);
+}
@@ -0,0 +1,90 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.dto.CupomResponseDTO;
+import com.sistemamoeda.model.Cupom;
+import com.sistemamoeda.model.StatusCupom;
+import com.sistemamoeda.model.Usuario;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CupomRepository extends JpaRepository<Cupom, Long> {
+    
+    interface CodigoCupom {
+        Long getId();
+        String getCodigo();
+    }
+    
+    // Situação de um cupom para a validação no balcão da empresa
+    interface SituacaoCupom {
+        String getCodigo();
+        StatusCupom getStatus();
+        Long getEmpresaId();
+        Long getVantagemId();
+        String getVantagemNome();
+        Long getAlunoId();
+        String getAlunoNome();
+        LocalDateTime getDataResgate();
+        LocalDateTime getDataUso();
+    }
+    
+    // Buscar por código (índice único), já com a vantagem e a empresa
+    @Query("SELECT c FROM Cupom c JOIN FETCH c.vantagem v LEFT JOIN FETCH v.empresa WHERE c.codigo = :codigo")
+    Optional<Cupom> findComVantagemByCodigo(@Param("codigo") String codigo);
+    
+    boolean existsByCodigo(String codigo);
+    
+    // Cupons ativos de um usuário, projetados no DTO (índice proprietario_id, status)
+    @Query("SELECT new com.sistemamoeda.dto.CupomResponseDTO(" +
+           "c.codigo, c.status, c.dataCriacao, c.dataAquisicao, v.id, v.nome, e.nomeFantasia) " +
+           "FROM Cupom c " +
+           "JOIN c.vantagem v " +
+           "LEFT JOIN v.empresa e " +
+           "WHERE c.proprietario.id = :usuarioId AND c.status = 'ATIVO' " +
+           "ORDER BY c.dataAquisicao DESC, c.id DESC")
+    List<CupomResponseDTO> findAtivosResponseDTOByProprietarioId(@Param("usuarioId") Long usuarioId);
+    
+    // Situação do cupom numa consulta pelo índice único do código (vantagem e dono atual no mesmo SELECT)
+    @Query("SELECT c.codigo AS codigo, c.status AS status, v.empresa.id AS empresaId, v.id AS vantagemId, " +
+           "v.nome AS vantagemNome, a.id AS alunoId, p.nome AS alunoNome, c.dataCriacao AS dataResgate, c.dataUso AS dataUso " +
+           "FROM Cupom c " +
+           "JOIN c.vantagem v " +
+           "JOIN c.proprietario p " +
+           "LEFT JOIN Aluno a ON a.usuario = p " +
+           "WHERE c.codigo = :codigo")
+    Optional<SituacaoCupom> findSituacaoByCodigo(@Param("codigo") String codigo);
+    
+    // Códigos a partir de um id, em ordem de id (carga do FiltroCodigosCupom)
+    @Query("SELECT c.id AS id, c.codigo AS codigo FROM Cupom c WHERE c.id > :id ORDER BY c.id")
+    List<CodigoCupom> findCodigosAposId(@Param("id") Long id, Pageable pageable);
+    
+    // Uso atômico: só marca como USADO se o cupom estiver ativo, for de uma vantagem da empresa e (se informado)
+    // for do aluno; retorna 0 caso contrário, e de dois consumos simultâneos só um passa
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cupom c SET c.status = 'USADO', c.dataUso = :agora, c.versao = c.versao + 1 " +
+           "WHERE c.codigo = :codigo AND c.status = 'ATIVO' " +
+           "AND c.vantagem.id IN (SELECT v.id FROM Vantagem v WHERE v.empresa.id = :empresaId) " +
+           "AND (:alunoId IS NULL OR c.proprietario.id = (SELECT a.usuario.id FROM Aluno a WHERE a.id = :alunoId))")
+    int consumir(@Param("codigo") String codigo,
+                 @Param("empresaId") Long empresaId,
+                 @Param("alunoId") Long alunoId,
+                 @Param("agora") LocalDateTime agora);
+    
+    // Transferência atômica: só troca o dono se o cupom ainda for do remetente e estiver ativo
+    // (retorna 0 caso contrário; duas transferências simultâneas do mesmo cupom nunca passam as duas)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cupom c SET c.proprietario = :destinatario, c.dataAquisicao = :agora, c.versao = c.versao + 1 " +
+           "WHERE c.codigo = :codigo AND c.proprietario.id = :remetenteId AND c.status = 'ATIVO'")
+    int transferir(@Param("codigo") String codigo,
+                   @Param("remetenteId") Long remetenteId,
+                   @Param("destinatario") Usuario destinatario,
+                   @Param("agora") LocalDateTime agora);
+}
@@ -0,0 +1,70 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.EmailOutbox;
+import com.sistemamoeda.model.StatusEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    
+    // Próximos e-mails a enviar: pendentes já liberados para tentativa ou reservas expiradas (dispatcher que caiu).
+    // Timeout de lock -2 = SKIP LOCKED: linhas já reservadas por outra instância são puladas em vez de esperar.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e " +
+           "WHERE (e.status = 'PENDENTE' AND e.proximaTentativa <= :agora) " +
+           "   OR (e.status = 'ENVIANDO' AND e.reservadoAte < :agora) " +
+           "ORDER BY e.id")
+    List<EmailOutbox> reservarLote(@Param("agora") LocalDateTime agora, Pageable pageable);
+    
+    // Marcar como enviados (só os que ainda estão reservados)
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = 'ENVIADO', " +
+           "e.dataEnvio = :agora, e.reservadoAte = null, e.ultimoErro = null " +
+           "WHERE e.id IN :ids AND e.status = 'ENVIANDO'")
+    int marcarEnviados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+    
+    // Devolver para a fila e-mails reservados que não chegaram a ser enviados
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = 'PENDENTE', e.reservadoAte = null, e.tentativas = e.tentativas - 1 " +
+           "WHERE e.id IN :ids AND e.status = 'ENVIANDO'")
+    int devolver(@Param("ids") Collection<Long> ids);
+    
+    // Registrar falha: volta para PENDENTE com nova data de tentativa, ou FALHOU se esgotou as tentativas
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.proximaTentativa = :proximaTentativa, " +
+           "e.reservadoAte = null, e.ultimoErro = :erro " +
+           "WHERE e.id = :id AND e.status = 'ENVIANDO'")
+    int registrarFalha(@Param("id") Long id,
+                       @Param("status") StatusEmail status,
+                       @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                       @Param("erro") String erro);
+    
+    // Tamanho e idade da fila (pendentes + em envio)
+    @Query("SELECT COUNT(e) AS quantidade, MIN(e.dataCriacao) AS maisAntigo FROM EmailOutbox e " +
+           "WHERE e.status IN ('PENDENTE', 'ENVIANDO')")
+    ResumoFila resumirFila();
+    
+    // Limpar e-mails enviados antigos
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = 'ENVIADO' AND e.dataEnvio < :limite")
+    int deleteEnviadosAntesDe(@Param("limite") LocalDateTime limite);
+    
+    interface ResumoFila {
+        Long getQuantidade();
+        LocalDateTime getMaisAntigo();
+    }
+}
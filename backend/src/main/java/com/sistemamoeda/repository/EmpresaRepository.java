@@ -18,6 +18,9 @@ public interface EmpresaRepository extends JpaRepository<Empresa, Long> {
     // Buscar por usuário ID
     Optional<Empresa> findByUsuarioId(Long usuarioId);
     
+    // A empresa pertence a este usuário? (dono dos cupons validados/consumidos)
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+    
     // Buscar por email do usuário
     @Query("SELECT e FROM Empresa e WHERE e.usuario.email = :email")
     Optional<Empresa> findByUsuarioEmail(@Param("email") String email);
@@ -0,0 +1,116 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.MetricaEstatistica;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// SQL da tabela estatistica_transacao: incrementos em batch (upsert aditivo) no caminho das transações e as
+// consultas da reconstrução a partir do histórico. Usa a conexão da transação corrente, como o LoteJdbcRepository.
+@Repository
+@RequiredArgsConstructor
+public class EstatisticaJdbcRepository {
+
+    private static final int TAMANHO_BATCH = 500;
+
+    // Soma ao registro existente ou cria o registro (um único comando, sem SELECT antes)
+    private static final String ACUMULAR =
+            "INSERT INTO estatistica_transacao (metrica, referencia_id, dia, quantidade, valor) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantidade = quantidade + ?, valor = valor + ?";
+
+    private static final String DEFINIR =
+            "UPDATE estatistica_transacao SET quantidade = ?, valor = ? WHERE id = ?";
+
+    private static final String REMOVER =
+            "DELETE FROM estatistica_transacao WHERE id = ?";
+
+    private static final String TRAVAR_FAIXA =
+            "SELECT id, referencia_id, dia, quantidade, valor FROM estatistica_transacao " +
+            "WHERE metrica = ? AND referencia_id BETWEEN ? AND ? FOR UPDATE";
+
+    private static final String MAIOR_REFERENCIA =
+            "SELECT MAX(referencia_id) FROM estatistica_transacao WHERE metrica = ?";
+
+    // Contador de uma métrica/referência/dia (id nulo quando vem do histórico)
+    public record Contador(Long id, MetricaEstatistica metrica, long referenciaId, LocalDate dia,
+                           long quantidade, BigDecimal valor) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Incrementos em batch; quem chama ordena os contadores para que transações concorrentes travem os registros
+    // sempre na mesma ordem
+    public void acumular(List<Contador> contadores) {
+        jdbcTemplate.batchUpdate(ACUMULAR, contadores, TAMANHO_BATCH, (ps, contador) -> {
+            ps.setString(1, contador.metrica().name());
+            ps.setLong(2, contador.referenciaId());
+            ps.setObject(3, contador.dia());
+            ps.setLong(4, contador.quantidade());
+            ps.setBigDecimal(5, contador.valor());
+            ps.setLong(6, contador.quantidade());
+            ps.setBigDecimal(7, contador.valor());
+        });
+    }
+
+    // Substitui quantidade e valor dos registros (pelo id)
+    public void definir(List<Contador> contadores) {
+        jdbcTemplate.batchUpdate(DEFINIR, contadores, TAMANHO_BATCH, (ps, contador) -> {
+            ps.setLong(1, contador.quantidade());
+            ps.setBigDecimal(2, contador.valor());
+            ps.setLong(3, contador.id());
+        });
+    }
+
+    public void remover(List<Long> ids) {
+        jdbcTemplate.batchUpdate(REMOVER, ids, TAMANHO_BATCH, (ps, id) -> ps.setLong(1, id));
+    }
+
+    // Lê e trava os registros de uma faixa de referências até o fim da transação; incrementos concorrentes
+    // dessas referências esperam a reconstrução da faixa terminar
+    public List<Contador> travarFaixa(MetricaEstatistica metrica, long de, long ate) {
+        return jdbcTemplate.query(TRAVAR_FAIXA, (rs, i) -> new Contador(
+                rs.getLong("id"), metrica, rs.getLong("referencia_id"), rs.getObject("dia", LocalDate.class),
+                rs.getLong("quantidade"), rs.getBigDecimal("valor")),
+                metrica.name(), de, ate);
+    }
+
+    // Totais por referência e dia calculados do histórico de transações, para uma faixa de referências
+    public List<Contador> somarHistorico(MetricaEstatistica metrica, long de, long ate) {
+        String coluna = colunaReferencia(metrica);
+        String sql = "SELECT " + coluna + " AS referencia_id, CAST(data_transacao AS DATE) AS dia, " +
+                     "COUNT(*) AS quantidade, SUM(valor) AS valor FROM transacao " +
+                     "WHERE tipo_transacao = ? AND " + coluna + " BETWEEN ? AND ? " +
+                     "GROUP BY " + coluna + ", CAST(data_transacao AS DATE)";
+        return jdbcTemplate.query(sql, (rs, i) -> new Contador(
+                null, metrica, rs.getLong("referencia_id"), rs.getObject("dia", LocalDate.class),
+                rs.getLong("quantidade"), rs.getBigDecimal("valor")),
+                tipoTransacao(metrica), de, ate);
+    }
+
+    // Maior referência da métrica, no histórico ou na própria tabela (registros órfãos também são verificados)
+    public long maiorReferencia(MetricaEstatistica metrica) {
+        String coluna = colunaReferencia(metrica);
+        Long historico = jdbcTemplate.queryForObject(
+                "SELECT MAX(" + coluna + ") FROM transacao WHERE tipo_transacao = ?", Long.class, tipoTransacao(metrica));
+        Long contadores = jdbcTemplate.queryForObject(MAIOR_REFERENCIA, Long.class, metrica.name());
+        return Math.max(historico != null ? historico : 0L, contadores != null ? contadores : 0L);
+    }
+
+    private static String colunaReferencia(MetricaEstatistica metrica) {
+        return switch (metrica) {
+            case MOEDAS_ENVIADAS -> "remetente_id";
+            case MOEDAS_RECEBIDAS, MOEDAS_GASTAS -> "destinatario_id";
+            case RESGATES_VANTAGEM -> "vantagem_id";
+        };
+    }
+
+    private static String tipoTransacao(MetricaEstatistica metrica) {
+        return switch (metrica) {
+            case MOEDAS_ENVIADAS, MOEDAS_RECEBIDAS -> "ENVIO_MOEDA";
+            case MOEDAS_GASTAS, RESGATES_VANTAGEM -> "RESGATE_VANTAGEM";
+        };
+    }
+}
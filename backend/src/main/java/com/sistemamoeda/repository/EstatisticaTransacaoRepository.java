@@ -0,0 +1,29 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.EstatisticaTransacao;
+import com.sistemamoeda.model.MetricaEstatistica;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface EstatisticaTransacaoRepository extends JpaRepository<EstatisticaTransacao, Long> {
+    
+    // Quantidade e valor de uma referência entre dois dias (inclusive); com inicio = fim = DIA_TOTAL, o acumulado
+    interface Totais {
+        Long getQuantidade();
+        BigDecimal getValor();
+    }
+    
+    @Query("SELECT COALESCE(SUM(e.quantidade), 0) AS quantidade, COALESCE(SUM(e.valor), 0) AS valor " +
+           "FROM EstatisticaTransacao e " +
+           "WHERE e.metrica = :metrica AND e.referenciaId = :referenciaId AND e.dia BETWEEN :inicio AND :fim")
+    Totais somar(@Param("metrica") MetricaEstatistica metrica,
+                 @Param("referenciaId") Long referenciaId,
+                 @Param("inicio") LocalDate inicio,
+                 @Param("fim") LocalDate fim);
+}
@@ -0,0 +1,111 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.EmailOutbox;
+import com.sistemamoeda.model.Transacao;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Operações em lote via JDBC (batch), usadas quando o volume torna o save() entidade a entidade caro.
+// Participa da mesma transação do JPA, pois o JdbcTemplate usa a conexão vinculada à transação corrente.
+@Repository
+@RequiredArgsConstructor
+public class LoteJdbcRepository {
+
+    private static final int TAMANHO_BATCH = 500;
+
+    private static final String INSERT_TRANSACAO =
+            "INSERT INTO transacao (tipo_transacao, valor, descricao, data_transacao, remetente_id, destinatario_id, vantagem_id, codigo_cupom) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CREDITAR_ALUNO =
+            "UPDATE aluno SET saldo_moedas = saldo_moedas + ?, versao = versao + 1 WHERE id = ?";
+
+    private static final String INSERT_EMAIL_OUTBOX =
+            "INSERT INTO email_outbox (tipo, destinatario, assunto, parametros, vantagem_id, status, tentativas, proxima_tentativa, data_criacao) " +
+            "VALUES (?, ?, ?, ?, ?, 'PENDENTE', 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Insere as transações em batches e preenche id e dataTransacao de cada uma
+    public void inserirTransacoes(List<Transacao> transacoes) {
+        for (int inicio = 0; inicio < transacoes.size(); inicio += TAMANHO_BATCH) {
+            List<Transacao> lote = transacoes.subList(inicio, Math.min(inicio + TAMANHO_BATCH, transacoes.size()));
+            inserirBatch(lote);
+        }
+    }
+
+    // Credita vários alunos de uma vez (alunoId -> valor)
+    public void creditarAlunos(Map<Long, BigDecimal> creditos) {
+        List<Object[]> parametros = new ArrayList<>(creditos.size());
+        creditos.forEach((alunoId, valor) -> parametros.add(new Object[]{valor, alunoId}));
+        jdbcTemplate.batchUpdate(CREDITAR_ALUNO, parametros);
+    }
+
+    // Grava os e-mails na outbox em batches (um e-mail por aluno nos envios em lote)
+    public void inserirEmails(List<EmailOutbox> emails) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_EMAIL_OUTBOX, emails, TAMANHO_BATCH, (ps, email) -> {
+            ps.setString(1, email.getTipo().name());
+            ps.setString(2, email.getDestinatario());
+            ps.setString(3, email.getAssunto());
+            ps.setString(4, email.getParametros());
+            setId(ps, 5, email.getVantagemId());
+            ps.setTimestamp(6, email.getProximaTentativa() != null ? Timestamp.valueOf(email.getProximaTentativa()) : agora);
+            ps.setTimestamp(7, agora);
+        });
+    }
+
+    private void inserirBatch(List<Transacao> lote) {
+        LocalDateTime agora = LocalDateTime.now();
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_TRANSACAO, Statement.RETURN_GENERATED_KEYS)) {
+                for (Transacao transacao : lote) {
+                    if (transacao.getDataTransacao() == null) {
+                        transacao.setDataTransacao(agora);
+                    }
+                    ps.setString(1, transacao.getTipoTransacao().name());
+                    ps.setBigDecimal(2, transacao.getValor());
+                    ps.setString(3, transacao.getDescricao());
+                    ps.setTimestamp(4, Timestamp.valueOf(transacao.getDataTransacao()));
+                    setId(ps, 5, transacao.getRemetente() != null ? transacao.getRemetente().getId() : null);
+                    setId(ps, 6, transacao.getDestinatario() != null ? transacao.getDestinatario().getId() : null);
+                    setId(ps, 7, transacao.getVantagem() != null ? transacao.getVantagem().getId() : null);
+                    ps.setString(8, transacao.getCodigoCupom());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet chaves = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (chaves.next() && i < lote.size()) {
+                        lote.get(i++).setId(chaves.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void setId(PreparedStatement ps, int indice, Long id) throws SQLException {
+        if (id != null) {
+            ps.setLong(indice, id);
+        } else {
+            ps.setNull(indice, Types.BIGINT);
+        }
+    }
+}
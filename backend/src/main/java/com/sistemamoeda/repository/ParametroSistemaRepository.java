@@ -0,0 +1,9 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.ParametroSistema;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ParametroSistemaRepository extends JpaRepository<ParametroSistema, String> {
+}
@@ -2,12 +2,15 @@ package com.sistemamoeda.repository;
 
 import com.sistemamoeda.model.Instituicao;
 import com.sistemamoeda.model.Professor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,4 +68,28 @@ public interface ProfessorRepository extends JpaRepository<Professor, Long> {
     
     // Buscar professores com saldo menor que um valor específico
     List<Professor> findBySaldoMoedasLessThan(BigDecimal valor);
-}
\ No newline at end of file
+    
+    // Saldo atual lido no banco (não na entidade já carregada), para a mensagem quando o débito atômico não passa
+    @Query("SELECT p.saldoMoedas FROM Professor p WHERE p.id = :id")
+    BigDecimal findSaldoMoedasById(@Param("id") Long id);
+    
+    // Débito atômico: verifica o saldo e desconta no mesmo UPDATE (retorna 0 se o saldo for insuficiente)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Professor p SET p.saldoMoedas = p.saldoMoedas - :valor, p.versao = p.versao + 1 " +
+           "WHERE p.id = :id AND p.saldoMoedas >= :valor")
+    int debitarSaldo(@Param("id") Long id, @Param("valor") BigDecimal valor);
+    
+    // Próximo lote de professores (paginação por id) já com o usuário carregado
+    @Query("SELECT p FROM Professor p JOIN FETCH p.usuario WHERE p.id > :ultimoId ORDER BY p.id")
+    List<Professor> findLoteAposId(@Param("ultimoId") Long ultimoId, Pageable pageable);
+    
+    // Crédito de um lote inteiro de professores em um único UPDATE
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Professor p SET p.saldoMoedas = p.saldoMoedas + :valor, p.versao = p.versao + 1 WHERE p.id IN :ids")
+    int creditarSaldoEmLote(@Param("ids") Collection<Long> ids, @Param("valor") BigDecimal valor);
+    
+    // Crédito atômico (sem leitura prévia do saldo)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Professor p SET p.saldoMoedas = p.saldoMoedas + :valor, p.versao = p.versao + 1 WHERE p.id = :id")
+    int creditarSaldo(@Param("id") Long id, @Param("valor") BigDecimal valor);
+}
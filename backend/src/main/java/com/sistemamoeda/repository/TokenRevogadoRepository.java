@@ -0,0 +1,35 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.TokenRevogado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevogadoRepository extends JpaRepository<TokenRevogado, Long> {
+    
+    // Projeção usada na carga do conjunto em memória (RevogacaoTokens)
+    interface JtiRevogado {
+        Long getId();
+        String getJti();
+        LocalDateTime getExpiraEm();
+    }
+    
+    // Revogações a partir de um id, em ordem de id, ignorando as já vencidas
+    @Query("SELECT t.id AS id, t.jti AS jti, t.expiraEm AS expiraEm FROM TokenRevogado t " +
+           "WHERE t.id > :id AND t.expiraEm > :agora ORDER BY t.id")
+    List<JtiRevogado> findAtivosAposId(@Param("id") Long id, @Param("agora") LocalDateTime agora, Pageable pageable);
+    
+    // Apagar revogações de tokens que já venceram
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevogado t WHERE t.expiraEm <= :agora")
+    int deleteVencidos(@Param("agora") LocalDateTime agora);
+}
@@ -1,25 +1,64 @@
 package com.sistemamoeda.repository;
 
+import com.sistemamoeda.dto.TransacaoResponseDTO;
 import com.sistemamoeda.model.Transacao;
 import com.sistemamoeda.model.TipoTransacao;
 import com.sistemamoeda.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
     
-    // Buscar por código do cupom
-    Optional<Transacao> findByCodigoCupom(String codigoCupom);
-
-    Optional<Transacao> findTopByCodigoCupomOrderByDataTransacaoDesc(String codigoCupom);
+    // Projeção direto para o DTO de resposta: remetente, destinatário, vantagem e empresa vêm no mesmo SELECT,
+    // sem carregar entidades (nem a foto da vantagem) e sem lazy loading por linha
+    String SELECT_RESPONSE_DTO =
+            "SELECT new com.sistemamoeda.dto.TransacaoResponseDTO(" +
+            "t.id, t.tipoTransacao, t.valor, t.descricao, t.dataTransacao, t.codigoCupom, " +
+            "r.id, r.nome, d.id, d.nome, v.id, v.nome, e.nomeFantasia) " +
+            "FROM Transacao t " +
+            "LEFT JOIN t.remetente r " +
+            "LEFT JOIN t.destinatario d " +
+            "LEFT JOIN t.vantagem v " +
+            "LEFT JOIN v.empresa e ";
+    
+    // Listagens projetadas em TransacaoResponseDTO (uma única consulta por chamada)
+    @Query(SELECT_RESPONSE_DTO)
+    List<TransacaoResponseDTO> findAllResponseDTO();
+    
+    @Query(SELECT_RESPONSE_DTO + "WHERE t.tipoTransacao = :tipo")
+    List<TransacaoResponseDTO> findResponseDTOByTipoTransacao(@Param("tipo") TipoTransacao tipo);
+    
+    @Query(SELECT_RESPONSE_DTO + "WHERE t.dataTransacao BETWEEN :dataInicio AND :dataFim")
+    List<TransacaoResponseDTO> findResponseDTOByDataTransacaoBetween(@Param("dataInicio") LocalDateTime dataInicio,
+                                                                     @Param("dataFim") LocalDateTime dataFim);
+    
+    @Query(SELECT_RESPONSE_DTO + "WHERE r.id = :usuarioId OR d.id = :usuarioId ORDER BY t.dataTransacao DESC")
+    List<TransacaoResponseDTO> findExtratoUsuarioResponseDTO(@Param("usuarioId") Long usuarioId);
+    
+    @Query(SELECT_RESPONSE_DTO + "WHERE (r.id = :usuarioId OR d.id = :usuarioId) " +
+           "AND t.dataTransacao BETWEEN :dataInicio AND :dataFim ORDER BY t.dataTransacao DESC")
+    List<TransacaoResponseDTO> findExtratoUsuarioPorPeriodoResponseDTO(@Param("usuarioId") Long usuarioId,
+                                                                      @Param("dataInicio") LocalDateTime dataInicio,
+                                                                      @Param("dataFim") LocalDateTime dataFim);
+    
+    @Query(SELECT_RESPONSE_DTO + "WHERE t.id IN :ids ORDER BY t.dataTransacao DESC, t.id DESC")
+    List<TransacaoResponseDTO> findResponseDTOByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Transações mais recentes, limitadas pelo Pageable (LIMIT no banco, não na memória)
+    @Query(SELECT_RESPONSE_DTO + "ORDER BY t.dataTransacao DESC, t.id DESC")
+    List<TransacaoResponseDTO> findRecentesResponseDTO(Pageable pageable);
+    
+    // Buscar o resgate de um cupom (as transferências repetem o código em outras transações)
+    Optional<Transacao> findFirstByCodigoCupomAndTipoTransacao(String codigoCupom, TipoTransacao tipoTransacao);
     
     // Buscar por tipo de transação
     List<Transacao> findByTipoTransacao(TipoTransacao tipoTransacao);
@@ -34,6 +73,29 @@ public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
     @Query("SELECT t FROM Transacao t WHERE t.remetente = :usuario OR t.destinatario = :usuario ORDER BY t.dataTransacao DESC")
     List<Transacao> findExtratoUsuario(@Param("usuario") Usuario usuario);
     
+    // Página do extrato a partir de um cursor (data_transacao, id), em ordem decrescente.
+    // UNION ALL em vez de OR: cada ramo percorre seu próprio índice composto e para no limite.
+    // O segundo ramo ignora transações em que o usuário também é o remetente, para não repetir linhas.
+    // Retorna só os ids da página; os dados vêm depois em uma única projeção (findResponseDTOByIdIn)
+    @Query(value = "SELECT k.id FROM (" +
+                   "  (SELECT r.id, r.data_transacao FROM transacao r" +
+                   "   WHERE r.remetente_id = :usuarioId" +
+                   "     AND (r.data_transacao < :data OR (r.data_transacao = :data AND r.id < :id))" +
+                   "   ORDER BY r.data_transacao DESC, r.id DESC LIMIT :limite)" +
+                   "  UNION ALL" +
+                   "  (SELECT d.id, d.data_transacao FROM transacao d" +
+                   "   WHERE d.destinatario_id = :usuarioId" +
+                   "     AND (d.remetente_id IS NULL OR d.remetente_id <> :usuarioId)" +
+                   "     AND (d.data_transacao < :data OR (d.data_transacao = :data AND d.id < :id))" +
+                   "   ORDER BY d.data_transacao DESC, d.id DESC LIMIT :limite)" +
+                   ") k " +
+                   "ORDER BY k.data_transacao DESC, k.id DESC LIMIT :limite",
+           nativeQuery = true)
+    List<Long> findIdsExtratoUsuarioAposCursor(@Param("usuarioId") Long usuarioId,
+                                                 @Param("data") LocalDateTime data,
+                                                 @Param("id") Long id,
+                                                 @Param("limite") int limite);
+    
     // Extrato de um usuário por período
     @Query("SELECT t FROM Transacao t WHERE (t.remetente = :usuario OR t.destinatario = :usuario) " +
            "AND t.dataTransacao BETWEEN :dataInicio AND :dataFim ORDER BY t.dataTransacao DESC")
@@ -59,24 +121,4 @@ public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
     
     // Buscar transações por vantagem ID
     List<Transacao> findByVantagemId(Long vantagemId);
-    
-    // Estatísticas - total de moedas enviadas por um professor
-    @Query("SELECT COALESCE(SUM(t.valor), 0) FROM Transacao t WHERE t.remetente = :professor AND t.tipoTransacao = 'ENVIO_MOEDA'")
-    BigDecimal sumMoedasEnviadasPorProfessor(@Param("professor") Usuario professor);
-    
-    // Estatísticas - total de moedas recebidas por um aluno
-    @Query("SELECT COALESCE(SUM(t.valor), 0) FROM Transacao t WHERE t.destinatario = :aluno AND t.tipoTransacao = 'ENVIO_MOEDA'")
-    BigDecimal sumMoedasRecebidasPorAluno(@Param("aluno") Usuario aluno);
-    
-    // Estatísticas - total de moedas gastas por um aluno
-    @Query("SELECT COALESCE(SUM(t.valor), 0) FROM Transacao t WHERE t.destinatario = :aluno AND t.tipoTransacao = 'RESGATE_VANTAGEM'")
-    BigDecimal sumMoedasGastasPorAluno(@Param("aluno") Usuario aluno);
-    
-    // Estatísticas - total de resgates de uma vantagem
-    @Query("SELECT COUNT(t) FROM Transacao t WHERE t.vantagem.id = :vantagemId")
-    Long countResgatesPorVantagem(@Param("vantagemId") Long vantagemId);
-    
-    // Transações recentes (últimas 10)
-    @Query("SELECT t FROM Transacao t ORDER BY t.dataTransacao DESC")
-    List<Transacao> findTop10ByOrderByDataTransacaoDesc();
-}
\ No newline at end of file
+}
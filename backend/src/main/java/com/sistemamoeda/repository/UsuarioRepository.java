@@ -3,9 +3,11 @@ package com.sistemamoeda.repository;
 import com.sistemamoeda.model.Usuario;
 import com.sistemamoeda.model.TipoUsuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,9 +15,29 @@ import java.util.Optional;
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     
+    // Dados que a autenticação por token ainda precisa do banco (id, tipo e se a conta está ativa)
+    interface SituacaoUsuario {
+        Long getId();
+        TipoUsuario getTipoUsuario();
+        Boolean getAtivo();
+    }
+    
     // Buscar por email (usado para login)
     Optional<Usuario> findByEmail(String email);
     
+    // Situação do usuário sem carregar a entidade (cache de UsuariosAtivosCache)
+    @Query("SELECT u.id AS id, u.tipoUsuario AS tipoUsuario, u.ativo AS ativo FROM Usuario u WHERE u.email = :email")
+    Optional<SituacaoUsuario> findSituacaoByEmail(@Param("email") String email);
+    
+    // Troca o hash da senha só se ainda for o mesmo que foi conferido no login (retorna 0 se a senha mudou nesse meio
+    // tempo, e a nova senha não é sobrescrita)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.senha = :novoHash WHERE u.email = :email AND u.senha = :hashAtual")
+    int atualizarHashSenha(@Param("email") String email,
+                           @Param("hashAtual") String hashAtual,
+                           @Param("novoHash") String novoHash);
+    
     // Buscar por email e senha (usado para autenticação)
     Optional<Usuario> findByEmailAndSenha(String email, String senha);
     
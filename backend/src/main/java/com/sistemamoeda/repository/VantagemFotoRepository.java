@@ -0,0 +1,34 @@
+package com.sistemamoeda.repository;
+
+import com.sistemamoeda.model.FotoRendicao;
+import com.sistemamoeda.model.VantagemFoto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VantagemFotoRepository extends JpaRepository<VantagemFoto, Long> {
+    
+    // Buscar uma rendição da foto de uma vantagem
+    Optional<VantagemFoto> findByVantagemIdAndRendicao(Long vantagemId, FotoRendicao rendicao);
+    
+    // Hashes de uma rendição, sem carregar os bytes (usado nas revalidações com If-None-Match)
+    @Query("SELECT f.hash AS hash, f.hashOrigem AS hashOrigem FROM VantagemFoto f " +
+           "WHERE f.vantagemId = :vantagemId AND f.rendicao = :rendicao")
+    Optional<HashesFoto> findHashesByVantagemIdAndRendicao(@Param("vantagemId") Long vantagemId,
+                                                           @Param("rendicao") FotoRendicao rendicao);
+    
+    // Remover todas as rendições de uma vantagem
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM VantagemFoto f WHERE f.vantagemId = :vantagemId")
+    int deleteByVantagemId(@Param("vantagemId") Long vantagemId);
+    
+    interface HashesFoto {
+        String getHash();
+        String getHashOrigem();
+    }
+}
@@ -25,6 +25,10 @@ public interface VantagemRepository extends JpaRepository<Vantagem, Long> {
     // Buscar vantagens ativas
     List<Vantagem> findByAtivaTrue();
     
+    // Vantagens ativas já com a empresa (carga do cache do catálogo, sem lazy loading por item)
+    @Query("SELECT v FROM Vantagem v JOIN FETCH v.empresa WHERE v.ativa = true ORDER BY v.id")
+    List<Vantagem> findAtivasComEmpresa();
+    
     // Buscar vantagens ativas por empresa
     List<Vantagem> findByEmpresaIdAndAtivaTrue(Long empresaId);
     
@@ -25,6 +25,7 @@ public class AlunoService {
     private final UsuarioRepository usuarioRepository;
     private final InstituicaoRepository instituicaoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UsuariosAtivosCache usuariosAtivos;
 
     // Criar novo aluno
     public AlunoResponseDTO criarAluno(AlunoRequestDTO request) {
@@ -82,6 +83,12 @@ public class AlunoService {
         return convertToResponseDTO(aluno);
     }
 
+    // O aluno é o do usuário logado?
+    @Transactional(readOnly = true)
+    public boolean pertenceAoUsuario(Long alunoId, Long usuarioId) {
+        return usuarioId != null && alunoRepository.existsByIdAndUsuarioId(alunoId, usuarioId);
+    }
+
     @Transactional(readOnly = true)
     public AlunoResponseDTO buscarPorUsuarioId(Long usuarioId) {
         Aluno aluno = alunoRepository.findByUsuarioId(usuarioId)
@@ -108,6 +115,9 @@ public class AlunoService {
         
         // Atualizar dados do usuário
         Usuario usuario = aluno.getUsuario();
+        if (!usuario.getEmail().equals(request.getEmail())) {
+            usuariosAtivos.invalidarAposCommit(usuario.getEmail());
+        }
         usuario.setNome(request.getNome());
         usuario.setEmail(request.getEmail());
         if (request.getSenha() != null && !request.getSenha().trim().isEmpty()) {
@@ -137,8 +147,13 @@ public class AlunoService {
         Aluno aluno = alunoRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Aluno não encontrado"));
         
-        // Deletar aluno (vai deletar o usuário em cascata)
+        // O usuário não é removido junto (transações e cupons continuam apontando para ele): fica desativado, sem
+        // login, e os tokens já emitidos deixam de valer assim que a remoção for confirmada
+        Usuario usuario = aluno.getUsuario();
         alunoRepository.delete(aluno);
+        usuario.setAtivo(false);
+        usuarioRepository.save(usuario);
+        usuariosAtivos.invalidarAposCommit(usuario.getEmail());
     }
     
     // Buscar alunos por instituição
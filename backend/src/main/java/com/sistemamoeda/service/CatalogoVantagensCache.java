@@ -0,0 +1,145 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.VantagemResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cache em memória do catálogo de vantagens ativas (só DTOs, sem bytes de foto).
+// Cada snapshot é imutável (listas não modificáveis de records, compartilhados entre as requisições) e já traz as
+// visões ordenadas por custo; qualquer escrita em vantagens invalida o cache depois do commit e o próximo leitor
+// reconstrói com uma única consulta.
+@Component
+public class CatalogoVantagensCache {
+
+    private final AtomicLong geracao = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private final Counter acertos;
+    private final Counter falhas;
+    private final Timer reconstrucao;
+
+    public CatalogoVantagensCache(MeterRegistry registry) {
+        this.acertos = Counter.builder("catalogo.vantagens.cache")
+                .tag("resultado", "hit")
+                .description("Leituras do catálogo servidas pelo cache")
+                .register(registry);
+        this.falhas = Counter.builder("catalogo.vantagens.cache")
+                .tag("resultado", "miss")
+                .description("Leituras do catálogo que precisaram consultar o banco")
+                .register(registry);
+        this.reconstrucao = Timer.builder("catalogo.vantagens.cache.reconstrucao")
+                .description("Tempo para recarregar o catálogo do banco")
+                .register(registry);
+        Gauge.builder("catalogo.vantagens.cache.itens", this, c -> c.snapshot != null ? c.snapshot.ativas.size() : 0)
+                .description("Vantagens ativas no snapshot atual")
+                .register(registry);
+    }
+
+    // Snapshot atual; o carregador (vantagens ativas já convertidas em DTO) só é chamado quando o cache está vazio
+    public Snapshot obter(Supplier<List<VantagemResponseDTO>> carregador) {
+        Snapshot atual = snapshot;
+        if (atual != null && atual.geracao == geracao.get()) {
+            acertos.increment();
+            return atual;
+        }
+
+        synchronized (this) {
+            atual = snapshot;
+            long geracaoLida = geracao.get();
+            if (atual != null && atual.geracao == geracaoLida) {
+                acertos.increment();
+                return atual;
+            }
+
+            falhas.increment();
+            Snapshot novo = reconstrucao.record(() -> new Snapshot(geracaoLida, carregador.get()));
+            // Se houve escrita durante a consulta, o resultado serve para este leitor mas não fica no cache
+            if (geracao.get() == geracaoLida) {
+                snapshot = novo;
+            }
+            return novo;
+        }
+    }
+
+    // Invalida quando a transação corrente for confirmada (ou na hora, se não houver transação)
+    public void invalidarAposCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar();
+                }
+            });
+        } else {
+            invalidar();
+        }
+    }
+
+    public void invalidar() {
+        geracao.incrementAndGet();
+        snapshot = null;
+    }
+
+    public static final class Snapshot {
+
+        private static final Comparator<VantagemResponseDTO> POR_CUSTO =
+                Comparator.comparing(VantagemResponseDTO::custoMoedas).thenComparing(VantagemResponseDTO::id);
+
+        private final long geracao;
+        private final List<VantagemResponseDTO> ativas;
+        private final List<VantagemResponseDTO> porCustoCrescente;
+        private final List<VantagemResponseDTO> porCustoDecrescente;
+        private final BigDecimal[] custosCrescentes;
+
+        private Snapshot(long geracao, List<VantagemResponseDTO> ativas) {
+            this.geracao = geracao;
+            this.ativas = List.copyOf(ativas);
+            this.porCustoCrescente = ativas.stream().sorted(POR_CUSTO).toList();
+            this.porCustoDecrescente = ativas.stream()
+                    .sorted(Comparator.comparing(VantagemResponseDTO::custoMoedas).reversed()
+                            .thenComparing(VantagemResponseDTO::id))
+                    .toList();
+            this.custosCrescentes = porCustoCrescente.stream()
+                    .map(VantagemResponseDTO::custoMoedas)
+                    .toArray(BigDecimal[]::new);
+        }
+
+        public List<VantagemResponseDTO> getAtivas() {
+            return ativas;
+        }
+
+        public List<VantagemResponseDTO> getPorCustoCrescente() {
+            return porCustoCrescente;
+        }
+
+        public List<VantagemResponseDTO> getPorCustoDecrescente() {
+            return porCustoDecrescente;
+        }
+
+        // Vantagens com custo <= saldo, da mais barata para a mais cara (busca binária no vetor de custos)
+        public List<VantagemResponseDTO> acessiveis(BigDecimal saldo) {
+            int inicio = 0;
+            int fim = custosCrescentes.length;
+            while (inicio < fim) {
+                int meio = (inicio + fim) >>> 1;
+                if (custosCrescentes[meio].compareTo(saldo) <= 0) {
+                    inicio = meio + 1;
+                } else {
+                    fim = meio;
+                }
+            }
+            return porCustoCrescente.subList(0, inicio);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.sistemamoeda.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+// Códigos de cupom assinados: "CP-" + 24 caracteres Base32 (alfabeto de Crockford, em 4 grupos de 6) com
+// id do cupom (5 bytes) + id da vantagem (4 bytes) + HMAC-SHA256 truncado (6 bytes). O id do cupom torna o código
+// único sem sorteio nem verificação de colisão, e a assinatura permite recusar códigos falsos ou digitados errado sem
+// consultar o banco. Os códigos antigos ("CUP-" + 8 hex) continuam válidos e são tratados à parte (ver CupomService).
+@Component
+public class CodigosCupom {
+
+    private static final String PREFIXO = "CP";
+    private static final char[] ALFABETO = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] VALORES = new int[128];
+    private static final int BYTES_ID = 5;
+    private static final int BYTES_VANTAGEM = 4;
+    private static final int BYTES_ASSINATURA = 6;
+    private static final int BYTES_TOTAL = BYTES_ID + BYTES_VANTAGEM + BYTES_ASSINATURA;   // 15 bytes = 120 bits
+    private static final int CARACTERES = BYTES_TOTAL * 8 / 5;                            // 24, sem sobra de bits
+    private static final int TAMANHO_GRUPO = 6;
+
+    static {
+        Arrays.fill(VALORES, -1);
+        for (int i = 0; i < ALFABETO.length; i++) {
+            VALORES[ALFABETO[i]] = i;
+        }
+        // Letras que o Crockford aceita como erro de digitação dos dígitos
+        VALORES['O'] = 0;
+        VALORES['I'] = 1;
+        VALORES['L'] = 1;
+    }
+
+    public record Conteudo(long cupomId, long vantagemId) {}
+
+    private final ThreadLocal<Mac> macs;
+
+    public CodigosCupom(@Value("${app.cupons.chave-assinatura}") String chave) {
+        byte[] bytesChave = chave.getBytes(StandardCharsets.UTF_8);
+        if (bytesChave.length < 32) {
+            throw new IllegalStateException("app.cupons.chave-assinatura precisa ter pelo menos 32 bytes");
+        }
+        // Chave de exemplo que já esteve no application.properties do repositório: é pública, então recusa
+        if (chave.startsWith("troque-esta-chave")) {
+            throw new IllegalStateException("app.cupons.chave-assinatura ainda é a chave de exemplo; defina CUPOM_CHAVE");
+        }
+        SecretKeySpec chaveHmac = new SecretKeySpec(bytesChave, "HmacSHA256");
+        // Mac não é thread-safe: uma instância já inicializada por thread
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(chaveHmac);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 indisponível", e);
+            }
+        });
+    }
+
+    // Código do cupom recém-inserido (o id vem do INSERT)
+    public String gerar(long cupomId, long vantagemId) {
+        if (cupomId < 0 || cupomId >= 1L << (BYTES_ID * 8) || vantagemId < 0 || vantagemId >= 1L << (BYTES_VANTAGEM * 8)) {
+            throw new IllegalArgumentException("Id fora do intervalo do código de cupom");
+        }
+        byte[] bytes = new byte[BYTES_TOTAL];
+        escreverConteudo(bytes, cupomId, vantagemId);
+        System.arraycopy(assinar(bytes), 0, bytes, BYTES_ID + BYTES_VANTAGEM, BYTES_ASSINATURA);
+        return formatar(codificar(bytes));
+    }
+
+    // Forma canônica do que foi digitado: maiúsculas; códigos assinados ainda ganham os hífens e têm O/I/L trocados
+    // pelos dígitos. Códigos antigos ou irreconhecíveis voltam só em maiúsculas, sem espaços nas pontas.
+    public String canonico(String informado) {
+        String codigo = informado == null ? "" : informado.trim().toUpperCase(Locale.ROOT);
+        String compacto = codigo.replace("-", "").replace(" ", "");
+        if (compacto.length() != PREFIXO.length() + CARACTERES || !compacto.startsWith(PREFIXO)) {
+            return codigo;
+        }
+        StringBuilder simbolos = new StringBuilder(CARACTERES);
+        for (int i = PREFIXO.length(); i < compacto.length(); i++) {
+            char c = compacto.charAt(i);
+            if (c >= 128 || VALORES[c] < 0) {
+                return codigo;
+            }
+            simbolos.append(ALFABETO[VALORES[c]]);
+        }
+        return formatar(simbolos.toString());
+    }
+
+    // Tem o formato de código assinado (não diz se a assinatura confere)
+    public boolean ehAssinado(String codigoCanonico) {
+        return codigoCanonico.length() == PREFIXO.length() + CARACTERES + CARACTERES / TAMANHO_GRUPO
+                && codigoCanonico.startsWith(PREFIXO + "-");
+    }
+
+    // Conteúdo do código se a assinatura conferir; vazio para código falso, alterado ou em outro formato
+    public Optional<Conteudo> verificar(String codigoCanonico) {
+        if (!ehAssinado(codigoCanonico)) {
+            return Optional.empty();
+        }
+        byte[] bytes = decodificar(codigoCanonico.substring(PREFIXO.length()).replace("-", ""));
+        if (bytes == null) {
+            return Optional.empty();
+        }
+        byte[] esperada = assinar(bytes);
+        byte[] recebida = new byte[BYTES_ASSINATURA];
+        System.arraycopy(bytes, BYTES_ID + BYTES_VANTAGEM, recebida, 0, BYTES_ASSINATURA);
+        if (!MessageDigest.isEqual(Arrays.copyOf(esperada, BYTES_ASSINATURA), recebida)) {
+            return Optional.empty();
+        }
+        ByteBuffer leitura = ByteBuffer.wrap(bytes);
+        long cupomId = 0;
+        for (int i = 0; i < BYTES_ID; i++) {
+            cupomId = (cupomId << 8) | (leitura.get() & 0xFF);
+        }
+        long vantagemId = leitura.getInt() & 0xFFFFFFFFL;
+        return Optional.of(new Conteudo(cupomId, vantagemId));
+    }
+
+    private static void escreverConteudo(byte[] bytes, long cupomId, long vantagemId) {
+        for (int i = 0; i < BYTES_ID; i++) {
+            bytes[i] = (byte) (cupomId >>> (8 * (BYTES_ID - 1 - i)));
+        }
+        ByteBuffer.wrap(bytes, BYTES_ID, BYTES_VANTAGEM).putInt((int) vantagemId);
+    }
+
+    // HMAC do prefixo + conteúdo (id do cupom e da vantagem)
+    private byte[] assinar(byte[] bytes) {
+        Mac mac = macs.get();
+        mac.update(PREFIXO.getBytes(StandardCharsets.US_ASCII));
+        mac.update(bytes, 0, BYTES_ID + BYTES_VANTAGEM);
+        return mac.doFinal();
+    }
+
+    private static String codificar(byte[] bytes) {
+        StringBuilder saida = new StringBuilder(CARACTERES);
+        int buffer = 0;
+        int bitsNoBuffer = 0;
+        for (byte b : bytes) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bitsNoBuffer += 8;
+            while (bitsNoBuffer >= 5) {
+                bitsNoBuffer -= 5;
+                saida.append(ALFABETO[(buffer >>> bitsNoBuffer) & 31]);
+            }
+        }
+        return saida.toString();
+    }
+
+    private static byte[] decodificar(String simbolos) {
+        if (simbolos.length() != CARACTERES) {
+            return null;
+        }
+        byte[] bytes = new byte[BYTES_TOTAL];
+        int buffer = 0;
+        int bitsNoBuffer = 0;
+        int posicao = 0;
+        for (int i = 0; i < simbolos.length(); i++) {
+            char c = simbolos.charAt(i);
+            if (c >= 128 || VALORES[c] < 0) {
+                return null;
+            }
+            buffer = (buffer << 5) | VALORES[c];
+            bitsNoBuffer += 5;
+            if (bitsNoBuffer >= 8) {
+                bitsNoBuffer -= 8;
+                bytes[posicao++] = (byte) (buffer >>> bitsNoBuffer);
+            }
+        }
+        return bytes;
+    }
+
+    private static String formatar(String simbolos) {
+        StringBuilder saida = new StringBuilder(PREFIXO.length() + CARACTERES + CARACTERES / TAMANHO_GRUPO);
+        saida.append(PREFIXO);
+        for (int i = 0; i < simbolos.length(); i += TAMANHO_GRUPO) {
+            saida.append('-').append(simbolos, i, i + TAMANHO_GRUPO);
+        }
+        return saida.toString();
+    }
+}
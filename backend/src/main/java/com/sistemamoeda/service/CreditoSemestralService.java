@@ -0,0 +1,142 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.CreditoSemestralResumoDTO;
+import com.sistemamoeda.model.CreditoSemestralExecucao;
+import com.sistemamoeda.model.Professor;
+import com.sistemamoeda.model.TipoTransacao;
+import com.sistemamoeda.model.Transacao;
+import com.sistemamoeda.repository.CreditoSemestralExecucaoRepository;
+import com.sistemamoeda.repository.LoteJdbcRepository;
+import com.sistemamoeda.repository.ProfessorRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Crédito semestral em lotes: cada lote é uma transação curta (um UPDATE para todos os professores
+// do lote + insert em batch das transações + avanço do checkpoint). Se a execução for interrompida,
+// chamar novamente para o mesmo semestre continua do último lote confirmado, sem creditar ninguém duas vezes.
+@Service
+@RequiredArgsConstructor
+public class CreditoSemestralService {
+
+    private final ProfessorRepository professorRepository;
+    private final CreditoSemestralExecucaoRepository execucaoRepository;
+    private final LoteJdbcRepository loteJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransacoesRecentesBuffer transacoesRecentes;
+
+    @Value("${app.credito-semestral.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    // Sem semestre, credita o atual. Semestre futuro é recusado; semestre anterior sem execução registrada (que
+    // creditaria todos os professores de novo) só roda com confirmacao igual ao semestre, digitada de novo.
+    // Retomar uma execução já registrada não precisa de confirmação: não credita ninguém duas vezes.
+    public CreditoSemestralResumoDTO executar(String semestre, String confirmacao) {
+        String atual = semestreAtual();
+        String semestreAlvo = (semestre == null || semestre.isBlank()) ? atual : semestre.trim();
+        if (!semestreAlvo.matches("\\d{4}-[12]")) {
+            throw new IllegalArgumentException("Semestre deve estar no formato AAAA-1 ou AAAA-2");
+        }
+        // AAAA-S em texto ordena como os semestres
+        if (semestreAlvo.compareTo(atual) > 0) {
+            throw new IllegalArgumentException("Semestre " + semestreAlvo + " ainda não começou (semestre atual: " + atual + ")");
+        }
+        if (semestreAlvo.compareTo(atual) < 0 && execucaoRepository.findBySemestre(semestreAlvo).isEmpty()
+                && !semestreAlvo.equals(confirmacao == null ? null : confirmacao.trim())) {
+            throw new IllegalArgumentException("Semestre " + semestreAlvo + " é anterior ao atual (" + atual
+                    + "); para creditar mesmo assim, informe confirmacao=" + semestreAlvo);
+        }
+
+        long inicio = System.nanoTime();
+        criarExecucaoSeNecessario(semestreAlvo);
+
+        int creditados = 0;
+        int lotes = 0;
+        Integer quantidade;
+        while ((quantidade = transactionTemplate.execute(status -> processarLote(semestreAlvo))) > 0) {
+            creditados += quantidade;
+            lotes++;
+        }
+        if (creditados > 0) {
+            // Muitas transações novas de uma vez: mais barato recarregar as N últimas do que empilhar todas no buffer
+            transacoesRecentes.invalidar();
+        }
+
+        CreditoSemestralExecucao execucao = execucaoRepository.findBySemestre(semestreAlvo)
+                .orElseThrow(() -> new IllegalStateException("Execução do crédito semestral não encontrada"));
+
+        return new CreditoSemestralResumoDTO(
+            semestreAlvo,
+            creditados,
+            Professor.CREDITO_SEMESTRAL.multiply(BigDecimal.valueOf(creditados)),
+            lotes,
+            (System.nanoTime() - inicio) / 1_000_000,
+            execucao.getProfessoresCreditados(),
+            execucao.getTotalCreditado(),
+            execucao.getConcluido()
+        );
+    }
+
+    // Processa o próximo lote do semestre e retorna quantos professores foram creditados (0 = terminou)
+    private int processarLote(String semestre) {
+        CreditoSemestralExecucao execucao = execucaoRepository.findBySemestreParaAtualizacao(semestre)
+                .orElseThrow(() -> new IllegalStateException("Execução do crédito semestral não encontrada"));
+
+        if (execucao.getConcluido()) {
+            return 0;
+        }
+
+        List<Professor> professores = professorRepository.findLoteAposId(
+                execucao.getUltimoProfessorId(), PageRequest.of(0, tamanhoLote));
+
+        if (professores.isEmpty()) {
+            execucao.concluir();
+            return 0;
+        }
+
+        List<Long> ids = professores.stream().map(Professor::getId).collect(Collectors.toList());
+        professorRepository.creditarSaldoEmLote(ids, Professor.CREDITO_SEMESTRAL);
+
+        List<Transacao> transacoes = professores.stream()
+                .map(professor -> new Transacao(
+                    TipoTransacao.CREDITO_SEMESTRAL,
+                    Professor.CREDITO_SEMESTRAL,
+                    "Crédito semestral automático",
+                    professor.getUsuario()
+                ))
+                .collect(Collectors.toList());
+        loteJdbcRepository.inserirTransacoes(transacoes);
+
+        execucao.registrarLote(
+            ids.get(ids.size() - 1),
+            ids.size(),
+            Professor.CREDITO_SEMESTRAL.multiply(BigDecimal.valueOf(ids.size()))
+        );
+        return ids.size();
+    }
+
+    private void criarExecucaoSeNecessario(String semestre) {
+        if (execucaoRepository.findBySemestre(semestre).isPresent()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                execucaoRepository.save(new CreditoSemestralExecucao(semestre)));
+        } catch (DataIntegrityViolationException e) {
+            // Outra execução criou o registro ao mesmo tempo; segue usando o registro existente
+        }
+    }
+
+    private String semestreAtual() {
+        LocalDate hoje = LocalDate.now();
+        return hoje.getYear() + "-" + (hoje.getMonthValue() <= 6 ? 1 : 2);
+    }
+}
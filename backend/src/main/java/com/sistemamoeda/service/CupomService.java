@@ -0,0 +1,130 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.CupomResponseDTO;
+import com.sistemamoeda.dto.ValidacaoCupomRequestDTO;
+import com.sistemamoeda.dto.ValidacaoCupomResponseDTO;
+import com.sistemamoeda.model.Aluno;
+import com.sistemamoeda.model.StatusCupom;
+import com.sistemamoeda.repository.AlunoRepository;
+import com.sistemamoeda.repository.CupomRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class CupomService {
+    
+    private static final int TAMANHO_MAXIMO_CODIGO = 50;
+    private static final Pattern FORMATO_ANTIGO = Pattern.compile("CUP-[0-9A-F]{8}");
+    
+    private final CupomRepository cupomRepository;
+    private final AlunoRepository alunoRepository;
+    private final FiltroCodigosCupom filtroCodigos;
+    private final CodigosCupom codigosCupom;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Cupons que o aluno tem hoje (resgatados ou recebidos por transferência e ainda não repassados nem usados)
+    @Transactional(readOnly = true)
+    public List<CupomResponseDTO> listarCuponsDoAluno(Long alunoId) {
+        Aluno aluno = alunoRepository.findById(alunoId)
+                .orElseThrow(() -> new EntityNotFoundException("Aluno não encontrado"));
+        
+        return cupomRepository.findAtivosResponseDTOByProprietarioId(aluno.getUsuario().getId());
+    }
+    
+    // Código que recebe QR code em /api/cupons/{codigo}/qrcode (público). Não consulta o banco, para a resposta não
+    // dizer se um cupom existe: códigos assinados valem pela assinatura (forjar um exige a chave) e códigos no formato
+    // antigo ("CUP-" + 8 hex, enumeráveis) recebem o QR existindo ou não, já que o QR só contém o próprio código
+    public boolean podeGerarQRCode(String codigoCanonico) {
+        if (codigosCupom.ehAssinado(codigoCanonico)) {
+            return codigosCupom.verificar(codigoCanonico).isPresent();
+        }
+        return FORMATO_ANTIGO.matcher(codigoCanonico).matches();
+    }
+    
+    // Validação no balcão, sem alterar o cupom. Código que o filtro garante não existir é recusado sem abrir
+    // transação nem consultar o banco; os demais são uma única consulta pelo índice único do código.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ValidacaoCupomResponseDTO validarCupom(Long empresaId, ValidacaoCupomRequestDTO request) {
+        String codigo = codigoExistente(request.getCodigoCupom());
+        CupomRepository.SituacaoCupom situacao = cupomRepository.findSituacaoByCodigo(codigo)
+                .orElseThrow(() -> new EntityNotFoundException("Cupom não encontrado"));
+        
+        return montarResposta(situacao, empresaId, motivoRecusa(situacao, empresaId, request.getAlunoId()));
+    }
+    
+    // Uso do cupom pela empresa: um UPDATE condicional (ativo + vantagem da empresa + dono) marca como USADO,
+    // então o mesmo cupom nunca é consumido duas vezes. Se não marcou, a resposta traz o motivo com valido = false.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ValidacaoCupomResponseDTO consumirCupom(Long empresaId, ValidacaoCupomRequestDTO request) {
+        String codigo = codigoExistente(request.getCodigoCupom());
+        Integer consumidos = transactionTemplate.execute(status ->
+                cupomRepository.consumir(codigo, empresaId, request.getAlunoId(), LocalDateTime.now()));
+        
+        CupomRepository.SituacaoCupom situacao = cupomRepository.findSituacaoByCodigo(codigo)
+                .orElseThrow(() -> new EntityNotFoundException("Cupom não encontrado"));
+        if (consumidos != null && consumidos > 0) {
+            return montarResposta(situacao, empresaId, null);
+        }
+        
+        String motivo = motivoRecusa(situacao, empresaId, request.getAlunoId());
+        return montarResposta(situacao, empresaId,
+                motivo != null ? motivo : "Cupom alterado por outra operação, tente novamente");
+    }
+    
+    // Aceita o código como foi digitado no balcão (minúsculas, sem hífens). Código assinado só vai ao banco se a
+    // assinatura conferir; código antigo, se o filtro de Bloom não garantir que ele não existe.
+    private String codigoExistente(String codigoInformado) {
+        String codigo = codigosCupom.canonico(codigoInformado);
+        boolean podeExistir = codigosCupom.ehAssinado(codigo)
+                ? codigosCupom.verificar(codigo).isPresent()
+                : filtroCodigos.podeExistir(codigo);
+        if (codigo.isEmpty() || codigo.length() > TAMANHO_MAXIMO_CODIGO || !podeExistir) {
+            throw new EntityNotFoundException("Cupom não encontrado");
+        }
+        return codigo;
+    }
+    
+    private static String motivoRecusa(CupomRepository.SituacaoCupom situacao, Long empresaId, Long alunoId) {
+        if (!situacao.getEmpresaId().equals(empresaId)) {
+            return "Cupom não pertence a esta empresa";
+        }
+        if (situacao.getStatus() != StatusCupom.ATIVO) {
+            return "Cupom já utilizado";
+        }
+        if (alunoId != null && !alunoId.equals(situacao.getAlunoId())) {
+            return "Cupom não pertence a este aluno";
+        }
+        return null;
+    }
+    
+    private static ValidacaoCupomResponseDTO montarResposta(CupomRepository.SituacaoCupom situacao, Long empresaId,
+                                                            String motivo) {
+        ValidacaoCupomResponseDTO resposta = new ValidacaoCupomResponseDTO();
+        resposta.setCodigoCupom(situacao.getCodigo());
+        resposta.setValido(motivo == null);
+        resposta.setMotivo(motivo);
+        
+        // Para outra empresa, só o motivo: dono e vantagem não são expostos
+        if (!situacao.getEmpresaId().equals(empresaId)) {
+            return resposta;
+        }
+        resposta.setStatus(situacao.getStatus().name());
+        resposta.setVantagemId(situacao.getVantagemId());
+        resposta.setVantagemNome(situacao.getVantagemNome());
+        resposta.setAlunoId(situacao.getAlunoId());
+        resposta.setAlunoNome(situacao.getAlunoNome());
+        resposta.setDataResgate(situacao.getDataResgate());
+        resposta.setDataUso(situacao.getDataUso());
+        return resposta;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -15,8 +16,10 @@ import org.springframework.stereotype.Service;
 import java.util.Collection;
 import java.util.Collections;
 
+// Também recebe o hash novo quando o login confere a senha e o hash guardado está com outro custo (ou sem o prefixo
+// {bcrypt}): o DaoAuthenticationProvider chama updatePassword com a senha já recodificada
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UsuarioRepository usuarioRepository;
@@ -33,10 +36,24 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         Collection<GrantedAuthority> authorities = Collections.singleton(new SimpleGrantedAuthority(role));
 
+        // Conta desativada não faz login (o filtro JWT recusa os tokens já emitidos pelo UsuariosAtivosCache)
         return new User(
                 usuario.getEmail(),
                 usuario.getSenha(), 
+                Boolean.TRUE.equals(usuario.getAtivo()),
+                true,
+                true,
+                true,
                 authorities                 
         );
     }
-}
\ No newline at end of file
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        // Condicional ao hash conferido: uma troca de senha simultânea não é desfeita por esta atualização
+        if (usuarioRepository.atualizarHashSenha(user.getUsername(), user.getPassword(), newPassword) == 0) {
+            return user;
+        }
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,293 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.model.EmailOutbox;
+import com.sistemamoeda.model.StatusEmail;
+import com.sistemamoeda.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailParseException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Envia os e-mails da outbox. A cada ciclo reserva um lote (SELECT ... FOR UPDATE SKIP LOCKED + status ENVIANDO
+// com prazo de reserva, numa transação curta) do tamanho que cabe no emailExecutor, divide em grupos enviados cada um
+// por uma única conexão SMTP e grava o resultado. Falhas voltam para a fila com backoff exponencial; reservas vencidas (instância que caiu) são retomadas.
+@Component
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Value("${app.email.outbox.tamanho-lote:50}")
+    private int tamanhoLote;
+
+    // E-mails por tarefa do executor (uma conexão SMTP, vários MAIL FROM/DATA seguidos)
+    @Value("${app.email.outbox.mensagens-por-envio:10}")
+    private int mensagensPorEnvio;
+
+    @Value("${app.email.outbox.max-tentativas:8}")
+    private int maxTentativas;
+
+    @Value("${app.email.outbox.reserva:5m}")
+    private Duration reserva;
+
+    @Value("${app.email.outbox.backoff-inicial:30s}")
+    private Duration backoffInicial;
+
+    @Value("${app.email.outbox.backoff-maximo:1h}")
+    private Duration backoffMaximo;
+
+    // Tempo máximo esperando os envios de um lote; o que não terminou é cancelado e volta para a fila com backoff
+    @Value("${app.email.outbox.espera-envio:60s}")
+    private Duration esperaEnvio;
+
+    @Value("${app.email.outbox.retencao:7d}")
+    private Duration retencao;
+
+    private final ThreadPoolTaskExecutor emailExecutor;
+    private volatile boolean encerrando = false;
+
+    private final AtomicLong filaQuantidade = new AtomicLong();
+    private final AtomicReference<LocalDateTime> filaMaisAntigo = new AtomicReference<>();
+    private final Counter enviados;
+    private final Counter reagendados;
+    private final Counter descartados;
+    private final Counter devolvidos;
+    private final Timer tempoLote;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 EmailService emailService,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry registry,
+                                 @Qualifier("emailExecutor") ThreadPoolTaskExecutor emailExecutor) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.emailExecutor = emailExecutor;
+
+        this.enviados = contadorEnvios(registry, "enviado");
+        this.reagendados = contadorEnvios(registry, "reagendado");
+        this.descartados = contadorEnvios(registry, "descartado");
+        this.devolvidos = contadorEnvios(registry, "devolvido");
+        this.tempoLote = Timer.builder("email.outbox.lote")
+                .description("Tempo para enviar um lote da outbox")
+                .register(registry);
+        Gauge.builder("email.outbox.fila", filaQuantidade, AtomicLong::get)
+                .description("E-mails pendentes ou em envio na outbox")
+                .register(registry);
+        Gauge.builder("email.outbox.idade", filaMaisAntigo, ref -> {
+                    LocalDateTime maisAntigo = ref.get();
+                    return maisAntigo == null ? 0 : Math.max(0, Duration.between(maisAntigo, LocalDateTime.now()).toSeconds());
+                })
+                .baseUnit("seconds")
+                .description("Idade do e-mail mais antigo ainda não enviado")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.intervalo:2000}", initialDelayString = "${app.email.outbox.intervalo:2000}")
+    public void despachar() {
+        try {
+            int limite;
+            List<EmailOutbox> lote;
+            do {
+                limite = (int) Math.min(tamanhoLote, (long) vagasNoExecutor() * mensagensPorEnvio);
+                if (limite == 0 || encerrando) {
+                    break;
+                }
+                lote = reservarLote(limite);
+                if (!lote.isEmpty()) {
+                    List<EmailOutbox> enviar = lote;
+                    tempoLote.record(() -> enviarLote(enviar));
+                }
+            } while (lote.size() == limite);
+        } catch (Exception e) {
+            log.error("Erro ao processar a outbox de e-mails: {}", e.getMessage(), e);
+        } finally {
+            atualizarResumoFila();
+        }
+    }
+
+    // Remove os e-mails já enviados há mais tempo que a retenção
+    @Scheduled(cron = "${app.email.outbox.limpeza-cron:0 30 3 * * *}")
+    public void limparEnviados() {
+        Integer removidos = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteEnviadosAntesDe(LocalDateTime.now().minus(retencao)));
+        if (removidos != null && removidos > 0) {
+            log.info("{} e-mail(s) enviados removidos da outbox", removidos);
+        }
+    }
+
+    // Para de reservar novos e-mails; o emailExecutor termina os que já estão na fila
+    @PreDestroy
+    public void encerrar() {
+        encerrando = true;
+    }
+
+    // Threads livres + espaço na fila: quantas tarefas dá para entregar ao executor sem recusa
+    private int vagasNoExecutor() {
+        ThreadPoolExecutor executor = emailExecutor.getThreadPoolExecutor();
+        int threadsLivres = Math.max(0, executor.getMaximumPoolSize() - executor.getActiveCount());
+        return threadsLivres + executor.getQueue().remainingCapacity();
+    }
+
+    private List<EmailOutbox> reservarLote(int limite) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            List<EmailOutbox> lote = emailOutboxRepository.reservarLote(agora, PageRequest.of(0, limite));
+            for (EmailOutbox email : lote) {
+                email.setStatus(StatusEmail.ENVIANDO);
+                email.setReservadoAte(agora.plus(reserva));
+                email.setTentativas(email.getTentativas() + 1);
+            }
+            return lote;
+        });
+    }
+
+    private void enviarLote(List<EmailOutbox> lote) {
+        List<List<EmailOutbox>> aceitos = new ArrayList<>();
+        List<Future<Map<Long, Exception>>> resultados = new ArrayList<>();
+        List<Long> recusados = new ArrayList<>();
+        for (int inicio = 0; inicio < lote.size(); inicio += mensagensPorEnvio) {
+            List<EmailOutbox> grupo = lote.subList(inicio, Math.min(inicio + mensagensPorEnvio, lote.size()));
+            try {
+                resultados.add(emailExecutor.submit(() -> emailService.enviarLote(grupo)));
+                aceitos.add(grupo);
+            } catch (TaskRejectedException e) {
+                grupo.forEach(email -> recusados.add(email.getId()));
+            }
+        }
+
+        // Recusados pelo executor (fila cheia) voltam para a outbox na hora, sem contar como tentativa
+        if (!recusados.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.devolver(recusados));
+            devolvidos.increment(recusados.size());
+        }
+
+        // Espera os envios fora de qualquer transação (nenhuma conexão do banco presa durante o SMTP) e com prazo:
+        // um servidor de e-mail travado não segura o despachante além de espera-envio
+        long prazo = System.nanoTime() + esperaEnvio.toNanos();
+        List<Map<Long, Exception>> falhasPorGrupo = new ArrayList<>(aceitos.size());
+        for (int i = 0; i < aceitos.size(); i++) {
+            falhasPorGrupo.add(falhasDo(resultados.get(i), aceitos.get(i), prazo));
+        }
+
+        // Só então uma transação curta grava os resultados
+        List<Long> sucesso = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < aceitos.size(); i++) {
+                for (EmailOutbox email : aceitos.get(i)) {
+                    Exception erro = falhasPorGrupo.get(i).get(email.getId());
+                    if (erro == null) {
+                        sucesso.add(email.getId());
+                    } else {
+                        registrarFalha(email, erro);
+                    }
+                }
+            }
+            if (!sucesso.isEmpty()) {
+                emailOutboxRepository.marcarEnviados(sucesso, LocalDateTime.now());
+            }
+        });
+        enviados.increment(sucesso.size());
+    }
+
+    // Se a tarefa inteira falhou (ou não terminou no prazo e foi cancelada), todos os e-mails do grupo falharam com o
+    // mesmo erro e voltam para a fila com backoff
+    private Map<Long, Exception> falhasDo(Future<Map<Long, Exception>> resultado, List<EmailOutbox> grupo, long prazo) {
+        try {
+            return resultado.get(Math.max(0, prazo - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            Exception causa = e;
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            } else if (e instanceof TimeoutException) {
+                resultado.cancel(true);
+                causa = new TimeoutException("Envio não terminou em " + esperaEnvio.toSeconds() + "s");
+            } else if (e instanceof ExecutionException && e.getCause() instanceof Exception c) {
+                causa = c;
+            }
+            Map<Long, Exception> falhas = new HashMap<>();
+            for (EmailOutbox email : grupo) {
+                falhas.put(email.getId(), causa);
+            }
+            return falhas;
+        }
+    }
+
+    // Erro de montagem (dados inválidos) não melhora com nova tentativa: vai direto para FALHOU
+    private void registrarFalha(EmailOutbox email, Exception erro) {
+        boolean definitivo = erro instanceof MailParseException || erro instanceof IllegalArgumentException
+                || email.getTentativas() >= maxTentativas;
+        String mensagem = erro.getClass().getSimpleName() + ": " + erro.getMessage();
+        if (mensagem.length() > 1000) {
+            mensagem = mensagem.substring(0, 1000);
+        }
+
+        if (definitivo) {
+            emailOutboxRepository.registrarFalha(email.getId(), StatusEmail.FALHOU, email.getProximaTentativa(), mensagem);
+            descartados.increment();
+            log.error("E-mail {} para {} descartado após {} tentativa(s): {}",
+                    email.getId(), email.getDestinatario(), email.getTentativas(), mensagem);
+        } else {
+            LocalDateTime proxima = LocalDateTime.now().plus(backoff(email.getTentativas()));
+            emailOutboxRepository.registrarFalha(email.getId(), StatusEmail.PENDENTE, proxima, mensagem);
+            reagendados.increment();
+            log.warn("Falha ao enviar e-mail {} para {} (tentativa {}), nova tentativa em {}: {}",
+                    email.getId(), email.getDestinatario(), email.getTentativas(), proxima, mensagem);
+        }
+    }
+
+    // Exponencial a partir do backoff inicial, com teto e ±20% de variação para não sincronizar as novas tentativas
+    private Duration backoff(int tentativas) {
+        long base = backoffInicial.toMillis() << Math.min(Math.max(tentativas - 1, 0), 20);
+        long limitado = Math.min(base, backoffMaximo.toMillis());
+        double variacao = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (limitado * variacao));
+    }
+
+    private void atualizarResumoFila() {
+        try {
+            EmailOutboxRepository.ResumoFila resumo = emailOutboxRepository.resumirFila();
+            filaQuantidade.set(resumo.getQuantidade() != null ? resumo.getQuantidade() : 0);
+            filaMaisAntigo.set(resumo.getMaisAntigo());
+        } catch (Exception e) {
+            log.warn("Não foi possível atualizar o resumo da outbox: {}", e.getMessage());
+        }
+    }
+
+    private static Counter contadorEnvios(MeterRegistry registry, String resultado) {
+        return Counter.builder("email.outbox.envios")
+                .tag("resultado", resultado)
+                .description("E-mails processados pela outbox")
+                .register(registry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sistemamoeda.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sistemamoeda.model.EmailOutbox;
+import com.sistemamoeda.model.TipoEmail;
+import com.sistemamoeda.model.Vantagem;
+import com.sistemamoeda.repository.EmailOutboxRepository;
+import com.sistemamoeda.repository.LoteJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Registra e-mails na outbox dentro da transação de negócio: se a transação for desfeita, o e-mail some junto;
+// se for confirmada, o EmailOutboxDispatcher envia mesmo que a aplicação reinicie no meio do caminho.
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final LoteJdbcRepository loteJdbcRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    public void registrarTexto(String destinatario, String assunto, String mensagem) {
+        registrar(criarTexto(destinatario, assunto, mensagem));
+    }
+
+    public void registrarMoedasRecebidas(String destinatario, String mensagem) {
+        registrar(criarMoedasRecebidas(destinatario, mensagem));
+    }
+
+    public void registrarCupomResgatado(String destinatario, String nomeAluno, Vantagem vantagem, String codigoCupom) {
+        Map<String, String> parametros = new LinkedHashMap<>();
+        parametros.put("nomeAluno", nomeAluno);
+        parametros.put("nomeVantagem", vantagem.getNome());
+        parametros.put("codigoCupom", codigoCupom);
+        registrar(criar(TipoEmail.CUPOM_RESGATADO, destinatario, "Seu cupom: " + codigoCupom, parametros,
+                vantagem.getFotoHash() != null ? vantagem.getId() : null));
+    }
+
+    public void registrarCupomTransferido(String destinatario, String nomeDestinatario, String nomeRemetente,
+                                          Vantagem vantagem, String codigoCupom) {
+        Map<String, String> parametros = new LinkedHashMap<>();
+        parametros.put("nomeDestinatario", nomeDestinatario);
+        parametros.put("nomeRemetente", nomeRemetente);
+        parametros.put("nomeVantagem", vantagem.getNome());
+        parametros.put("codigoCupom", codigoCupom);
+        registrar(criar(TipoEmail.CUPOM_TRANSFERIDO, destinatario, "Você recebeu um cupom transferido: " + codigoCupom,
+                parametros, vantagem.getFotoHash() != null ? vantagem.getId() : null));
+    }
+
+    public EmailOutbox criarTexto(String destinatario, String assunto, String mensagem) {
+        return criar(TipoEmail.TEXTO, destinatario, assunto, Map.of("mensagem", mensagem), null);
+    }
+
+    public EmailOutbox criarMoedasRecebidas(String destinatario, String mensagem) {
+        return criar(TipoEmail.MOEDAS_RECEBIDAS, destinatario, "Você recebeu novas moedas!", Map.of("mensagem", mensagem), null);
+    }
+
+    // E-mails sem destinatário (null) são ignorados
+    public void registrar(EmailOutbox email) {
+        if (email != null) {
+            emailOutboxRepository.save(email);
+        }
+    }
+
+    // Vários e-mails de uma vez, com insert em batch
+    public void registrarTodos(List<EmailOutbox> emails) {
+        List<EmailOutbox> validos = emails.stream().filter(Objects::nonNull).toList();
+        if (!validos.isEmpty()) {
+            loteJdbcRepository.inserirEmails(validos);
+        }
+    }
+
+    private EmailOutbox criar(TipoEmail tipo, String destinatario, String assunto, Map<String, String> parametros, Long vantagemId) {
+        if (destinatario == null || destinatario.isBlank()) {
+            log.warn("E-mail {} sem destinatário não registrado: {}", tipo, assunto);
+            return null;
+        }
+        try {
+            return new EmailOutbox(tipo, destinatario.trim(), assunto, objectMapper.writeValueAsString(parametros), vantagemId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar parâmetros do e-mail", e);
+        }
+    }
+}
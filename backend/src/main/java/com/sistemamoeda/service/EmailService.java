@@ -1,21 +1,36 @@
 package com.sistemamoeda.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sistemamoeda.model.EmailOutbox;
+import com.sistemamoeda.model.FotoRendicao;
+import com.sistemamoeda.model.VantagemFoto;
+import com.sistemamoeda.repository.VantagemFotoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 
-import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class EmailService {
@@ -23,145 +38,168 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
-    private final Logger log = LoggerFactory.getLogger(EmailService.class);
+    @Autowired
+    private VantagemFotoRepository vantagemFotoRepository;
 
-    @Async
-    public void enviarEmailSimples(String destinatario, String assunto, String mensagem) {
-        try {
-            SimpleMailMessage email = new SimpleMailMessage();
-            email.setTo(destinatario);
-            email.setSubject(assunto);
-            email.setText(mensagem);
-            mailSender.send(email);
-            log.info("E-mail enviado para: {} assunto={}", destinatario, assunto);
-        } catch (Exception e) {
-            log.error("Erro ao enviar e-mail para {}: {}", destinatario, e.getMessage(), e);
-        }
-    }
+    @Autowired
+    private ObjectMapper objectMapper;
 
-    @Async
-    public void enviarEmailHtmlComGif(String destinatario, String assunto, String mensagem) {
-        List<String> gifs = Arrays.asList(
-                "https://media.giphy.com/media/3o6Zt6ML6BklcajjsA/giphy.gif",
-                "https://media.giphy.com/media/l0MYEqEzwMWFCg8rm/giphy.gif",
-                "https://media.giphy.com/media/111ebonMs90YLu/giphy.gif",
-                "https://media.giphy.com/media/5GoVLqeAOo6PK/giphy.gif",
-                "https://media.giphy.com/media/26ufdipQqU2lhNA4g/giphy.gif"
-        );
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-        String gif = gifs.get(new Random().nextInt(gifs.size()));
+    @Autowired
+    private EmailTemplates emailTemplates;
+
+    @Value("${app.url-publica:http://localhost:8080}")
+    private String urlPublica;
+
+    private final Logger log = LoggerFactory.getLogger(EmailService.class);
+
+    private static final List<String> GIFS = Arrays.asList(
+            "https://media.giphy.com/media/3o6Zt6ML6BklcajjsA/giphy.gif",
+            "https://media.giphy.com/media/l0MYEqEzwMWFCg8rm/giphy.gif",
+            "https://media.giphy.com/media/111ebonMs90YLu/giphy.gif",
+            "https://media.giphy.com/media/5GoVLqeAOo6PK/giphy.gif",
+            "https://media.giphy.com/media/26ufdipQqU2lhNA4g/giphy.gif"
+    );
+
+    // Monta os e-mails da outbox e envia todos de uma vez, pela mesma conexão SMTP do pool (nas threads do
+    // emailExecutor). Devolve as falhas por id da outbox; quem não está no mapa foi enviado. O EmailOutboxDispatcher
+    // decide entre nova tentativa e descarte (MailParseException = e-mail que nunca vai dar certo).
+    // Timers: email.montagem por tipo e email.envio por lote.
+    public Map<Long, Exception> enviarLote(List<EmailOutbox> emails) {
+        Map<Long, Exception> falhas = new HashMap<>();
+        List<EmailOutbox> montados = new ArrayList<>(emails.size());
+        List<MimeMessage> mensagens = new ArrayList<>(emails.size());
+
+        for (EmailOutbox email : emails) {
+            Timer.Sample amostra = Timer.start(meterRegistry);
+            try {
+                mensagens.add(montar(email));
+                montados.add(email);
+            } catch (MessagingException e) {
+                falhas.put(email.getId(), new MailParseException(e));
+            } catch (Exception e) {
+                falhas.put(email.getId(), e);
+            } finally {
+                amostra.stop(Timer.builder("email.montagem")
+                        .tag("tipo", email.getTipo().name())
+                        .description("Montagem de um e-mail (HTML e foto)")
+                        .register(meterRegistry));
+            }
+        }
+        if (mensagens.isEmpty()) {
+            return falhas;
+        }
 
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        String resultado = "sucesso";
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
-            String html = """
-            <html>
-            <body style="font-family: Arial, sans-serif; background-color:#f2f2f2; padding:30px;">
-                <div style="
-                    max-width:600px;
-                    margin:auto;
-                    background:white;
-                    padding:25px;
-                    border-radius:12px;
-                    box-shadow:0 4px 15px rgba(0,0,0,0.1);
-                    text-align:center;
-                ">
-                    <h2 style="color:#4A90E2; margin-bottom:20px;">📩 Você recebeu uma mensagem!</h2>
-                    
-                    <p style="
-                        font-size:16px;
-                        color:#333;
-                        line-height:1.6;
-                        text-align:left;
-                    ">
-                        %s
-                    </p>
-
-                    <div style="margin:25px 0;">
-                        <img src="%s" alt="gif" style="width:100%%; max-width:380px; border-radius:10px;">
-                    </div>
-
-                    <p style="color:#888; font-size:13px; margin-top:25px;">
-                        Esta é uma mensagem automática — por favor, não responda.
-                    </p>
-                </div>
-            </body>
-            </html>
-            """.formatted(
-                escapeHtml(mensagem).replace("\n", "<br/>"),
-                gif
-            );
-
-            helper.setTo(destinatario);
-            helper.setSubject(assunto);
-            helper.setText(html, true);
-            mailSender.send(mimeMessage);
-            log.info("E-mail HTML enviado para: {} assunto={}", destinatario, assunto);
-        } catch (Exception e) {
-            log.error("Erro ao enviar e-mail HTML para {}: {}", destinatario, e.getMessage(), e);
+            mailSender.send(mensagens.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            resultado = "erro";
+            Map<Object, Exception> porMensagem = e.getFailedMessages();
+            for (int i = 0; i < mensagens.size(); i++) {
+                Exception erro = porMensagem.isEmpty() ? e : porMensagem.get(mensagens.get(i));
+                if (erro != null) {
+                    falhas.put(montados.get(i).getId(), erro);
+                }
+            }
+        } catch (MailException e) {
+            resultado = "erro";
+            montados.forEach(email -> falhas.put(email.getId(), e));
+        } finally {
+            amostra.stop(Timer.builder("email.envio")
+                    .tag("resultado", resultado)
+                    .description("Envio SMTP de um lote de e-mails")
+                    .register(meterRegistry));
         }
-    }
 
-    @Async
-    public void sendSimpleEmail(String to, String subject, String text) {
-        enviarEmailSimples(to, subject, text);
+        log.info("Lote de {} e-mail(s) enviado: {} falha(s)", emails.size(), falhas.size());
+        return falhas;
     }
 
-    // utilitário seguro de escape HTML (mantido localmente)
-    private String escapeHtml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#x27;");
+    private MimeMessage montar(EmailOutbox email) throws MessagingException {
+        Map<String, String> parametros = lerParametros(email);
+        String destinatario = email.getDestinatario();
+        String assunto = email.getAssunto();
+
+        return switch (email.getTipo()) {
+            case TEXTO -> criarTexto(destinatario, assunto, parametros.get("mensagem"));
+            case MOEDAS_RECEBIDAS -> criarHtmlComGif(destinatario, assunto, parametros.get("mensagem"));
+            case CUPOM_RESGATADO -> criarCupom(destinatario, assunto, "cupom-resgatado", parametros, email.getVantagemId());
+            case CUPOM_TRANSFERIDO -> criarCupom(destinatario, assunto, "cupom-transferido", parametros, email.getVantagemId());
+        };
     }
 
-    @Async
-    public void enviarCupomComQrCodeInline(String destinatario, String assunto, String mensagemHtml, byte[] qrCodeBytes, byte[] fotoVantagem) {
-        try {
-            if (destinatario == null || destinatario.isBlank()) {
-                throw new IllegalArgumentException("Destinatário inválido");
-            }
-
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            helper.setTo(destinatario);
-            helper.setSubject(assunto);
-            helper.setText(mensagemHtml, true);
-
-            // Adiciona QR code inline
-            if (qrCodeBytes != null && qrCodeBytes.length > 0) {
-                helper.addInline("qrcodeinline", new ByteArrayResource(qrCodeBytes) {
-                    @Override
-                    public String getFilename() {
-                        return "qrcode.png";
-                    }
-                }, "image/png");
-            } else {
-                log.warn("QR code vazio, não será adicionado ao e-mail");
-            }
+    private MimeMessage criarTexto(String destinatario, String assunto, String mensagem) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
+        helper.setTo(destinatario);
+        helper.setSubject(assunto);
+        helper.setText(mensagem != null ? mensagem : "", false);
+        return mimeMessage;
+    }
 
-            // Adiciona foto da vantagem inline
-            if (fotoVantagem != null && fotoVantagem.length > 0) {
-                helper.addInline("imagemVantagem", new ByteArrayResource(fotoVantagem) {
-                    @Override
-                    public String getFilename() {
-                        return "vantagem.jpg"; // ajuste se for PNG
-                    }
-                }, "image/jpeg"); // ajuste para image/png se necessário
-            } else {
-                log.warn("Foto da vantagem vazia, não será adicionada ao e-mail");
-            }
+    private MimeMessage criarHtmlComGif(String destinatario, String assunto, String mensagem) throws MessagingException {
+        Map<String, String> valores = new HashMap<>();
+        valores.put("mensagem", mensagem);
+        valores.put("gif", GIFS.get(ThreadLocalRandom.current().nextInt(GIFS.size())));
+
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
+        helper.setTo(destinatario);
+        helper.setSubject(assunto);
+        helper.setText(emailTemplates.renderizar("moedas-recebidas", valores), true);
+        return mimeMessage;
+    }
 
-            mailSender.send(mimeMessage);
-            log.info("E-mail enviado com sucesso para {}", destinatario);
+    // Cupom com a foto da vantagem (rendição de e-mail) inline. O QR code não vai anexado: o HTML aponta para
+    // /api/cupons/{codigo}/qrcode, servido (e cacheado pelo cliente) a partir do QRCodeService
+    private MimeMessage criarCupom(String destinatario, String assunto, String modelo, Map<String, String> parametros,
+                                   Long vantagemId) throws MessagingException {
+        String codigoCupom = parametros.get("codigoCupom");
+        if (codigoCupom == null || codigoCupom.isBlank()) {
+            throw new MailParseException("E-mail de cupom sem código do cupom");
+        }
+        Map<String, String> valores = new HashMap<>(parametros);
+        valores.put("qrCodeUrl", urlPublica + "/api/cupons/"
+                + URLEncoder.encode(codigoCupom, StandardCharsets.UTF_8) + "/qrcode");
+
+        byte[] foto = vantagemId == null ? null : vantagemFotoRepository
+                .findByVantagemIdAndRendicao(vantagemId, FotoRendicao.EMAIL)
+                .map(VantagemFoto::getDados)
+                .orElse(null);
+
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        helper.setTo(destinatario);
+        helper.setSubject(assunto);
+        helper.setText(emailTemplates.renderizar(modelo, valores), true);
+
+        // Adiciona foto da vantagem inline (as rendições são sempre JPEG)
+        if (foto != null && foto.length > 0) {
+            helper.addInline("imagemVantagem", new ByteArrayResource(foto) {
+                @Override
+                public String getFilename() {
+                    return "vantagem.jpg";
+                }
+            }, "image/jpeg");
+        } else {
+            log.warn("Foto da vantagem vazia, não será adicionada ao e-mail");
+        }
+        return mimeMessage;
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao enviar e-mail HTML com QR inline", e);
+    private Map<String, String> lerParametros(EmailOutbox email) {
+        if (email.getParametros() == null || email.getParametros().isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(email.getParametros(), new TypeReference<Map<String, String>>() {});
+        } catch (IOException e) {
+            throw new MailParseException("Parâmetros inválidos no e-mail " + email.getId(), e);
         }
     }
 
 }
-
@@ -0,0 +1,147 @@
+package com.sistemamoeda.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Modelos de e-mail em resources/templates/email/*.html, compilados uma única vez na inicialização em trechos
+// literais + campos. Sintaxe dos campos:
+//   {{nome}}     valor com escape HTML
+//   {{nome|br}}  valor com escape HTML e quebras de linha viram <br/>
+//   {{{nome}}}   valor sem escape (só para conteúdo já seguro)
+// A renderização percorre os trechos uma vez, escapando cada valor caractere a caractere direto no StringBuilder
+// reaproveitado da thread.
+@Component
+public class EmailTemplates {
+
+    private static final String LOCAL_MODELOS = "classpath:templates/email/*.html";
+    private static final int CAPACIDADE_MAXIMA_REAPROVEITADA = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(EmailTemplates.class);
+
+    private final Map<String, Modelo> modelos = new HashMap<>();
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private enum Escape { HTML, HTML_COM_QUEBRAS, NENHUM }
+
+    private record Trecho(String literal, String campo, Escape escape) {}
+
+    private record Modelo(String nome, Trecho[] trechos, int tamanhoLiterais) {}
+
+    public EmailTemplates() throws IOException {
+        for (Resource recurso : new PathMatchingResourcePatternResolver().getResources(LOCAL_MODELOS)) {
+            String arquivo = recurso.getFilename();
+            if (arquivo == null) {
+                continue;
+            }
+            String nome = arquivo.substring(0, arquivo.length() - ".html".length());
+            String conteudo = new String(recurso.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            modelos.put(nome, compilar(nome, conteudo));
+        }
+        log.info("Modelos de e-mail carregados: {}", modelos.keySet());
+    }
+
+    // Renderiza o modelo; campos sem valor ficam vazios
+    public String renderizar(String nomeModelo, Map<String, String> valores) {
+        Modelo modelo = modelos.get(nomeModelo);
+        if (modelo == null) {
+            throw new IllegalArgumentException("Modelo de e-mail não encontrado: " + nomeModelo);
+        }
+
+        StringBuilder saida = buffers.get();
+        saida.setLength(0);
+        saida.ensureCapacity(modelo.tamanhoLiterais() + 256);
+        for (Trecho trecho : modelo.trechos()) {
+            if (trecho.literal() != null) {
+                saida.append(trecho.literal());
+            } else {
+                String valor = valores.get(trecho.campo());
+                if (valor != null) {
+                    escrever(saida, valor, trecho.escape());
+                }
+            }
+        }
+
+        String html = saida.toString();
+        if (saida.capacity() > CAPACIDADE_MAXIMA_REAPROVEITADA) {
+            buffers.remove(); // não segura na thread um buffer que cresceu por causa de um e-mail fora do comum
+        }
+        return html;
+    }
+
+    private static void escrever(StringBuilder saida, String valor, Escape escape) {
+        if (escape == Escape.NENHUM) {
+            saida.append(valor);
+            return;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '&' -> saida.append("&amp;");
+                case '<' -> saida.append("&lt;");
+                case '>' -> saida.append("&gt;");
+                case '"' -> saida.append("&quot;");
+                case '\'' -> saida.append("&#x27;");
+                case '\r' -> {
+                    if (escape != Escape.HTML_COM_QUEBRAS) {
+                        saida.append(c);
+                    }
+                }
+                case '\n' -> saida.append(escape == Escape.HTML_COM_QUEBRAS ? "<br/>" : "\n");
+                default -> saida.append(c);
+            }
+        }
+    }
+
+    private static Modelo compilar(String nome, String conteudo) {
+        List<Trecho> trechos = new ArrayList<>();
+        int tamanhoLiterais = 0;
+        int posicao = 0;
+        while (posicao < conteudo.length()) {
+            int abertura = conteudo.indexOf("{{", posicao);
+            if (abertura < 0) {
+                break;
+            }
+            boolean semEscape = conteudo.startsWith("{{{", abertura);
+            String fechamentoEsperado = semEscape ? "}}}" : "}}";
+            int inicioCampo = abertura + (semEscape ? 3 : 2);
+            int fechamento = conteudo.indexOf(fechamentoEsperado, inicioCampo);
+            if (fechamento < 0) {
+                throw new IllegalStateException("Modelo de e-mail '" + nome + "': campo sem fechamento na posição " + abertura);
+            }
+
+            if (abertura > posicao) {
+                String literal = conteudo.substring(posicao, abertura);
+                trechos.add(new Trecho(literal, null, null));
+                tamanhoLiterais += literal.length();
+            }
+
+            String campo = conteudo.substring(inicioCampo, fechamento).trim();
+            Escape escape = semEscape ? Escape.NENHUM : Escape.HTML;
+            if (!semEscape && campo.endsWith("|br")) {
+                campo = campo.substring(0, campo.length() - "|br".length()).trim();
+                escape = Escape.HTML_COM_QUEBRAS;
+            }
+            if (campo.isEmpty()) {
+                throw new IllegalStateException("Modelo de e-mail '" + nome + "': campo vazio na posição " + abertura);
+            }
+            trechos.add(new Trecho(null, campo, escape));
+            posicao = fechamento + fechamentoEsperado.length();
+        }
+        if (posicao < conteudo.length()) {
+            String literal = conteudo.substring(posicao);
+            trechos.add(new Trecho(literal, null, null));
+            tamanhoLiterais += literal.length();
+        }
+        return new Modelo(nome, trechos.toArray(new Trecho[0]), tamanhoLiterais);
+    }
+}
@@ -26,7 +26,9 @@ public class EmpresaService {
     private final EmpresaRepository empresaRepository;
     private final UsuarioRepository usuarioRepository;
     private final VantagemRepository vantagemRepository;
+    private final CatalogoVantagensCache catalogoCache;
     private final PasswordEncoder passwordEncoder; // LINHA ADICIONADA
+    private final UsuariosAtivosCache usuariosAtivos;
     
     // Criar nova empresa
     public EmpresaResponseDTO criarEmpresa(EmpresaRequestDTO request) {
@@ -76,6 +78,12 @@ public class EmpresaService {
         return convertToResponseDTO(empresa);
     }
     
+    // A empresa é a do usuário logado?
+    @Transactional(readOnly = true)
+    public boolean pertenceAoUsuario(Long empresaId, Long usuarioId) {
+        return usuarioId != null && empresaRepository.existsByIdAndUsuarioId(empresaId, usuarioId);
+    }
+    
     // Atualizar empresa
     public EmpresaResponseDTO atualizarEmpresa(Long id, EmpresaRequestDTO request) {
         Empresa empresa = empresaRepository.findById(id)
@@ -92,6 +100,9 @@ public class EmpresaService {
         }
         
         Usuario usuario = empresa.getUsuario();
+        if (!usuario.getEmail().equals(request.getEmail())) {
+            usuariosAtivos.invalidarAposCommit(usuario.getEmail());
+        }
         usuario.setNome(request.getNome());
         usuario.setEmail(request.getEmail());
         if (request.getSenha() != null && !request.getSenha().trim().isEmpty()) {
@@ -106,6 +117,8 @@ public class EmpresaService {
         empresa.setDescricao(request.getDescricao());
         
         empresa = empresaRepository.save(empresa);
+        // O catálogo de vantagens exibe o nome fantasia
+        catalogoCache.invalidarAposCommit();
         return convertToResponseDTO(empresa);
     }
     
@@ -114,7 +127,14 @@ public class EmpresaService {
         Empresa empresa = empresaRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Empresa não encontrada"));
         
+        // O usuário não é removido junto (transações e cupons continuam apontando para ele): fica desativado, sem
+        // login, e os tokens já emitidos deixam de valer assim que a remoção for confirmada
+        Usuario usuario = empresa.getUsuario();
         empresaRepository.delete(empresa);
+        usuario.setAtivo(false);
+        usuarioRepository.save(usuario);
+        catalogoCache.invalidarAposCommit();
+        usuariosAtivos.invalidarAposCommit(usuario.getEmail());
     }
     
     // Buscar empresas por nome fantasia
@@ -0,0 +1,233 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.ReconstrucaoEstatisticasDTO;
+import com.sistemamoeda.model.EstatisticaTransacao;
+import com.sistemamoeda.model.MetricaEstatistica;
+import com.sistemamoeda.model.Transacao;
+import com.sistemamoeda.model.Usuario;
+import com.sistemamoeda.model.Vantagem;
+import com.sistemamoeda.repository.EstatisticaJdbcRepository;
+import com.sistemamoeda.repository.EstatisticaJdbcRepository.Contador;
+import com.sistemamoeda.repository.EstatisticaTransacaoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Estatísticas pré-agregadas (tabela estatistica_transacao). Cada transação inserida soma seus valores no contador
+// do dia e no acumulado da referência, na mesma transação do banco. A reconstrução recalcula os contadores a partir
+// do histórico em blocos de referências processados em paralelo: cada bloco trava seus contadores (SELECT ... FOR
+// UPDATE) antes de ler o histórico, então uma transação concorrente ou já está no histórico lido ou só soma o seu
+// incremento depois que o bloco termina. Contadores que ainda não existem são criados por upsert aditivo, para não
+// apagar um incremento gravado ao mesmo tempo.
+@Service
+@RequiredArgsConstructor
+public class EstatisticasTransacaoService {
+
+    private static final LocalDate ULTIMO_DIA = LocalDate.of(9999, 12, 31);
+
+    private static final Comparator<Chave> ORDEM_TRAVAMENTO = Comparator.comparing(Chave::metrica)
+            .thenComparingLong(Chave::referenciaId)
+            .thenComparing(Chave::dia);
+
+    private final Logger log = LoggerFactory.getLogger(EstatisticasTransacaoService.class);
+
+    private final EstatisticaJdbcRepository estatisticaJdbcRepository;
+    private final EstatisticaTransacaoRepository estatisticaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.estatisticas.reconstrucao.threads:4}")
+    private int threadsReconstrucao;
+
+    @Value("${app.estatisticas.reconstrucao.tamanho-bloco:500}")
+    private int tamanhoBloco;
+
+    private record Chave(MetricaEstatistica metrica, long referenciaId, LocalDate dia) {}
+
+    private record ResultadoBloco(long verificados, long divergencias) {}
+
+    // Soma a transação nos contadores; deve ser chamado dentro da transação que a inseriu
+    public void registrar(Transacao transacao) {
+        registrarTodas(List.of(transacao));
+    }
+
+    // Um lote inteiro vira um único batch de upserts, já somado por contador (ex.: o professor de um envio em lote
+    // recebe um incremento só)
+    public void registrarTodas(List<Transacao> transacoes) {
+        Map<Chave, Contador> incrementos = new TreeMap<>(ORDEM_TRAVAMENTO);
+        for (Transacao transacao : transacoes) {
+            LocalDate dia = transacao.getDataTransacao().toLocalDate();
+            switch (transacao.getTipoTransacao()) {
+                case ENVIO_MOEDA -> {
+                    somar(incrementos, MetricaEstatistica.MOEDAS_ENVIADAS, idUsuario(transacao.getRemetente()), dia, transacao.getValor());
+                    somar(incrementos, MetricaEstatistica.MOEDAS_RECEBIDAS, idUsuario(transacao.getDestinatario()), dia, transacao.getValor());
+                }
+                case RESGATE_VANTAGEM -> {
+                    somar(incrementos, MetricaEstatistica.MOEDAS_GASTAS, idUsuario(transacao.getDestinatario()), dia, transacao.getValor());
+                    somar(incrementos, MetricaEstatistica.RESGATES_VANTAGEM, idVantagem(transacao.getVantagem()), dia, transacao.getValor());
+                }
+                default -> {
+                    // Créditos semestrais e trocas de cupom não entram nas estatísticas
+                }
+            }
+        }
+        if (!incrementos.isEmpty()) {
+            estatisticaJdbcRepository.acumular(new ArrayList<>(incrementos.values()));
+        }
+    }
+
+    // Valor acumulado desde o início ou, se algum limite for informado, entre os dois dias (inclusive)
+    @Transactional(readOnly = true)
+    public BigDecimal somarValor(MetricaEstatistica metrica, Long referenciaId, LocalDate inicio, LocalDate fim) {
+        return totais(metrica, referenciaId, inicio, fim).getValor();
+    }
+
+    // Quantidade de transações, com os mesmos limites de somarValor
+    @Transactional(readOnly = true)
+    public Long contar(MetricaEstatistica metrica, Long referenciaId, LocalDate inicio, LocalDate fim) {
+        return totais(metrica, referenciaId, inicio, fim).getQuantidade();
+    }
+
+    // Recalcula os contadores a partir do histórico. corrigir = false só compara e informa as divergências
+    public ReconstrucaoEstatisticasDTO reconstruir(boolean corrigir) {
+        long inicio = System.nanoTime();
+
+        List<Callable<ResultadoBloco>> blocos = new ArrayList<>();
+        for (MetricaEstatistica metrica : MetricaEstatistica.values()) {
+            long maiorReferencia = estatisticaJdbcRepository.maiorReferencia(metrica);
+            for (long de = 1; de <= maiorReferencia; de += tamanhoBloco) {
+                long faixaDe = de;
+                long faixaAte = Math.min(de + tamanhoBloco - 1, maiorReferencia);
+                blocos.add(() -> transactionTemplate.execute(status ->
+                        reconstruirBloco(metrica, faixaDe, faixaAte, corrigir)));
+            }
+        }
+
+        long verificados = 0;
+        long divergencias = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threadsReconstrucao,
+                new CustomizableThreadFactory("estatisticas-"));
+        try {
+            for (Future<ResultadoBloco> futuro : executor.invokeAll(blocos)) {
+                ResultadoBloco resultado = futuro.get();
+                verificados += resultado.verificados();
+                divergencias += resultado.divergencias();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrução das estatísticas interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro na reconstrução das estatísticas", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        if (divergencias > 0) {
+            log.warn("Estatísticas: {} de {} contadores divergentes do histórico ({})",
+                    divergencias, verificados, corrigir ? "corrigidos" : "não corrigidos");
+        } else {
+            log.info("Estatísticas: {} contadores conferidos com o histórico em {} ms", verificados, duracaoMs);
+        }
+        return new ReconstrucaoEstatisticasDTO(corrigir, blocos.size(), verificados, divergencias, duracaoMs);
+    }
+
+    private ResultadoBloco reconstruirBloco(MetricaEstatistica metrica, long de, long ate, boolean corrigir) {
+        // Trava primeiro, lê o histórico depois (ver comentário da classe)
+        Map<Chave, Contador> existentes = new HashMap<>();
+        for (Contador contador : estatisticaJdbcRepository.travarFaixa(metrica, de, ate)) {
+            existentes.put(new Chave(metrica, contador.referenciaId(), contador.dia()), contador);
+        }
+
+        Map<Chave, Contador> esperados = new TreeMap<>(ORDEM_TRAVAMENTO);
+        for (Contador diario : estatisticaJdbcRepository.somarHistorico(metrica, de, ate)) {
+            somar(esperados, metrica, diario.referenciaId(), diario.dia(), diario.quantidade(), diario.valor());
+        }
+
+        List<Contador> criar = new ArrayList<>();
+        List<Contador> atualizar = new ArrayList<>();
+        for (Map.Entry<Chave, Contador> entrada : esperados.entrySet()) {
+            Contador esperado = entrada.getValue();
+            Contador existente = existentes.remove(entrada.getKey());
+            if (existente == null) {
+                criar.add(esperado);
+            } else if (existente.quantidade() != esperado.quantidade()
+                    || existente.valor().compareTo(esperado.valor()) != 0) {
+                atualizar.add(new Contador(existente.id(), metrica, existente.referenciaId(), existente.dia(),
+                        esperado.quantidade(), esperado.valor()));
+            }
+        }
+        // O que sobrou não tem transação correspondente no histórico
+        List<Long> remover = existentes.values().stream().map(Contador::id).toList();
+
+        if (corrigir) {
+            if (!atualizar.isEmpty()) {
+                estatisticaJdbcRepository.definir(atualizar);
+            }
+            if (!criar.isEmpty()) {
+                estatisticaJdbcRepository.acumular(criar);
+            }
+            if (!remover.isEmpty()) {
+                estatisticaJdbcRepository.remover(remover);
+            }
+        }
+        return new ResultadoBloco(esperados.size() + remover.size(), criar.size() + atualizar.size() + remover.size());
+    }
+
+    private EstatisticaTransacaoRepository.Totais totais(MetricaEstatistica metrica, Long referenciaId,
+                                                          LocalDate inicio, LocalDate fim) {
+        if (inicio == null && fim == null) {
+            return estatisticaRepository.somar(metrica, referenciaId, EstatisticaTransacao.DIA_TOTAL, EstatisticaTransacao.DIA_TOTAL);
+        }
+        LocalDate de = inicio != null ? inicio : EstatisticaTransacao.DIA_TOTAL.plusDays(1);
+        LocalDate ate = fim != null ? fim : ULTIMO_DIA;
+        if (de.isAfter(ate)) {
+            throw new IllegalArgumentException("Data inicial deve ser anterior ou igual à data final");
+        }
+        return estatisticaRepository.somar(metrica, referenciaId, de, ate);
+    }
+
+    private static void somar(Map<Chave, Contador> contadores, MetricaEstatistica metrica, Long referenciaId,
+                              LocalDate dia, BigDecimal valor) {
+        if (referenciaId != null) {
+            somar(contadores, metrica, referenciaId, dia, 1, valor);
+        }
+    }
+
+    // Soma no contador do dia e no acumulado (DIA_TOTAL) da referência
+    private static void somar(Map<Chave, Contador> contadores, MetricaEstatistica metrica, long referenciaId,
+                              LocalDate dia, long quantidade, BigDecimal valor) {
+        for (LocalDate chaveDia : new LocalDate[]{dia, EstatisticaTransacao.DIA_TOTAL}) {
+            contadores.merge(new Chave(metrica, referenciaId, chaveDia),
+                    new Contador(null, metrica, referenciaId, chaveDia, quantidade, valor),
+                    (atual, novo) -> new Contador(null, metrica, referenciaId, chaveDia,
+                            atual.quantidade() + novo.quantidade(), atual.valor().add(novo.valor())));
+        }
+    }
+
+    private static Long idUsuario(Usuario usuario) {
+        return usuario != null ? usuario.getId() : null;
+    }
+
+    private static Long idVantagem(Vantagem vantagem) {
+        return vantagem != null ? vantagem.getId() : null;
+    }
+}
@@ -0,0 +1,169 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.repository.CupomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom com os códigos de cupom no formato antigo ("CUP-" + 8 hex), para recusar códigos inexistentes
+// (digitados errado ou inventados) na validação sem ir ao banco. Pode dar falso positivo (o banco é consultado e
+// responde), nunca falso negativo para um código que já foi carregado. Os códigos assinados não passam por aqui:
+// a assinatura é conferida pelo CodigosCupom.
+// Os códigos entram por uma leitura incremental da tabela cupom a cada poucos segundos (pega também os cupons
+// migrados do histórico de transações). Até a primeira carga completa terminar o filtro deixa tudo passar.
+@Component
+public class FiltroCodigosCupom {
+
+    // A leitura incremental volta alguns ids: com IDENTITY, um id menor pode ser confirmado depois de um maior
+    private static final int JANELA_IDS = 64;
+    private static final int TAMANHO_PAGINA = 5000;
+
+    private final CupomRepository cupomRepository;
+    private final CodigosCupom codigosCupom;
+    private final Logger log = LoggerFactory.getLogger(FiltroCodigosCupom.class);
+
+    private final AtomicLongArray bits;
+    private final long totalBits;
+    private final int funcoes;
+    private final long capacidade;
+
+    private volatile boolean pronto = false;
+    private long ultimoId = 0;
+    private final AtomicLong codigos = new AtomicLong();
+    private boolean avisoCapacidade = false;
+
+    private final Counter rejeitados;
+    private final Counter aceitos;
+
+    public FiltroCodigosCupom(CupomRepository cupomRepository,
+                              CodigosCupom codigosCupom,
+                              MeterRegistry registry,
+                              @Value("${app.cupons.filtro.capacidade:1000000}") long capacidade,
+                              @Value("${app.cupons.filtro.falsos-positivos:0.001}") double falsosPositivos) {
+        this.cupomRepository = cupomRepository;
+        this.codigosCupom = codigosCupom;
+        this.capacidade = Math.max(1000, capacidade);
+
+        // m = -n ln(p) / ln(2)^2 bits e k = (m / n) ln(2) funções de hash
+        double p = Math.min(Math.max(falsosPositivos, 1e-9), 0.5);
+        long m = (long) Math.ceil(-this.capacidade * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.totalBits = ((m + 63) / 64) * 64;
+        this.funcoes = Math.max(1, (int) Math.round((double) totalBits / this.capacidade * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (totalBits / 64));
+
+        this.rejeitados = Counter.builder("cupom.filtro")
+                .tag("resultado", "rejeitado")
+                .description("Códigos recusados pelo filtro sem consultar o banco")
+                .register(registry);
+        this.aceitos = Counter.builder("cupom.filtro")
+                .tag("resultado", "aceito")
+                .description("Códigos que passaram pelo filtro e foram consultados no banco")
+                .register(registry);
+        Gauge.builder("cupom.filtro.codigos", codigos, AtomicLong::get)
+                .description("Códigos de cupom carregados no filtro")
+                .register(registry);
+    }
+
+    // false = o código com certeza não existe; true = pode existir (consultar o banco)
+    public boolean podeExistir(String codigo) {
+        if (!pronto) {
+            aceitos.increment();
+            return true;
+        }
+        long h1 = hash(codigo);
+        long h2 = misturar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long indice = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get((int) (indice >>> 6)) & (1L << indice)) == 0) {
+                rejeitados.increment();
+                return false;
+            }
+        }
+        aceitos.increment();
+        return true;
+    }
+
+    public void adicionar(String codigo) {
+        long h1 = hash(codigo);
+        long h2 = misturar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean novo = false;
+        for (int i = 0; i < funcoes; i++) {
+            long indice = Math.floorMod(h1 + i * h2, totalBits);
+            int palavra = (int) (indice >>> 6);
+            long mascara = 1L << indice;
+            long atual;
+            do {
+                atual = bits.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+                novo = true;
+            } while (!bits.compareAndSet(palavra, atual, atual | mascara));
+        }
+        // Conta como novo se mudou algum bit (códigos repetidos pela janela de leitura não contam)
+        if (novo) {
+            codigos.incrementAndGet();
+        }
+    }
+
+    // Carga completa na primeira execução, depois só os cupons criados desde a última leitura
+    @Scheduled(fixedDelayString = "${app.cupons.filtro.atualizacao:2000}")
+    public void atualizar() {
+        try {
+            long desde = Math.max(0, ultimoId - JANELA_IDS);
+            List<CupomRepository.CodigoCupom> pagina;
+            do {
+                pagina = cupomRepository.findCodigosAposId(desde, PageRequest.of(0, TAMANHO_PAGINA));
+                for (CupomRepository.CodigoCupom cupom : pagina) {
+                    if (cupom.getCodigo() != null && !codigosCupom.ehAssinado(cupom.getCodigo())) {
+                        adicionar(cupom.getCodigo());
+                    }
+                    desde = cupom.getId();
+                }
+                ultimoId = Math.max(ultimoId, desde);
+            } while (pagina.size() == TAMANHO_PAGINA);
+
+            if (!pronto) {
+                pronto = true;
+                log.info("Filtro de códigos de cupom carregado: {} código(s), {} KB, {} funções de hash",
+                        codigos.get(), totalBits / 8 / 1024, funcoes);
+            }
+            if (codigos.get() > capacidade && !avisoCapacidade) {
+                avisoCapacidade = true;
+                log.warn("Filtro de códigos de cupom acima da capacidade ({} > {}): a taxa de falsos positivos vai subir; "
+                        + "aumente app.cupons.filtro.capacidade", codigos.get(), capacidade);
+            }
+        } catch (Exception e) {
+            log.warn("Não foi possível atualizar o filtro de códigos de cupom: {}", e.getMessage());
+        }
+    }
+
+    // FNV-1a de 64 bits sobre os caracteres, seguido da mistura final do MurmurHash3
+    private static long hash(String codigo) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < codigo.length(); i++) {
+            h ^= codigo.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return misturar(h);
+    }
+
+    private static long misturar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,301 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.model.FotoRendicao;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Ingestão das fotos de vantagens: identifica o formato real pelo conteúdo, limita a memória da decodificação
+// (dimensões conferidas antes de decodificar + subamostragem na leitura) e gera as rendições em JPEG.
+// A entrada é lida como stream, com limite de tamanho; o arquivo original nunca fica inteiro em memória.
+@Service
+public class ImagemService {
+
+    public static final String CONTENT_TYPE_RENDICOES = "image/jpeg";
+
+    private final Logger log = LoggerFactory.getLogger(ImagemService.class);
+
+    @Value("${app.vantagens.foto.max-megapixels:50}")
+    private int maxMegapixels;
+
+    @Value("${app.vantagens.foto.tamanho-maximo:10MB}")
+    private DataSize tamanhoMaximo;
+
+    @Data
+    @AllArgsConstructor
+    public static class ImagemProcessada {
+        private byte[] dados;
+        private String hash;
+        private int largura;
+        private int altura;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class FotoProcessada {
+        private String hashOrigem;       // SHA-256 do arquivo enviado
+        private long tamanhoOrigem;
+        private Map<FotoRendicao, ImagemProcessada> rendicoes;
+    }
+
+    // Arquivo maior que app.vantagens.foto.tamanho-maximo (HTTP 413)
+    public static class TamanhoMaximoExcedidoException extends IllegalArgumentException {
+        public TamanhoMaximoExcedidoException(long limite) {
+            super("A imagem excede o tamanho máximo de " + (limite / (1024 * 1024)) + "MB");
+        }
+    }
+
+    public long getTamanhoMaximo() {
+        return tamanhoMaximo.toBytes();
+    }
+
+    public FotoProcessada processar(byte[] original) {
+        return processar(new ByteArrayInputStream(original));
+    }
+
+    // Lê a imagem do stream (sem fechá-lo), interrompendo assim que passar do tamanho máximo
+    public FotoProcessada processar(InputStream entrada) {
+        EntradaLimitada limitada = new EntradaLimitada(entrada, getTamanhoMaximo());
+        BufferedImage base;
+        try {
+            base = decodificar(limitada);
+            limitada.transferTo(OutputStream.nullOutputStream()); // o hash cobre o arquivo inteiro
+        } catch (IOException | RuntimeException e) {
+            if (limitada.isExcedeu()) {
+                throw new TamanhoMaximoExcedidoException(getTamanhoMaximo());
+            }
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalArgumentException("Não foi possível ler a imagem: " + e.getMessage());
+        }
+
+        Map<FotoRendicao, ImagemProcessada> rendicoes = new EnumMap<>(FotoRendicao.class);
+        for (FotoRendicao rendicao : FotoRendicao.values()) {
+            BufferedImage redimensionada = redimensionar(base, rendicao.getLadoMaximo());
+            byte[] jpeg = codificarJpeg(redimensionada, rendicao.getQualidadeJpeg());
+            rendicoes.put(rendicao, new ImagemProcessada(
+                jpeg,
+                hex(sha256().digest(jpeg)),
+                redimensionada.getWidth(),
+                redimensionada.getHeight()
+            ));
+        }
+
+        log.info("Foto processada: original {} bytes -> {}", limitada.getLidos(),
+                rendicoes.entrySet().stream()
+                        .map(e -> e.getKey() + " " + e.getValue().getLargura() + "x" + e.getValue().getAltura()
+                                + " " + e.getValue().getDados().length + " bytes")
+                        .collect(Collectors.joining(", ")));
+        return new FotoProcessada(hex(limitada.getDigest().digest()), limitada.getLidos(), rendicoes);
+    }
+
+    // Decodifica a imagem já subamostrada para ~2x o maior lado necessário, convertida para RGB
+    private BufferedImage decodificar(InputStream original) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> leitores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (leitores == null || !leitores.hasNext()) {
+                throw new IllegalArgumentException("Formato de imagem não suportado. Envie JPEG, PNG, GIF ou BMP");
+            }
+
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(entrada, true, true);
+                int largura = leitor.getWidth(0);
+                int altura = leitor.getHeight(0);
+                if ((long) largura * altura > maxMegapixels * 1_000_000L) {
+                    throw new IllegalArgumentException(String.format(
+                        "Imagem muito grande: %dx%d pixels (máximo %d megapixels)", largura, altura, maxMegapixels));
+                }
+
+                int maiorRendicao = Arrays.stream(FotoRendicao.values()).mapToInt(FotoRendicao::getLadoMaximo).max().orElse(1);
+                int fator = Math.max(1, Math.max(largura, altura) / (2 * maiorRendicao));
+                ImageReadParam parametros = leitor.getDefaultReadParam();
+                parametros.setSourceSubsampling(fator, fator, 0, 0);
+
+                BufferedImage imagem = leitor.read(0, parametros);
+                log.debug("Imagem {} {}x{} decodificada com subamostragem {}", leitor.getFormatName(), largura, altura, fator);
+                return paraRgb(imagem);
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    // JPEG não tem transparência: fundo branco em vez de preto para PNG/GIF transparentes
+    private BufferedImage paraRgb(BufferedImage imagem) {
+        if (imagem.getType() == BufferedImage.TYPE_INT_RGB) {
+            return imagem;
+        }
+        BufferedImage rgb = new BufferedImage(imagem.getWidth(), imagem.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+            g.drawImage(imagem, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    // Reduz em etapas de no máximo 50% (interpolação bilinear), o que evita o serrilhado de uma redução direta grande.
+    // Imagens menores que o alvo não são ampliadas.
+    private BufferedImage redimensionar(BufferedImage imagem, int ladoMaximo) {
+        int maiorLado = Math.max(imagem.getWidth(), imagem.getHeight());
+        if (maiorLado <= ladoMaximo) {
+            return imagem;
+        }
+        double escala = (double) ladoMaximo / maiorLado;
+        int larguraFinal = Math.max(1, (int) Math.round(imagem.getWidth() * escala));
+        int alturaFinal = Math.max(1, (int) Math.round(imagem.getHeight() * escala));
+
+        BufferedImage atual = imagem;
+        int largura = imagem.getWidth();
+        int altura = imagem.getHeight();
+        do {
+            largura = Math.max(larguraFinal, largura / 2);
+            altura = Math.max(alturaFinal, altura / 2);
+
+            BufferedImage proxima = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = proxima.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(atual, 0, 0, largura, altura, null);
+            } finally {
+                g.dispose();
+            }
+            atual = proxima;
+        } while (largura != larguraFinal || altura != alturaFinal);
+
+        return atual;
+    }
+
+    private byte[] codificarJpeg(BufferedImage imagem, float qualidade) {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ImageOutputStream destino = ImageIO.createImageOutputStream(saida)) {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(qualidade);
+            escritor.setOutput(destino);
+            escritor.write(null, new IIOImage(imagem, null, null), parametros);
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao gerar JPEG da foto", e);
+        } finally {
+            escritor.dispose();
+        }
+        return saida.toByteArray();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    // Conta e calcula o hash dos bytes lidos; passa do limite -> IOException (e marca excedeu)
+    private static class EntradaLimitada extends FilterInputStream {
+
+        private final long limite;
+        private final MessageDigest digest = sha256();
+        private long lidos = 0;
+        private boolean excedeu = false;
+
+        EntradaLimitada(InputStream entrada, long limite) {
+            super(entrada);
+            this.limite = limite;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                contar(1);
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int inicio, int tamanho) throws IOException {
+            int n = super.read(buffer, inicio, tamanho);
+            if (n > 0) {
+                contar(n);
+                digest.update(buffer, inicio, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skip não passaria pelo hash: lê e descarta
+            byte[] descarte = new byte[(int) Math.min(n, 8192)];
+            int lidosAgora = read(descarte, 0, descarte.length);
+            return Math.max(lidosAgora, 0);
+        }
+
+        @Override
+        public void close() {
+            // quem abriu o stream (a requisição HTTP) é quem fecha
+        }
+
+        private void contar(int n) throws IOException {
+            lidos += n;
+            if (lidos > limite) {
+                excedeu = true;
+                throw new IOException("Tamanho máximo excedido");
+            }
+        }
+
+        long getLidos() {
+            return lidos;
+        }
+
+        boolean isExcedeu() {
+            return excedeu;
+        }
+
+        MessageDigest getDigest() {
+            return digest;
+        }
+    }
+}
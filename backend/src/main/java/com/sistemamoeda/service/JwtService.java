@@ -1,68 +1,165 @@
 package com.sistemamoeda.service;
 
+import com.sistemamoeda.model.TipoUsuario;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.security.core.userdetails.UserDetails;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.nio.charset.StandardCharsets;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
+// Emissão e verificação dos tokens. Cada login emite um par: um token de acesso de vida curta (uso = acesso) e um
+// token de renovação (uso = renovacao) que troca o par sem senha em /api/auth/refresh; ambos têm jti para revogação
+// (RevogacaoTokens). A chave e o parser são criados uma única vez (ambos imutáveis e seguros entre
+// threads). Tokens já verificados ficam num cache limitado, pelo SHA-256 do token, até expirarem: a mesma sessão
+// manda o mesmo token em todas as requisições, e só a primeira paga a verificação HMAC e o parse do JSON.
 @Service
 public class JwtService {
 
-    private static final String SECRET_KEY = "segredobemforte123456789segredobemforte123456789";
+    // Claims com o id e o tipo do usuário: o filtro monta a autenticação a partir delas, sem ir ao banco
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_TIPO_USUARIO = "role";
+    public static final String CLAIM_USO = "uso";
+    public static final String USO_ACESSO = "acesso";
+    public static final String USO_RENOVACAO = "renovacao";
+
+    private final Key chave;
+    private final JwtParser parser;
+    private final Duration validadeAcesso;
+    private final Duration validadeRenovacao;
+    private final int maximoCache;
+    private final ConcurrentHashMap<ByteBuffer, Claims> verificados = new ConcurrentHashMap<>();
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(JwtService::novoSha256);
+
+    private final Counter acertos;
+    private final Counter falhas;
 
-    // Gera um token para o usuário
-    public String generateToken(String username) {
+    public JwtService(@Value("${app.jwt.segredo}") String segredo,
+                      @Value("${app.jwt.acesso.validade:15m}") Duration validadeAcesso,
+                      @Value("${app.jwt.renovacao.validade:7d}") Duration validadeRenovacao,
+                      @Value("${app.jwt.cache-tokens:10000}") int maximoCache,
+                      MeterRegistry registry) {
+        // Chave que já esteve no application.properties do repositório: é pública, então recusa
+        if (segredo.startsWith("segredobemforte123456789")) {
+            throw new IllegalStateException("app.jwt.segredo ainda é a chave versionada no repositório; defina APP_JWT_SEGREDO");
+        }
+        this.chave = Keys.hmacShaKeyFor(segredo.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(chave).build();
+        this.validadeAcesso = validadeAcesso;
+        this.validadeRenovacao = validadeRenovacao;
+        this.maximoCache = maximoCache;
+        this.acertos = Counter.builder("jwt.cache")
+                .tag("resultado", "hit")
+                .description("Tokens aceitos pelo cache de tokens já verificados")
+                .register(registry);
+        this.falhas = Counter.builder("jwt.cache")
+                .tag("resultado", "miss")
+                .description("Tokens que precisaram de verificação completa")
+                .register(registry);
+        Gauge.builder("jwt.cache.tokens", verificados, ConcurrentHashMap::size)
+                .description("Tokens verificados mantidos em memória")
+                .register(registry);
+    }
+
+    // Token de acesso: vale por pouco tempo e leva id e tipo do usuário
+    public String gerarAcesso(String username, Long usuarioId, TipoUsuario tipoUsuario) {
+        long agora = System.currentTimeMillis();
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 10000 * 60 * 60 * 10)) // 10 horas
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .claim(CLAIM_USUARIO_ID, usuarioId)
+                .claim(CLAIM_TIPO_USUARIO, tipoUsuario.name())
+                .claim(CLAIM_USO, USO_ACESSO)
+                .setIssuedAt(new Date(agora))
+                .setExpiration(new Date(agora + validadeAcesso.toMillis()))
+                .signWith(chave, SignatureAlgorithm.HS256)
                 .compact();
     }
     
+    // Token de renovação: só serve em /api/auth/refresh (o filtro recusa como acesso) e é trocado a cada uso
+    public String gerarRenovacao(String username, Long usuarioId) {
+        long agora = System.currentTimeMillis();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(username)
+                .claim(CLAIM_USUARIO_ID, usuarioId)
+                .claim(CLAIM_USO, USO_RENOVACAO)
+                .setIssuedAt(new Date(agora))
+                .setExpiration(new Date(agora + validadeRenovacao.toMillis()))
+                .signWith(chave, SignatureAlgorithm.HS256)
+                .compact();
+    }
+    
+    public Duration getValidadeAcesso() {
+        return validadeAcesso;
+    }
+    
     // Extrai o username (subject) do token
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verificar(token).getSubject();
     }
     
-    // Valida o token (verifica se é seu e se não expirou)
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
+    // Verifica assinatura e expiração e devolve as claims; lança JwtException se o token for inválido.
+    // As claims podem vir do cache e são compartilhadas: só leitura.
+    public Claims verificar(String token) {
+        if (maximoCache <= 0) {
+            return parser.parseClaimsJws(token).getBody();
+        }
 
-    // Métodos privados auxiliares
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
+        ByteBuffer resumo = resumo(token);
+        Claims claims = verificados.get(resumo);
+        if (claims != null) {
+            if (claims.getExpiration().getTime() > System.currentTimeMillis()) {
+                acertos.increment();
+                return claims;
+            }
+            verificados.remove(resumo); // expirou: o parse abaixo lança ExpiredJwtException
+        }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        falhas.increment();
+        claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            guardar(resumo, claims);
+        }
+        return claims;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    // Só tokens válidos entram no cache; quando enche, saem os expirados e, se não bastar, todos
+    private void guardar(ByteBuffer resumo, Claims claims) {
+        if (verificados.size() >= maximoCache) {
+            long agora = System.currentTimeMillis();
+            verificados.values().removeIf(c -> c.getExpiration().getTime() <= agora);
+            if (verificados.size() >= maximoCache) {
+                verificados.clear();
+            }
+        }
+        verificados.put(resumo, claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private ByteBuffer resumo(String token) {
+        return ByteBuffer.wrap(sha256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = SECRET_KEY.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static MessageDigest novoSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.TokensResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Login com senha isolado do resto da API. Antes do BCrypt, admite e conta a tentativa na conta e no IP, ou recusa
+// os que já tentaram demais (TentativasLogin);
+// o hash roda no loginExecutor e a thread do Tomcat é liberada enquanto isso (o controller devolve o futuro).
+// Fila cheia ou espera maior que espera-maxima (o cliente provavelmente já desistiu) viram sobrecarga, sem hash.
+@Service
+public class LoginService {
+
+    // Conta (a partir do mesmo IP) ou IP com tentativas demais na janela: tentar de novo depois de tentarEmSegundos
+    public static class TentativasExcedidasException extends RuntimeException {
+        private final long tentarEmSegundos;
+
+        public TentativasExcedidasException(long tentarEmSegundos) {
+            super("Muitas tentativas de login. Tente novamente em " + tentarEmSegundos + " segundos");
+            this.tentarEmSegundos = tentarEmSegundos;
+        }
+
+        public long getTentarEmSegundos() {
+            return tentarEmSegundos;
+        }
+    }
+
+    // Executor de login saturado
+    public static class LoginSobrecarregadoException extends RuntimeException {
+        public LoginSobrecarregadoException() {
+            super("Serviço de login sobrecarregado. Tente novamente em instantes");
+        }
+    }
+
+    private final AuthenticationManager authenticationManager;
+    private final SessaoTokensService sessaoTokens;
+    private final TentativasLogin tentativas;
+    private final ThreadPoolTaskExecutor loginExecutor;
+    private final long esperaMaximaNanos;
+
+    private final Timer hashSucesso;
+    private final Timer hashFalha;
+    private final Timer esperaFila;
+    private final Counter recusasConta;
+    private final Counter recusasIp;
+    private final Counter recusasSobrecarga;
+
+    public LoginService(AuthenticationManager authenticationManager,
+                        SessaoTokensService sessaoTokens,
+                        TentativasLogin tentativas,
+                        @Qualifier("loginExecutor") ThreadPoolTaskExecutor loginExecutor,
+                        @Value("${app.login.executor.espera-maxima:2s}") Duration esperaMaxima,
+                        MeterRegistry registry) {
+        this.authenticationManager = authenticationManager;
+        this.sessaoTokens = sessaoTokens;
+        this.tentativas = tentativas;
+        this.loginExecutor = loginExecutor;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.hashSucesso = Timer.builder("login.hash")
+                .tag("resultado", "sucesso")
+                .description("Tempo da verificação de senha (BCrypt) no login")
+                .register(registry);
+        this.hashFalha = Timer.builder("login.hash")
+                .tag("resultado", "falha")
+                .description("Tempo da verificação de senha (BCrypt) no login")
+                .register(registry);
+        this.esperaFila = Timer.builder("login.fila.espera")
+                .description("Tempo entre a chegada do login e o início da verificação de senha")
+                .register(registry);
+        this.recusasConta = recusas(registry, "limite_conta");
+        this.recusasIp = recusas(registry, "limite_ip");
+        this.recusasSobrecarga = recusas(registry, "sobrecarga");
+    }
+
+    // Autentica no loginExecutor e, se a senha confere, emite o par de tokens. O futuro termina com
+    // TentativasExcedidasException, LoginSobrecarregadoException ou AuthenticationException nas recusas
+    public CompletableFuture<TokensResponseDTO> entrar(String email, String senha, String ip) {
+        long bloqueio = tentativas.admitirConta(email, ip);
+        if (bloqueio > 0) {
+            recusasConta.increment();
+            return CompletableFuture.failedFuture(new TentativasExcedidasException(bloqueio));
+        }
+        bloqueio = tentativas.admitirIp(ip);
+        if (bloqueio > 0) {
+            tentativas.devolverConta(email, ip);
+            recusasIp.increment();
+            return CompletableFuture.failedFuture(new TentativasExcedidasException(bloqueio));
+        }
+
+        long chegada = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> autenticar(email, senha, ip, chegada), loginExecutor);
+        } catch (RejectedExecutionException e) {
+            tentativas.devolver(email, ip);
+            recusasSobrecarga.increment();
+            return CompletableFuture.failedFuture(new LoginSobrecarregadoException());
+        }
+    }
+
+    private TokensResponseDTO autenticar(String email, String senha, String ip, long chegada) {
+        long inicio = System.nanoTime();
+        esperaFila.record(inicio - chegada, TimeUnit.NANOSECONDS);
+        if (inicio - chegada > esperaMaximaNanos) {
+            tentativas.devolver(email, ip);
+            recusasSobrecarga.increment();
+            throw new LoginSobrecarregadoException();
+        }
+
+        try {
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, senha));
+            hashSucesso.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        } catch (AuthenticationException e) {
+            // A falha já foi contada na admissão
+            hashFalha.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        tentativas.registrarSucesso(email, ip);
+        return sessaoTokens.emitir(email);
+    }
+
+    private static Counter recusas(MeterRegistry registry, String motivo) {
+        return Counter.builder("login.recusas")
+                .tag("motivo", motivo)
+                .description("Logins recusados antes da verificação de senha")
+                .register(registry);
+    }
+}
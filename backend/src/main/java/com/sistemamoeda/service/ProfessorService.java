@@ -28,6 +28,7 @@ public class ProfessorService {
     private final UsuarioRepository usuarioRepository;
     private final InstituicaoRepository instituicaoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UsuariosAtivosCache usuariosAtivos;
     
     // Criar novo professor
     public ProfessorResponseDTO criarProfessor(ProfessorRequestDTO request) {
@@ -106,6 +107,9 @@ public class ProfessorService {
         }
         
         // Atualizar dados do usuário
+        if (!usuario.getEmail().equals(request.getEmail().trim())) {
+            usuariosAtivos.invalidarAposCommit(usuario.getEmail());
+        }
         usuario.setNome(request.getNome().trim());
         usuario.setEmail(request.getEmail().trim());
         
@@ -136,8 +140,13 @@ public class ProfessorService {
         Professor professor = professorRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Professor não encontrado"));
         
-        // Deletar professor (vai deletar o usuário em cascata)
+        // O usuário não é removido junto (transações e cupons continuam apontando para ele): fica desativado, sem
+        // login, e os tokens já emitidos deixam de valer assim que a remoção for confirmada
+        Usuario usuario = professor.getUsuario();
         professorRepository.delete(professor);
+        usuario.setAtivo(false);
+        usuarioRepository.save(usuario);
+        usuariosAtivos.invalidarAposCommit(usuario.getEmail());
     }
     
     // Buscar professores por instituição
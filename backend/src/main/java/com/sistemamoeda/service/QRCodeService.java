@@ -1,28 +1,70 @@
 package com.sistemamoeda.service;
 
-import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
+// QR codes dos cupons. A matriz de módulos vem direto do Encoder do ZXing e é desenhada em escala inteira
+// (cada módulo vira um quadrado de N pixels, sem reamostragem), gravada como PNG de 1 bit por pixel sem passar
+// por BufferedImage/ImageIO, ou como SVG com um único path. As imagens geradas ficam num cache LRU limitado pelo
+// total de bytes, já que o mesmo cupom é desenhado de novo a cada transferência e a cada acesso a /api/cupons/{codigo}/qrcode.
 @Service
 public class QRCodeService {
 
-    public String gerarQRCodeParaArquivo(String conteudo, String nomeArquivo) {
-        try {
-            int largura = 300;
-            int altura = 300;
-            QRCodeWriter writer = new QRCodeWriter();
+    private static final int TAMANHO_ALVO = 300;
+    private static final int ZONA_SILENCIOSA = 4;   // módulos de margem exigidos pela especificação
+    private static final ErrorCorrectionLevel CORRECAO = ErrorCorrectionLevel.L;
+
+    private static final byte[] ASSINATURA_PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final long maxBytesCache;
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesEmCache = 0;
 
-            var bitMatrix = writer.encode(conteudo, BarcodeFormat.QR_CODE, largura, altura);
+    private final Counter acertos;
+    private final Counter falhas;
 
+    public QRCodeService(@Value("${app.qrcode.cache.tamanho-maximo:4MB}") DataSize tamanhoMaximoCache,
+                         MeterRegistry registry) {
+        this.maxBytesCache = tamanhoMaximoCache.toBytes();
+        this.acertos = Counter.builder("qrcode.cache")
+                .tag("resultado", "hit")
+                .description("QR codes servidos pelo cache")
+                .register(registry);
+        this.falhas = Counter.builder("qrcode.cache")
+                .tag("resultado", "miss")
+                .description("QR codes que precisaram ser gerados")
+                .register(registry);
+        Gauge.builder("qrcode.cache.bytes", this, s -> s.bytesEmCache())
+                .baseUnit("bytes")
+                .description("Bytes de imagens mantidos no cache de QR codes")
+                .register(registry);
+    }
+
+    public String gerarQRCodeParaArquivo(String conteudo, String nomeArquivo) {
+        try {
             File pasta = new File("qrcodes");
             if (!pasta.exists() && !pasta.mkdirs()) {
                 throw new IOException("Não foi possível criar pasta para qrcodes");
@@ -32,28 +74,202 @@ public class QRCodeService {
             String unico = nomeArquivo + "-" + UUID.randomUUID().toString().substring(0,8);
             Path caminho = Path.of(pasta.getPath(), unico + ".png");
 
-            MatrixToImageWriter.writeToPath(bitMatrix, "PNG", caminho);
+            Files.write(caminho, gerarQRCodeBytes(conteudo));
 
             return caminho.toString();
-        } catch (WriterException | IOException e) {
+        } catch (IOException e) {
             throw new RuntimeException("Erro ao gerar QR Code", e);
         }
     }
 
+    // PNG do QR code (~300px). O array é compartilhado pelo cache: quem recebe não deve alterá-lo.
     public byte[] gerarQRCodeBytes(String conteudo) {
+        return obter("png:", conteudo);
+    }
+
+    // SVG do QR code (UTF-8), escalável, com a zona silenciosa incluída. Mesmo cuidado com o array compartilhado.
+    public byte[] gerarQRCodeSvg(String conteudo) {
+        return obter("svg:", conteudo);
+    }
+
+    // Módulos do QR code (1 = escuro), sem zona silenciosa
+    public ByteMatrix gerarMatriz(String conteudo) {
         try {
-            int largura = 300;
-            int altura = 300;
-            QRCodeWriter writer = new QRCodeWriter();
+            return Encoder.encode(conteudo, CORRECAO).getMatrix();
+        } catch (WriterException e) {
+            throw new RuntimeException("Erro ao gerar QR Code", e);
+        }
+    }
 
-            var bitMatrix = writer.encode(conteudo, BarcodeFormat.QR_CODE, largura, altura);
+    private byte[] obter(String formato, String conteudo) {
+        String chave = formato + conteudo;
+        byte[] imagem;
+        synchronized (cache) {
+            imagem = cache.get(chave);
+        }
+        if (imagem != null) {
+            acertos.increment();
+            return imagem;
+        }
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", baos);
+        falhas.increment();
+        ByteMatrix matriz = gerarMatriz(conteudo);
+        imagem = formato.equals("svg:") ? codificarSvg(matriz) : codificarPng(matriz);
+        guardar(chave, imagem);
+        return imagem;
+    }
 
-            return baos.toByteArray();
-        } catch (WriterException | IOException e) {
-            throw new RuntimeException("Erro ao gerar QR Code bytes", e);
+    private void guardar(String chave, byte[] imagem) {
+        long tamanho = tamanhoEntrada(chave, imagem);
+        if (tamanho > maxBytesCache) {
+            return;
         }
+        synchronized (cache) {
+            byte[] anterior = cache.put(chave, imagem);
+            if (anterior != null) {
+                bytesEmCache -= tamanhoEntrada(chave, anterior);
+            }
+            bytesEmCache += tamanho;
+
+            // Remove os menos usados recentemente até caber no limite
+            Iterator<Map.Entry<String, byte[]>> entradas = cache.entrySet().iterator();
+            while (bytesEmCache > maxBytesCache && entradas.hasNext()) {
+                Map.Entry<String, byte[]> maisAntiga = entradas.next();
+                bytesEmCache -= tamanhoEntrada(maisAntiga.getKey(), maisAntiga.getValue());
+                entradas.remove();
+            }
+        }
+    }
+
+    private long bytesEmCache() {
+        synchronized (cache) {
+            return bytesEmCache;
+        }
+    }
+
+    // Imagem + chave (UTF-16) + custo aproximado da entrada no mapa
+    private static long tamanhoEntrada(String chave, byte[] imagem) {
+        return imagem.length + 2L * chave.length() + 64;
+    }
+
+    // PNG em tons de cinza com 1 bit por pixel (0 = preto, 1 = branco). Cada linha de módulos gera uma única
+    // linha de pixels, repetida "escala" vezes; o deflate comprime as repetições quase a zero.
+    private static byte[] codificarPng(ByteMatrix matriz) {
+        int modulos = matriz.getWidth() + 2 * ZONA_SILENCIOSA;
+        int escala = Math.max(1, TAMANHO_ALVO / modulos);
+        int lado = modulos * escala;
+        int bytesPorLinha = (lado + 7) / 8;
+
+        ByteArrayOutputStream imagem = new ByteArrayOutputStream(1024);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            byte[] branca = linhaPixels(null, 0, escala, bytesPorLinha);
+            byte[] linha = branca;
+            byte[] comprimido = new byte[4096];
+            for (int y = 0; y < lado; y++) {
+                int moduloY = y / escala - ZONA_SILENCIOSA;
+                if (moduloY < 0 || moduloY >= matriz.getHeight()) {
+                    linha = branca;
+                } else if (y % escala == 0) {
+                    // Só a primeira linha de pixels de cada módulo é calculada; as outras repetem a mesma
+                    linha = linhaPixels(matriz, moduloY, escala, bytesPorLinha);
+                }
+                deflater.setInput(linha);
+                while (!deflater.needsInput()) {
+                    int n = deflater.deflate(comprimido);
+                    imagem.write(comprimido, 0, n);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(comprimido);
+                imagem.write(comprimido, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream(imagem.size() + 64);
+            DataOutputStream saida = new DataOutputStream(png);
+            saida.write(ASSINATURA_PNG);
+
+            ByteArrayOutputStream cabecalho = new ByteArrayOutputStream(13);
+            DataOutputStream ihdr = new DataOutputStream(cabecalho);
+            ihdr.writeInt(lado);    // largura
+            ihdr.writeInt(lado);    // altura
+            ihdr.writeByte(1);      // bits por pixel
+            ihdr.writeByte(0);      // tons de cinza
+            ihdr.writeByte(0);      // compressão deflate
+            ihdr.writeByte(0);      // filtro padrão
+            ihdr.writeByte(0);      // sem entrelaçamento
+            escreverChunk(saida, "IHDR", cabecalho.toByteArray());
+            escreverChunk(saida, "IDAT", imagem.toByteArray());
+            escreverChunk(saida, "IEND", new byte[0]);
+            return png.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao gerar PNG do QR Code", e);
+        }
+    }
+
+    // SVG em unidades de módulo: cada sequência horizontal de módulos escuros vira um traço "M x y h n" de
+    // espessura 1 no mesmo path, sem um retângulo por módulo
+    private static byte[] codificarSvg(ByteMatrix matriz) {
+        int modulos = matriz.getWidth() + 2 * ZONA_SILENCIOSA;
+        StringBuilder svg = new StringBuilder(256 + matriz.getWidth() * matriz.getHeight());
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(modulos).append(' ').append(modulos)
+                .append("\" width=\"").append(TAMANHO_ALVO).append("\" height=\"").append(TAMANHO_ALVO)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path stroke=\"#000\" d=\"");
+        for (int y = 0; y < matriz.getHeight(); y++) {
+            int x = 0;
+            while (x < matriz.getWidth()) {
+                if (matriz.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int inicio = x;
+                while (x < matriz.getWidth() && matriz.get(x, y) == 1) {
+                    x++;
+                }
+                // O traço passa pelo meio da linha (y + 0,5) para cobrir exatamente o módulo
+                svg.append('M').append(inicio + ZONA_SILENCIOSA).append(' ').append(y + ZONA_SILENCIOSA).append(".5h")
+                        .append(x - inicio);
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Linha de pixels com o byte de filtro (0 = nenhum) na frente; matriz null = linha toda branca
+    private static byte[] linhaPixels(ByteMatrix matriz, int moduloY, int escala, int bytesPorLinha) {
+        byte[] linha = new byte[1 + bytesPorLinha];
+        Arrays.fill(linha, 1, linha.length, (byte) 0xFF);
+        if (matriz == null) {
+            return linha;
+        }
+        for (int x = 0; x < matriz.getWidth(); x++) {
+            if (matriz.get(x, moduloY) != 1) {
+                continue;
+            }
+            int inicio = (x + ZONA_SILENCIOSA) * escala;
+            for (int px = inicio; px < inicio + escala; px++) {
+                linha[1 + (px >> 3)] &= (byte) ~(0x80 >>> (px & 7));
+            }
+        }
+        return linha;
+    }
+
+    private static void escreverChunk(DataOutputStream saida, String tipo, byte[] dados) throws IOException {
+        byte[] tipoBytes = tipo.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(tipoBytes);
+        crc.update(dados);
+
+        saida.writeInt(dados.length);
+        saida.write(tipoBytes);
+        saida.write(dados);
+        saida.writeInt((int) crc.getValue());
     }
 }
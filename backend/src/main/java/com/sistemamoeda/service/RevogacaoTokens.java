@@ -0,0 +1,101 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.model.TokenRevogado;
+import com.sistemamoeda.repository.TokenRevogadoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Conjunto em memória dos jti revogados (jti -> vencimento), consultado pelo filtro JWT sem ir ao banco. Só entram
+// tokens revogados que ainda não venceram, então o conjunto fica pequeno e não precisa de filtro de Bloom.
+// A tabela token_revogado é a fonte: a carga completa acontece na inicialização e depois cada instância lê só as
+// linhas novas a cada poucos segundos, então uma revogação feita em outro nó vale aqui em no máximo esse intervalo.
+@Component
+public class RevogacaoTokens {
+
+    // A leitura incremental volta alguns ids: com IDENTITY, um id menor pode ser confirmado depois de um maior
+    private static final int JANELA_IDS = 64;
+    private static final int TAMANHO_PAGINA = 5000;
+
+    private final TokenRevogadoRepository tokenRevogadoRepository;
+    private final Logger log = LoggerFactory.getLogger(RevogacaoTokens.class);
+
+    private final ConcurrentHashMap<String, Long> revogados = new ConcurrentHashMap<>();
+    private long ultimoId = 0;
+
+    public RevogacaoTokens(TokenRevogadoRepository tokenRevogadoRepository, MeterRegistry registry) {
+        this.tokenRevogadoRepository = tokenRevogadoRepository;
+        Gauge.builder("jwt.revogados", revogados, ConcurrentHashMap::size)
+                .description("Tokens revogados e ainda não vencidos mantidos em memória")
+                .register(registry);
+
+        atualizar();
+        log.info("Tokens revogados carregados: {}", revogados.size());
+    }
+
+    public boolean revogado(String jti) {
+        return jti != null && revogados.containsKey(jti);
+    }
+
+    // Revoga o jti até o vencimento do token. Retorna false se ele já estava revogado (aqui ou em outra instância),
+    // o que torna o uso de um token de renovação atômico: de duas renovações simultâneas só uma passa
+    public boolean revogar(String jti, Date expiracao) {
+        if (revogado(jti)) {
+            return false;
+        }
+        LocalDateTime expiraEm = LocalDateTime.ofInstant(expiracao.toInstant(), ZoneId.systemDefault());
+        try {
+            tokenRevogadoRepository.saveAndFlush(new TokenRevogado(jti, expiraEm));
+        } catch (DataIntegrityViolationException e) {
+            revogados.put(jti, expiracao.getTime());
+            return false;
+        }
+        revogados.put(jti, expiracao.getTime());
+        return true;
+    }
+
+    // Revogações novas desde a última leitura (de qualquer instância)
+    @Scheduled(fixedDelayString = "${app.jwt.revogacao.atualizacao:5000}", initialDelayString = "${app.jwt.revogacao.atualizacao:5000}")
+    public void atualizar() {
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            long desde = Math.max(0, ultimoId - JANELA_IDS);
+            List<TokenRevogadoRepository.JtiRevogado> pagina;
+            do {
+                pagina = tokenRevogadoRepository.findAtivosAposId(desde, agora, PageRequest.of(0, TAMANHO_PAGINA));
+                for (TokenRevogadoRepository.JtiRevogado revogacao : pagina) {
+                    revogados.put(revogacao.getJti(), revogacao.getExpiraEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                    desde = revogacao.getId();
+                }
+                ultimoId = Math.max(ultimoId, desde);
+            } while (pagina.size() == TAMANHO_PAGINA);
+        } catch (Exception e) {
+            log.warn("Falha ao atualizar os tokens revogados: {}", e.getMessage());
+        }
+    }
+
+    // Tokens vencidos já são recusados pela validade: saem da memória e da tabela
+    @Scheduled(fixedDelayString = "${app.jwt.revogacao.limpeza:3600000}", initialDelayString = "${app.jwt.revogacao.limpeza:3600000}")
+    public void limparVencidos() {
+        long agora = Instant.now().toEpochMilli();
+        revogados.values().removeIf(expiraEm -> expiraEm <= agora);
+        try {
+            tokenRevogadoRepository.deleteVencidos(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Falha ao apagar tokens revogados vencidos: {}", e.getMessage());
+        }
+    }
+}
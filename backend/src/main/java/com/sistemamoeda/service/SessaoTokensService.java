@@ -0,0 +1,87 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.TokensResponseDTO;
+import com.sistemamoeda.repository.UsuarioRepository;
+import com.sistemamoeda.repository.UsuarioRepository.SituacaoUsuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.stereotype.Service;
+
+// Pares de tokens (acesso + renovação): emissão no login, renovação sem senha e logout. A renovação não passa pelo
+// BCrypt: confere a assinatura do token, a revogação em memória e uma consulta leve da situação do usuário.
+@Service
+@RequiredArgsConstructor
+public class SessaoTokensService {
+
+    private final JwtService jwtService;
+    private final RevogacaoTokens revogacoes;
+    private final UsuarioRepository usuarioRepository;
+
+    // Par para um usuário que acabou de se autenticar com senha
+    public TokensResponseDTO emitir(String email) {
+        SituacaoUsuario usuario = usuarioRepository.findSituacaoByEmail(email)
+                .orElseThrow(() -> new BadCredentialsException("Usuário não encontrado"));
+        return par(email, usuario);
+    }
+
+    // Troca um token de renovação válido por um par novo. O token usado é revogado na hora (rotação), então
+    // reapresentá-lo (token copiado ou requisição repetida) é recusado
+    public TokensResponseDTO renovar(String tokenRenovacao) {
+        Claims claims = verificarRenovacao(tokenRenovacao);
+
+        // Consulta direta (não o cache do filtro): a renovação é rara e não deve estender a sessão de uma conta
+        // desativada
+        SituacaoUsuario usuario = usuarioRepository.findSituacaoByEmail(claims.getSubject())
+                .filter(situacao -> Boolean.TRUE.equals(situacao.getAtivo()))
+                .orElseThrow(() -> new DisabledException("Usuário inativo ou inexistente"));
+
+        if (!revogacoes.revogar(claims.getId(), claims.getExpiration())) {
+            throw new BadCredentialsException("Token de renovação já utilizado");
+        }
+        return par(claims.getSubject(), usuario);
+    }
+
+    // Logout: revoga o token de renovação e, se informado, o token de acesso em uso. Tokens inválidos ou
+    // vencidos são ignorados (já não servem para nada)
+    public void encerrar(String tokenRenovacao, String tokenAcesso) {
+        for (String token : new String[]{tokenRenovacao, tokenAcesso}) {
+            if (token == null || token.isBlank()) {
+                continue;
+            }
+            try {
+                Claims claims = jwtService.verificar(token);
+                if (claims.getId() != null) {
+                    revogacoes.revogar(claims.getId(), claims.getExpiration());
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                // nada a revogar
+            }
+        }
+    }
+
+    private Claims verificarRenovacao(String token) {
+        Claims claims;
+        try {
+            claims = jwtService.verificar(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Token de renovação inválido ou expirado");
+        }
+        if (!JwtService.USO_RENOVACAO.equals(claims.get(JwtService.CLAIM_USO, String.class))
+                || claims.getId() == null || revogacoes.revogado(claims.getId())) {
+            throw new BadCredentialsException("Token de renovação inválido ou expirado");
+        }
+        return claims;
+    }
+
+    private TokensResponseDTO par(String email, SituacaoUsuario usuario) {
+        return new TokensResponseDTO(
+                jwtService.gerarAcesso(email, usuario.getId(), usuario.getTipoUsuario()),
+                jwtService.gerarRenovacao(email, usuario.getId()),
+                "Bearer",
+                jwtService.getValidadeAcesso().toSeconds()
+        );
+    }
+}
@@ -0,0 +1,154 @@
+package com.sistemamoeda.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tentativas de login recentes por conta em cada IP (e-mail + IP) e por IP, em janela deslizante, só em memória.
+// Cada tentativa é contada ao ser admitida, antes do BCrypt (conferir e contar é uma operação só): logins
+// simultâneos não passam todos pela conferência antes de a primeira falha ser registrada. Passou do limite, o login
+// é recusado antes do BCrypt: força bruta não consome as threads de hash. O bloqueio da conta vale só para o IP que
+// errou: quem erra a senha de propósito não tranca o dono da conta, que entra de outro IP. O limite por IP (todas as
+// contas) é a proteção grossa, bem mais alta porque uma rede do campus sai por poucos IPs.
+// Login certo zera o contador da conta naquele IP e devolve a tentativa ao IP; tentativa admitida que não chegou ao
+// hash (sobrecarga) é devolvida às duas janelas.
+// Janela deslizante aproximada: contagem da janela atual + a da anterior pesada pelo tempo que ainda se sobrepõe,
+// então cada chave guarda só dois contadores.
+@Component
+public class TentativasLogin {
+
+    private final long janelaMillis;
+    private final int maximoPorConta;
+    private final int maximoPorIp;
+    private final int maximoChaves;
+
+    private final ConcurrentHashMap<String, Janela> porConta = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Janela> porIp = new ConcurrentHashMap<>();
+
+    public TentativasLogin(@Value("${app.login.tentativas.janela:5m}") Duration janela,
+                           @Value("${app.login.tentativas.maximo-conta:5}") int maximoPorConta,
+                           @Value("${app.login.tentativas.maximo-ip:100}") int maximoPorIp,
+                           @Value("${app.login.tentativas.maximo-chaves:100000}") int maximoChaves,
+                           MeterRegistry registry) {
+        this.janelaMillis = janela.toMillis();
+        this.maximoPorConta = maximoPorConta;
+        this.maximoPorIp = maximoPorIp;
+        this.maximoChaves = maximoChaves;
+        Gauge.builder("login.tentativas.chaves", () -> porConta.size() + porIp.size())
+                .description("Pares conta/IP e IPs com falhas de login na janela")
+                .register(registry);
+    }
+
+    // Conta a tentativa da conta a partir deste IP se ainda couber na janela. Devolve os segundos até a conta poder
+    // tentar de novo (0 = admitida e contada; recusada não conta)
+    public long admitirConta(String email, String ip) {
+        return admitir(porConta, chaveConta(email, ip), maximoPorConta);
+    }
+
+    // O mesmo para o IP (todas as contas)
+    public long admitirIp(String ip) {
+        return admitir(porIp, ip, maximoPorIp);
+    }
+
+    // Conta admitida mas IP recusado: a tentativa não aconteceu
+    public void devolverConta(String email, String ip) {
+        devolver(porConta, chaveConta(email, ip));
+    }
+
+    // Tentativa admitida que não chegou ao BCrypt (executor saturado)
+    public void devolver(String email, String ip) {
+        devolver(porConta, chaveConta(email, ip));
+        devolver(porIp, ip);
+    }
+
+    public void registrarSucesso(String email, String ip) {
+        porConta.remove(chaveConta(email, ip));
+        devolver(porIp, ip);
+    }
+
+    // Remove as chaves sem tentativas nas duas últimas janelas
+    @Scheduled(fixedDelayString = "${app.login.tentativas.limpeza:60000}")
+    public void limparVencidas() {
+        long agora = System.currentTimeMillis();
+        porConta.values().removeIf(j -> j.vencida(agora, janelaMillis));
+        porIp.values().removeIf(j -> j.vencida(agora, janelaMillis));
+    }
+
+    // Mapa cheio (ex.: tentativas com milhares de e-mails inventados): limpa as vencidas e, se ainda não couber,
+    // deixa de contar chaves novas em vez de apagar os contadores que já estão bloqueando alguém
+    private long admitir(ConcurrentHashMap<String, Janela> mapa, String chave, int maximo) {
+        long agora = System.currentTimeMillis();
+        Janela janela = mapa.get(chave);
+        if (janela == null) {
+            if (mapa.size() >= maximoChaves) {
+                mapa.values().removeIf(j -> j.vencida(agora, janelaMillis));
+                if (mapa.size() >= maximoChaves) {
+                    return 0;
+                }
+            }
+            janela = mapa.computeIfAbsent(chave, c -> new Janela(agora));
+        }
+        return janela.admitir(agora, janelaMillis, maximo);
+    }
+
+    private void devolver(ConcurrentHashMap<String, Janela> mapa, String chave) {
+        Janela janela = mapa.get(chave);
+        if (janela != null) {
+            janela.devolver(System.currentTimeMillis(), janelaMillis);
+        }
+    }
+
+    private static String chaveConta(String email, String ip) {
+        return (email == null ? "" : email.trim().toLowerCase(Locale.ROOT)) + "|" + ip;
+    }
+
+    private static final class Janela {
+
+        private long inicio;
+        private int anterior;
+        private int atual;
+
+        Janela(long agora) {
+            this.inicio = agora;
+        }
+
+        synchronized long admitir(long agora, long duracao, int maximo) {
+            avancar(agora, duracao);
+            double sobreposicao = 1.0 - (double) (agora - inicio) / duracao;
+            if (anterior * sobreposicao + atual < maximo) {
+                atual++;
+                return 0;
+            }
+            // Estimativa conservadora: até o fim da janela atual
+            return Math.max(1, (inicio + duracao - agora + 999) / 1000);
+        }
+
+        // Se a janela já virou, a tentativa ficou na anterior e some sozinha
+        synchronized void devolver(long agora, long duracao) {
+            avancar(agora, duracao);
+            if (atual > 0) {
+                atual--;
+            }
+        }
+
+        synchronized boolean vencida(long agora, long duracao) {
+            return agora - inicio >= 2 * duracao;
+        }
+
+        private void avancar(long agora, long duracao) {
+            long decorrido = agora - inicio;
+            if (decorrido < duracao) {
+                return;
+            }
+            anterior = decorrido < 2 * duracao ? atual : 0;
+            atual = 0;
+            inicio += (decorrido / duracao) * duracao;
+        }
+    }
+}
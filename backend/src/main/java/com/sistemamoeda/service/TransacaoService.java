@@ -1,24 +1,32 @@
 package com.sistemamoeda.service;
 
-import org.apache.commons.text.StringEscapeUtils;
-import com.sistemamoeda.service.EmailService;
-import com.sistemamoeda.service.QRCodeService;
 import com.sistemamoeda.dto.TransacaoRequestDTO;
 import com.sistemamoeda.dto.TransacaoResponseDTO;
 import com.sistemamoeda.dto.ResgateVantagemRequestDTO;
+import com.sistemamoeda.dto.EnvioMoedasLoteRequestDTO;
+import com.sistemamoeda.dto.ExtratoPaginaDTO;
+import com.sistemamoeda.dto.EnvioMoedasLoteResponseDTO;
+import com.sistemamoeda.dto.ItemEnvioMoedasDTO;
+import com.sistemamoeda.dto.ResultadoEnvioMoedasDTO;
 import com.sistemamoeda.model.*;
 import com.sistemamoeda.repository.*;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Base64;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -32,13 +40,16 @@ public class TransacaoService {
     private final AlunoRepository alunoRepository;
     private final VantagemRepository vantagemRepository;
     private final UsuarioRepository usuarioRepository;
+    private final LoteJdbcRepository loteJdbcRepository;
+    private final TransacoesRecentesBuffer transacoesRecentes;
+    private final EmailOutboxService emailOutbox;
+    private final CupomRepository cupomRepository;
+    private final CodigosCupom codigosCupom;
+    private final EstatisticasTransacaoService estatisticas;
 
-    @Autowired
-    private EmailService emailService;
-   
-    @Autowired
-    private QRCodeService qrCodeService;
-
+    private static final int LIMITE_PADRAO_EXTRATO = 20;
+    private static final int LIMITE_MAXIMO_EXTRATO = 100;
+    private static final LocalDateTime CURSOR_INICIAL_DATA = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
 
     // Enviar moedas (Professor -> Aluno)
@@ -51,11 +62,6 @@ public class TransacaoService {
         Aluno aluno = alunoRepository.findById(request.getDestinatarioId())
                 .orElseThrow(() -> new EntityNotFoundException("Aluno não encontrado"));
         
-        // Verificar se professor tem saldo suficiente
-        if (!professor.podeEnviar(request.getValor())) {
-            throw new IllegalArgumentException("Professor não possui saldo suficiente. Saldo atual: " + professor.getSaldoMoedas());
-        }
-        
         // Validar valor
         if (request.getValor().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Valor deve ser maior que zero");
@@ -66,13 +72,13 @@ public class TransacaoService {
             throw new IllegalArgumentException("Motivo/descrição é obrigatório para envio de moedas");
         }
         
-        // Realizar transferência
-        professor.enviarMoedas(request.getValor());
-        aluno.adicionarMoedas(request.getValor());
-        
-        // Salvar alterações nos usuários
-        professorRepository.save(professor);
-        alunoRepository.save(aluno);
+        // Realizar transferência: a verificação de saldo e o débito acontecem no mesmo UPDATE,
+        // então duas requisições simultâneas nunca gastam o mesmo saldo
+        if (professorRepository.debitarSaldo(professor.getId(), request.getValor()) == 0) {
+            throw new IllegalArgumentException("Professor não possui saldo suficiente. Saldo atual: "
+                    + professorRepository.findSaldoMoedasById(professor.getId()));
+        }
+        alunoRepository.creditarSaldo(aluno.getId(), request.getValor());
         
         // Criar registro de transação
         Transacao transacao = new Transacao(
@@ -84,45 +90,109 @@ public class TransacaoService {
         );
         
         transacao = transacaoRepository.save(transacao);
+        estatisticas.registrar(transacao);
+        TransacaoResponseDTO response = convertToResponseDTO(transacao);
+        transacoesRecentes.adicionarAposCommit(response);
         
-        // Envio de e-mails automáticos de confirmação
-try {
-    String emailProfessor = professor.getUsuario().getEmail();
-    String emailAluno = aluno.getUsuario().getEmail();
-    String nomeProfessor = professor.getUsuario().getNome();
-    String nomeAluno = aluno.getUsuario().getNome();
-    double valor = transacao.getValor().doubleValue();
-
-    // Mensagem para o professor
-    String msgProfessor = String.format(
-        "Você acabou de enviar %.2f moedas ao aluno %s.",
-        valor, nomeAluno
-    );
-    emailService.enviarEmailSimples(
-        emailProfessor,
-        "Confirmação de envio de moedas",
-        msgProfessor
-    );
-
-    // Mensagem para o aluno
-    String msgAluno = String.format(
-        "Você acabou de receber %.2f moedas enviadas pelo professor %s.",
-        valor, nomeProfessor
-    );
-    // Envia e-mail HTML com GIF aleatório para o aluno
-    emailService.enviarEmailHtmlComGif(
-        emailAluno,
-        "Você recebeu novas moedas!",
-        msgAluno
-    );
-
-    System.out.println("📧 E-mails de confirmação enviados com sucesso!");
-} catch (Exception e) {
-    System.err.println("⚠️ Falha ao enviar e-mails de confirmação: " + e.getMessage());
-}
+        // E-mails de confirmação: gravados na outbox nesta mesma transação e enviados depois do commit
+        String nomeProfessor = professor.getUsuario().getNome();
+        String nomeAluno = aluno.getUsuario().getNome();
+        double valor = transacao.getValor().doubleValue();
+        emailOutbox.registrarTexto(
+            professor.getUsuario().getEmail(),
+            "Confirmação de envio de moedas",
+            String.format("Você acabou de enviar %.2f moedas ao aluno %s.", valor, nomeAluno)
+        );
+        emailOutbox.registrarMoedasRecebidas(
+            aluno.getUsuario().getEmail(),
+            String.format("Você acabou de receber %.2f moedas enviadas pelo professor %s.", valor, nomeProfessor)
+        );
 
         
-        return convertToResponseDTO(transacao);
+        return response;
+    }
+    
+    // Enviar moedas em lote (Professor -> vários Alunos) em uma única transação
+    public EnvioMoedasLoteResponseDTO enviarMoedasEmLote(EnvioMoedasLoteRequestDTO request) {
+        Professor professor = professorRepository.findById(request.getRemetenteId())
+                .orElseThrow(() -> new EntityNotFoundException("Professor não encontrado"));
+        
+        // Uma única consulta para todos os alunos do lote
+        Map<Long, Aluno> alunos = new HashMap<>();
+        alunoRepository.findAllComUsuarioByIdIn(
+                request.getItens().stream().map(ItemEnvioMoedasDTO::getAlunoId).collect(Collectors.toSet())
+        ).forEach(aluno -> alunos.put(aluno.getId(), aluno));
+        
+        List<ResultadoEnvioMoedasDTO> resultados = new ArrayList<>();
+        List<ResultadoEnvioMoedasDTO> resultadosEnviados = new ArrayList<>();
+        List<Transacao> transacoes = new ArrayList<>();
+        Map<Long, BigDecimal> creditos = new LinkedHashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        
+        for (ItemEnvioMoedasDTO item : request.getItens()) {
+            Aluno aluno = alunos.get(item.getAlunoId());
+            if (aluno == null) {
+                resultados.add(new ResultadoEnvioMoedasDTO(item.getAlunoId(), null, item.getValor(), false, null, "Aluno não encontrado"));
+                continue;
+            }
+            
+            transacoes.add(new Transacao(
+                TipoTransacao.ENVIO_MOEDA,
+                item.getValor(),
+                item.getDescricao().trim(),
+                professor.getUsuario(),
+                aluno.getUsuario()
+            ));
+            creditos.merge(aluno.getId(), item.getValor(), BigDecimal::add);
+            total = total.add(item.getValor());
+            
+            ResultadoEnvioMoedasDTO resultado = new ResultadoEnvioMoedasDTO(
+                aluno.getId(), aluno.getUsuario().getNome(), item.getValor(), true, null, null);
+            resultados.add(resultado);
+            resultadosEnviados.add(resultado);
+        }
+        
+        if (transacoes.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum aluno válido no lote");
+        }
+        
+        // O orçamento do professor é validado uma única vez, para o total do lote
+        if (professorRepository.debitarSaldo(professor.getId(), total) == 0) {
+            throw new IllegalArgumentException("Professor não possui saldo suficiente para o lote. Saldo atual: "
+                    + professorRepository.findSaldoMoedasById(professor.getId()) + " | Total do lote: " + total);
+        }
+        
+        loteJdbcRepository.creditarAlunos(creditos);
+        loteJdbcRepository.inserirTransacoes(transacoes);
+        estatisticas.registrarTodas(transacoes);
+        
+        for (int i = 0; i < transacoes.size(); i++) {
+            resultadosEnviados.get(i).setTransacaoId(transacoes.get(i).getId());
+        }
+        transacoesRecentes.adicionarTodasAposCommit(
+            transacoes.stream().map(this::convertToResponseDTO).collect(Collectors.toList()));
+        
+        // E-mails: um para cada aluno (insert em batch na outbox) e um único resumo para o professor
+        String nomeProfessor = professor.getUsuario().getNome();
+        emailOutbox.registrarTodos(transacoes.stream()
+            .map(transacao -> emailOutbox.criarMoedasRecebidas(
+                transacao.getDestinatario().getEmail(),
+                String.format("Você acabou de receber %.2f moedas enviadas pelo professor %s.",
+                    transacao.getValor().doubleValue(), nomeProfessor)))
+            .collect(Collectors.toList()));
+        emailOutbox.registrarTexto(
+            professor.getUsuario().getEmail(),
+            "Confirmação de envio de moedas",
+            String.format("Você acabou de enviar %.2f moedas para %d aluno(s).", total.doubleValue(), transacoes.size())
+        );
+        
+        return new EnvioMoedasLoteResponseDTO(
+            professor.getId(),
+            total,
+            transacoes.size(),
+            resultados.size() - transacoes.size(),
+            resultados
+        );
     }
     
     // Resgatar vantagem (Aluno -> Empresa)
@@ -141,18 +211,16 @@ try {
             throw new IllegalArgumentException("Vantagem não está ativa");
         }
 
-        // Verificar saldo
-        if (!aluno.podeGastar(vantagem.getCustoMoedas())) {
+        // Verificar saldo e descontar moedas em um único UPDATE condicional
+        if (alunoRepository.debitarSaldo(aluno.getId(), vantagem.getCustoMoedas()) == 0) {
             throw new IllegalArgumentException("Saldo insuficiente. Saldo atual: "
-                    + aluno.getSaldoMoedas() + " | Custo: " + vantagem.getCustoMoedas());
+                    + alunoRepository.findSaldoMoedasById(aluno.getId()) + " | Custo: " + vantagem.getCustoMoedas());
         }
 
-        // Descontar moedas
-        aluno.gastarMoedas(vantagem.getCustoMoedas());
-        alunoRepository.save(aluno);
-
-        // Gerar cupom
-        String codigoCupom = generateCupomCode();
+        // Gerar cupom: o INSERT devolve o id, que vai assinado dentro do código
+        Cupom cupom = cupomRepository.save(new Cupom(vantagem, aluno.getUsuario()));
+        String codigoCupom = codigosCupom.gerar(cupom.getId(), vantagem.getId());
+        cupom.setCodigo(codigoCupom);
 
         // Registrar transação
         Transacao transacao = new Transacao(
@@ -165,137 +233,94 @@ try {
         );
 
         transacao = transacaoRepository.save(transacao);
-
-
-        try {
-            String emailAluno = aluno.getUsuario().getEmail();
-            String nomeAluno = aluno.getUsuario().getNome();
-            String assuntoAluno = "Seu cupom: " + codigoCupom;
-
-            // HTML agora utiliza CID ao invés de Base64
-            String mensagemAlunoHtml = String.format("""
-            <html>
-            <body style="font-family: Arial; background:#f7f7f7; padding:20px;">
-                <div style="max-width:600px;margin:auto;background:white;padding:25px;border-radius:10px">
-                    
-                    <h2 style="text-align:center;color:#333">🎉 Seu Cupom Está Pronto!</h2>
-
-                    <p>Olá <b>%s</b>, obrigado por resgatar a vantagem:</p>
-
-                    <div style="padding:10px;background:#eef5ff;border-left:4px solid #4a90e2;border-radius:5px;margin:10px 0">
-                        <b>%s</b>
-                    </div>
-
-                    <!-- Agora a imagem é carregada via CID -->
-                    <div style="text-align:center;margin:20px 0">
-                        <img src="cid:imagemVantagem" style="max-width:300px;width:100%%;border-radius:12px"/>
-                    </div>
-
-                    <p>Use o código abaixo para resgatar sua vantagem:</p>
-
-                    <div style="background:#fff3cd;border-left:4px solid #f0ad4e;padding:10px;font-size:20px;margin:10px 0">
-                        <b>%s</b>
-                    </div>
-
-                    <p>Ou utilize o QR Code abaixo:</p>
-
-                    <div style="text-align:center;margin-top:15px">
-                        <img src="cid:qrcodeinline" style="width:250px;height:250px"/>
-                    </div>
-
-                    <p style="margin-top:25px">Atenciosamente,<br><b>Sistema de Moeda</b></p>
-
-                    <hr style="margin-top:30px">
-                    <p style="font-size:12px;color:#777;text-align:center">E-mail automático — não responda</p>
-                </div>
-            </body>
-            </html>
-            """,
-                StringEscapeUtils.escapeHtml4(nomeAluno),
-                StringEscapeUtils.escapeHtml4(vantagem.getNome()),
-                codigoCupom
+        estatisticas.registrar(transacao);
+        TransacaoResponseDTO response = convertToResponseDTO(transacao);
+        transacoesRecentes.adicionarAposCommit(response);
+
+
+        // Cupom para o aluno (HTML, QR code e foto são montados pelo dispatcher da outbox) e aviso para a empresa
+        String nomeAluno = aluno.getUsuario().getNome();
+        emailOutbox.registrarCupomResgatado(aluno.getUsuario().getEmail(), nomeAluno, vantagem, codigoCupom);
+        if (vantagem.getEmpresa() != null && vantagem.getEmpresa().getUsuario() != null) {
+            emailOutbox.registrarTexto(
+                vantagem.getEmpresa().getUsuario().getEmail(),
+                "Novo resgate: " + vantagem.getNome(),
+                "O aluno " + nomeAluno + " resgatou a vantagem.\nCódigo: " + codigoCupom
             );
-
-            // Gera QRCode em bytes
-            byte[] qrBytes = qrCodeService.gerarQRCodeBytes(codigoCupom);
-            byte[] foto = vantagem.getFoto();
-
-            // Envia com Inline CID (foto + qrcode)
-            emailService.enviarCupomComQrCodeInline(emailAluno, assuntoAluno, mensagemAlunoHtml, qrBytes, foto);
-
-
-
-            // Notifica empresa
-            if (vantagem.getEmpresa() != null && vantagem.getEmpresa().getUsuario() != null) {
-                emailService.enviarEmailSimples(
-                        vantagem.getEmpresa().getUsuario().getEmail(),
-                        "Novo resgate: " + vantagem.getNome(),
-                        "O aluno " + nomeAluno + " resgatou a vantagem.\nCódigo: " + codigoCupom
-                );
-            }
-
-        } catch (Exception e) {
-            System.out.println("⚠ Falha ao enviar e-mail: " + e.getMessage());
         }
 
-        return convertToResponseDTO(transacao);
+        return response;
     }
 
 
     
-    // Adicionar crédito semestral para todos os professores
-    public List<TransacaoResponseDTO> adicionarCreditoSemestral() {
-        List<Professor> professores = professorRepository.findAll();
-        
-        return professores.stream().map(professor -> {
-            // Adicionar 1000 moedas
-            professor.adicionarMoedasSemestrais();
-            professorRepository.save(professor);
-            
-            // Criar registro de transação
-            Transacao transacao = new Transacao(
-                TipoTransacao.CREDITO_SEMESTRAL,
-                new BigDecimal("1000.00"),
-                "Crédito semestral automático",
-                professor.getUsuario()
-            );
-            
-            transacao = transacaoRepository.save(transacao);
-            return convertToResponseDTO(transacao);
-        }).collect(Collectors.toList());
-    }
-    
     // Buscar extrato de um usuário
     @Transactional(readOnly = true)
     public List<TransacaoResponseDTO> buscarExtratoUsuario(Long usuarioId) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new EntityNotFoundException("Usuário não encontrado");
+        }
         
-        return transacaoRepository.findExtratoUsuario(usuario)
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return transacaoRepository.findExtratoUsuarioResponseDTO(usuarioId);
+    }
+    
+    // Buscar extrato de um usuário paginado por cursor (keyset em data_transacao, id)
+    @Transactional(readOnly = true)
+    public ExtratoPaginaDTO buscarExtratoUsuarioPaginado(Long usuarioId, String cursor, Integer limite) {
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new EntityNotFoundException("Usuário não encontrado");
+        }
+        
+        int tamanho = limite == null ? LIMITE_PADRAO_EXTRATO : Math.max(1, Math.min(limite, LIMITE_MAXIMO_EXTRATO));
+        
+        // Sem cursor, começa "depois" da maior chave possível
+        LocalDateTime dataCursor = CURSOR_INICIAL_DATA;
+        Long idCursor = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_", 2);
+                dataCursor = LocalDateTime.parse(partes[0]);
+                idCursor = Long.parseLong(partes[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+        
+        // Busca um item a mais para saber se existe próxima página
+        List<Long> ids = transacaoRepository.findIdsExtratoUsuarioAposCursor(usuarioId, dataCursor, idCursor, tamanho + 1);
+        boolean temMais = ids.size() > tamanho;
+        if (temMais) {
+            ids = ids.subList(0, tamanho);
+        }
+        
+        List<TransacaoResponseDTO> transacoes = ids.isEmpty()
+                ? new ArrayList<>()
+                : transacaoRepository.findResponseDTOByIdIn(ids);
+        
+        String nextCursor = null;
+        if (temMais) {
+            TransacaoResponseDTO ultima = transacoes.get(transacoes.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (ultima.getDataTransacao() + "_" + ultima.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        
+        return new ExtratoPaginaDTO(transacoes, nextCursor, temMais);
     }
     
     // Buscar extrato por período
     @Transactional(readOnly = true)
     public List<TransacaoResponseDTO> buscarExtratoPorPeriodo(Long usuarioId, LocalDateTime dataInicio, LocalDateTime dataFim) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
+        if (!usuarioRepository.existsById(usuarioId)) {
+            throw new EntityNotFoundException("Usuário não encontrado");
+        }
         
-        return transacaoRepository.findExtratoUsuarioPorPeriodo(usuario, dataInicio, dataFim)
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return transacaoRepository.findExtratoUsuarioPorPeriodoResponseDTO(usuarioId, dataInicio, dataFim);
     }
     
     // Buscar todas as transações
     @Transactional(readOnly = true)
     public List<TransacaoResponseDTO> listarTodas() {
-        return transacaoRepository.findAll()
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return transacaoRepository.findAllResponseDTO();
     }
     
     // Buscar transação por ID
@@ -310,51 +335,36 @@ try {
     // Buscar transações por tipo
     @Transactional(readOnly = true)
     public List<TransacaoResponseDTO> buscarPorTipo(TipoTransacao tipo) {
-        return transacaoRepository.findByTipoTransacao(tipo)
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return transacaoRepository.findResponseDTOByTipoTransacao(tipo);
     }
     
     // Buscar transações por período
     @Transactional(readOnly = true)
     public List<TransacaoResponseDTO> buscarPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
-        return transacaoRepository.findByDataTransacaoBetween(dataInicio, dataFim)
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return transacaoRepository.findResponseDTOByDataTransacaoBetween(dataInicio, dataFim);
     }
     
     // Buscar por código do cupom
     @Transactional(readOnly = true)
     public TransacaoResponseDTO buscarPorCodigoCupom(String codigoCupom) {
-        Transacao transacao = transacaoRepository.findByCodigoCupom(codigoCupom)
+        Transacao transacao = transacaoRepository.findFirstByCodigoCupomAndTipoTransacao(codigoCupom, TipoTransacao.RESGATE_VANTAGEM)
                 .orElseThrow(() -> new EntityNotFoundException("Cupom não encontrado"));
         
         return convertToResponseDTO(transacao);
     }
     
-    // Buscar transações recentes (últimas 10)
-    @Transactional(readOnly = true)
+    // Buscar transações recentes: servidas do buffer em memória; o banco só é consultado
+    // (com LIMIT) na primeira chamada ou depois de uma invalidação
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<TransacaoResponseDTO> buscarRecentes() {
-        return transacaoRepository.findTop10ByOrderByDataTransacaoDesc()
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return transacoesRecentes.listar(() ->
+                transacaoRepository.findRecentesResponseDTO(PageRequest.of(0, transacoesRecentes.getCapacidade())));
     }
 
     // Transferir/ trocar uma vantagem (cupom) entre alunos
 // Transferir/ trocar uma vantagem (cupom) entre alunos
     public TransacaoResponseDTO transferirVantagem(com.sistemamoeda.dto.TransferirVantagemRequestDTO request) {
         
-        // MUDANÇA: Buscar a transação MAIS RECENTE do cupom, não a original
-        Transacao transacaoAtual = transacaoRepository.findTopByCodigoCupomOrderByDataTransacaoDesc(request.getCodigoCupom())
-                .orElseThrow(() -> new EntityNotFoundException("Cupom não encontrado"));
-
-        if (transacaoAtual.getVantagem() == null) {
-            throw new IllegalArgumentException("Transação não corresponde a um resgate de vantagem");
-        }
-
         // Buscar alunos envolvidos e extrair seus usuarios
         Aluno remetenteAluno = alunoRepository.findById(request.getRemetenteId())
             .orElseThrow(() -> new EntityNotFoundException("Remetente (aluno) não encontrado"));
@@ -364,139 +374,77 @@ try {
         Usuario remetente = remetenteAluno.getUsuario();
         Usuario destinatario = destinatarioAluno.getUsuario();
 
-        // MUDANÇA: Validar proprietário atual do cupom (deve ser o destinatário da ÚLTIMA transação)
-        if (transacaoAtual.getDestinatario() == null || !transacaoAtual.getDestinatario().getId().equals(remetente.getId())) {
+        // Troca de dono num único UPDATE condicional (dono atual = remetente e cupom ativo), sem ler o histórico
+        // de transações do cupom; se não trocou, descobre o motivo
+        String codigoCupom = codigosCupom.canonico(request.getCodigoCupom());
+        if (cupomRepository.transferir(codigoCupom, remetente.getId(), destinatario, LocalDateTime.now()) == 0) {
+            Cupom cupom = cupomRepository.findComVantagemByCodigo(codigoCupom)
+                    .orElseThrow(() -> new EntityNotFoundException("Cupom não encontrado"));
+            if (cupom.getStatus() != StatusCupom.ATIVO) {
+                throw new IllegalArgumentException("O cupom já foi utilizado");
+            }
             throw new IllegalArgumentException("O remetente informado não é o proprietário atual do cupom");
         }
+        Cupom cupom = cupomRepository.findComVantagemByCodigo(codigoCupom)
+                .orElseThrow(() -> new EntityNotFoundException("Cupom não encontrado"));
 
         // Criar transação de troca
         Transacao troca = new Transacao();
         troca.setTipoTransacao(com.sistemamoeda.model.TipoTransacao.TROCA_VANTAGEM);
         troca.setValor(java.math.BigDecimal.ZERO); // Valor é 0.00 para trocas
-        troca.setDescricao("Transferência de cupom: " + transacaoAtual.getCodigoCupom());
+        troca.setDescricao("Transferência de cupom: " + cupom.getCodigo());
         troca.setRemetente(remetente);
         troca.setDestinatario(destinatario);
-        troca.setVantagem(transacaoAtual.getVantagem());
-        troca.setCodigoCupom(transacaoAtual.getCodigoCupom());
+        troca.setVantagem(cupom.getVantagem());
+        troca.setCodigoCupom(cupom.getCodigo());
 
         troca = transacaoRepository.save(troca);
-
-        // Enviar notificações por email (novo proprietário + empresa)
-        try {
-            String emailDest = destinatario.getEmail();
-            String nomeDest = destinatario.getNome();
-            String assunto = "Você recebeu um cupom transferido: " + troca.getCodigoCupom();
-            String mensagemTransferenciaHtml = String.format(
-                """
-                <html>
-                <body style="font-family: Arial, sans-serif; background-color:#f7f7f7; padding:20px;">
-                    <div style="max-width:600px; margin:auto; background:white; padding:25px; border-radius:10px; box-shadow:0 2px 10px rgba(0,0,0,0.08);">
-                        
-                        <h2 style="color:#333; text-align:center;">🎁 Você recebeu um Cupom!</h2>
-                        
-                        <p>Olá <b>%s</b>,</p>
-
-                        <p>O aluno(a) <b>%s</b> transferiu a seguinte vantagem para você:</p>
-                        
-                        <div style="padding:10px 15px; background:#eef5ff; border-left:4px solid #4a90e2; border-radius:5px; margin:10px 0;">
-                            <b>%s</b>
-                        </div>
-
-                        <!-- Agora a imagem é carregada via CID -->
-                        <div style="text-align:center;margin:20px 0">
-                            <img src="cid:imagemVantagem" style="max-width:300px;width:100%%;border-radius:12px"/>
-                        </div>
-
-                        <p>O seu código do cupom é:</p>
-
-                        <div style="font-size:20px; padding:10px 15px; background:#fff3cd; border-left:4px solid #f0ad4e; border-radius:5px; margin:10px 0;">
-                            <b>%s</b>
-                        </div>
-
-                        <p>
-                            Você pode apresentar esse código <b>ou</b> utilizar o QR Code abaixo para resgatar sua vantagem:<br><br>
-                        </p>
-
-                        <div style="text-align:center;">
-                            <img src="cid:qrcodeinline" style="width:250px; height:250px;"/>
-                        </div>
-
-                        <p style="margin-top:25px;">
-                            Atenciosamente,<br/>
-                            <b>Sistema de Moeda</b>
-                        </p>
-
-                        <hr style="margin:30px 0; border:none; border-top:1px solid #ddd;"/>
-
-                        <p style="font-size:12px; color:#777; text-align:center;">
-                            Este é um e-mail automático. Não responda.
-                        </p>
-
-                    </div>
-                </body>
-                </html>
-                """,
-                StringEscapeUtils.escapeHtml4(destinatario.getNome()),       // 1º %s: Nome do Destinatário
-                StringEscapeUtils.escapeHtml4(remetente.getNome()),          // 2º %s: Nome de quem enviou
-                StringEscapeUtils.escapeHtml4(troca.getVantagem().getNome()),// 3º %s: Nome da Vantagem
-                StringEscapeUtils.escapeHtml4(troca.getCodigoCupom())        // 4º %s: Código do Cupom
-            );
-
-            String qrConteudo = troca.getCodigoCupom();
-
-            byte[] qrBytes = qrCodeService.gerarQRCodeBytes(qrConteudo);
-
-            emailService.enviarCupomComQrCodeInline(destinatario.getEmail(), assunto, mensagemTransferenciaHtml, qrBytes, troca.getVantagem().getFoto());
-
-            if (troca.getVantagem().getEmpresa() != null && troca.getVantagem().getEmpresa().getUsuario() != null) {
-                String emailEmpresa = troca.getVantagem().getEmpresa().getUsuario().getEmail();
-                String mensagemEmpresa = String.format("Olá,\n\nO cupom %s da vantagem '%s' foi transferido do aluno %s para %s.\n\nAtenciosamente,\nSistema de Moeda",
-                        troca.getCodigoCupom(), troca.getVantagem().getNome(), remetente.getNome(), nomeDest);
-                emailService.enviarEmailSimples(emailEmpresa, "Cupom transferido", mensagemEmpresa);
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Falha ao enviar emails sobre transferência: " + e.getMessage());
+        TransacaoResponseDTO response = convertToResponseDTO(troca);
+        transacoesRecentes.adicionarAposCommit(response);
+
+        // Notificações por e-mail (novo proprietário + empresa), via outbox
+        emailOutbox.registrarCupomTransferido(destinatario.getEmail(), destinatario.getNome(), remetente.getNome(),
+                troca.getVantagem(), troca.getCodigoCupom());
+        if (troca.getVantagem().getEmpresa() != null && troca.getVantagem().getEmpresa().getUsuario() != null) {
+            String mensagemEmpresa = String.format("Olá,\n\nO cupom %s da vantagem '%s' foi transferido do aluno %s para %s.\n\nAtenciosamente,\nSistema de Moeda",
+                    troca.getCodigoCupom(), troca.getVantagem().getNome(), remetente.getNome(), destinatario.getNome());
+            emailOutbox.registrarTexto(troca.getVantagem().getEmpresa().getUsuario().getEmail(), "Cupom transferido", mensagemEmpresa);
         }
 
-        return convertToResponseDTO(troca);
+        return response;
     }
     
-    // Estatísticas - total de moedas enviadas por professor
+    // Estatísticas - total de moedas enviadas por professor (acumulado ou no período, lido dos contadores)
     @Transactional(readOnly = true)
-    public BigDecimal calcularMoedasEnviadasPorProfessor(Long professorId) {
+    public BigDecimal calcularMoedasEnviadasPorProfessor(Long professorId, LocalDate dataInicio, LocalDate dataFim) {
         Professor professor = professorRepository.findById(professorId)
                 .orElseThrow(() -> new EntityNotFoundException("Professor não encontrado"));
         
-        return transacaoRepository.sumMoedasEnviadasPorProfessor(professor.getUsuario());
+        return estatisticas.somarValor(MetricaEstatistica.MOEDAS_ENVIADAS, professor.getUsuario().getId(), dataInicio, dataFim);
     }
     
     // Estatísticas - total de moedas recebidas por aluno
     @Transactional(readOnly = true)
-    public BigDecimal calcularMoedasRecebidasPorAluno(Long alunoId) {
+    public BigDecimal calcularMoedasRecebidasPorAluno(Long alunoId, LocalDate dataInicio, LocalDate dataFim) {
         Aluno aluno = alunoRepository.findById(alunoId)
                 .orElseThrow(() -> new EntityNotFoundException("Aluno não encontrado"));
         
-        return transacaoRepository.sumMoedasRecebidasPorAluno(aluno.getUsuario());
+        return estatisticas.somarValor(MetricaEstatistica.MOEDAS_RECEBIDAS, aluno.getUsuario().getId(), dataInicio, dataFim);
     }
     
     // Estatísticas - total de moedas gastas por aluno
     @Transactional(readOnly = true)
-    public BigDecimal calcularMoedasGastasPorAluno(Long alunoId) {
+    public BigDecimal calcularMoedasGastasPorAluno(Long alunoId, LocalDate dataInicio, LocalDate dataFim) {
         Aluno aluno = alunoRepository.findById(alunoId)
                 .orElseThrow(() -> new EntityNotFoundException("Aluno não encontrado"));
         
-        return transacaoRepository.sumMoedasGastasPorAluno(aluno.getUsuario());
+        return estatisticas.somarValor(MetricaEstatistica.MOEDAS_GASTAS, aluno.getUsuario().getId(), dataInicio, dataFim);
     }
     
     // Estatísticas - total de resgates de uma vantagem
     @Transactional(readOnly = true)
-    public Long contarResgatesPorVantagem(Long vantagemId) {
-        return transacaoRepository.countResgatesPorVantagem(vantagemId);
-    }
-    
-    // Gerar código único do cupom
-    private String generateCupomCode() {
-        return "CUP-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    public Long contarResgatesPorVantagem(Long vantagemId, LocalDate dataInicio, LocalDate dataFim) {
+        return estatisticas.contar(MetricaEstatistica.RESGATES_VANTAGEM, vantagemId, dataInicio, dataFim);
     }
     
     // Converter entidade para DTO de resposta
@@ -0,0 +1,110 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.TransacaoResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Buffer circular em memória com as últimas N transações registradas.
+// As transações entram somente depois do commit, e o banco só é consultado na primeira leitura
+// (ou depois de invalidar()), com uma consulta limitada a N linhas.
+@Component
+public class TransacoesRecentesBuffer {
+
+    private static final Comparator<TransacaoResponseDTO> MAIS_RECENTE_PRIMEIRO =
+            Comparator.comparing(TransacaoResponseDTO::getDataTransacao, Comparator.nullsLast(Comparator.reverseOrder()))
+                      .thenComparing(TransacaoResponseDTO::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final TransacaoResponseDTO[] itens;
+    private int proximo = 0;
+    private int tamanho = 0;
+    private volatile boolean carregado = false;
+
+    public TransacoesRecentesBuffer(@Value("${app.transacoes.recentes.capacidade:10}") int capacidade) {
+        this.itens = new TransacaoResponseDTO[Math.max(1, capacidade)];
+    }
+
+    public int getCapacidade() {
+        return itens.length;
+    }
+
+    // Registra a transação no buffer quando (e se) a transação do banco for confirmada
+    public void adicionarAposCommit(TransacaoResponseDTO transacao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adicionar(transacao);
+                }
+            });
+        } else {
+            adicionar(transacao);
+        }
+    }
+
+    public void adicionarTodasAposCommit(List<TransacaoResponseDTO> transacoes) {
+        transacoes.forEach(this::adicionarAposCommit);
+    }
+
+    // Lista as transações mais recentes primeiro; o carregador só é chamado se o buffer ainda não foi preenchido
+    public List<TransacaoResponseDTO> listar(Supplier<List<TransacaoResponseDTO>> carregador) {
+        if (!carregado) {
+            List<TransacaoResponseDTO> doBanco = carregador.get();
+            synchronized (this) {
+                if (!carregado) {
+                    preencher(doBanco);
+                }
+            }
+        }
+        synchronized (this) {
+            return snapshot();
+        }
+    }
+
+    // Força a próxima leitura a recarregar do banco (ex: após operações em lote muito grandes)
+    public void invalidar() {
+        carregado = false;
+    }
+
+    private synchronized void adicionar(TransacaoResponseDTO transacao) {
+        itens[proximo] = transacao;
+        proximo = (proximo + 1) % itens.length;
+        tamanho = Math.min(tamanho + 1, itens.length);
+    }
+
+    // Junta o que veio do banco com o que foi adicionado enquanto a consulta rodava
+    private void preencher(List<TransacaoResponseDTO> doBanco) {
+        List<TransacaoResponseDTO> combinados = new ArrayList<>(snapshot());
+        combinados.addAll(doBanco);
+
+        Set<Long> vistos = new HashSet<>();
+        List<TransacaoResponseDTO> unicos = combinados.stream()
+                .filter(t -> t.getId() == null || vistos.add(t.getId()))
+                .sorted(MAIS_RECENTE_PRIMEIRO)
+                .limit(itens.length)
+                .toList();
+
+        proximo = 0;
+        tamanho = 0;
+        for (int i = unicos.size() - 1; i >= 0; i--) {
+            adicionar(unicos.get(i));
+        }
+        carregado = true;
+    }
+
+    private List<TransacaoResponseDTO> snapshot() {
+        List<TransacaoResponseDTO> resultado = new ArrayList<>(tamanho);
+        for (int i = 1; i <= tamanho; i++) {
+            resultado.add(itens[(proximo - i + itens.length) % itens.length]);
+        }
+        return resultado;
+    }
+}
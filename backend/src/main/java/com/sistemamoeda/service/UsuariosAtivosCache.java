@@ -0,0 +1,94 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.repository.UsuarioRepository;
+import com.sistemamoeda.repository.UsuarioRepository.SituacaoUsuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Situação (id, tipo, ativo) dos usuários autenticados por token, guardada por pouco tempo. Com o id e o tipo nas
+// claims do JWT, o banco só é consultado para saber se a conta continua ativa, uma vez por usuário a cada ttl
+// (não a cada requisição). Conta desativada fora da API deixa de ser aceita em no máximo ttl; a remoção de um
+// aluno/professor/empresa (que desativa o usuário) e a troca de e-mail valem na hora, com invalidarAposCommit().
+@Component
+public class UsuariosAtivosCache {
+
+    private record Entrada(Optional<SituacaoUsuario> situacao, long expiraEm) {}
+
+    private final UsuarioRepository usuarioRepository;
+    private final long ttlNanos;
+    private final int maximoEntradas;
+    private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    private final Counter acertos;
+    private final Counter falhas;
+
+    public UsuariosAtivosCache(UsuarioRepository usuarioRepository,
+                               @Value("${app.seguranca.usuarios.cache-ttl:30s}") Duration ttl,
+                               @Value("${app.seguranca.usuarios.cache-maximo:10000}") int maximoEntradas,
+                               MeterRegistry registry) {
+        this.usuarioRepository = usuarioRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maximoEntradas = maximoEntradas;
+        this.acertos = Counter.builder("usuarios.cache")
+                .tag("resultado", "hit")
+                .description("Situações de usuário servidas pelo cache na autenticação por token")
+                .register(registry);
+        this.falhas = Counter.builder("usuarios.cache")
+                .tag("resultado", "miss")
+                .description("Situações de usuário consultadas no banco na autenticação por token")
+                .register(registry);
+    }
+
+    // Situação atual do usuário (vazio se o e-mail não existe mais)
+    public Optional<SituacaoUsuario> situacao(String email) {
+        long agora = System.nanoTime();
+        Entrada entrada = entradas.get(email);
+        if (entrada != null && agora - entrada.expiraEm() < 0) {
+            acertos.increment();
+            return entrada.situacao();
+        }
+
+        falhas.increment();
+        Optional<SituacaoUsuario> situacao = usuarioRepository.findSituacaoByEmail(email);
+        if (entradas.size() >= maximoEntradas) {
+            entradas.values().removeIf(e -> agora - e.expiraEm() >= 0);
+            if (entradas.size() >= maximoEntradas) {
+                entradas.clear();
+            }
+        }
+        entradas.put(email, new Entrada(situacao, agora + ttlNanos));
+        return situacao;
+    }
+
+    public boolean estaAtivo(String email) {
+        return situacao(email).map(s -> Boolean.TRUE.equals(s.getAtivo())).orElse(false);
+    }
+
+    // Descarta a situação guardada quando a transação corrente for confirmada (ou na hora, se não houver transação):
+    // conta removida ou e-mail trocado deixam de valer para os tokens já emitidos sem esperar o ttl. Antes do commit,
+    // uma requisição concorrente ainda leria a situação antiga do banco e a guardaria de novo.
+    public void invalidarAposCommit(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar(email);
+                }
+            });
+        } else {
+            invalidar(email);
+        }
+    }
+
+    public void invalidar(String email) {
+        entradas.remove(email);
+    }
+}
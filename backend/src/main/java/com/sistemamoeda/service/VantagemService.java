@@ -3,17 +3,24 @@ package com.sistemamoeda.service;
 import com.sistemamoeda.dto.VantagemRequestDTO;
 import com.sistemamoeda.dto.VantagemResponseDTO;
 import com.sistemamoeda.model.Empresa;
+import com.sistemamoeda.model.FotoRendicao;
 import com.sistemamoeda.model.Vantagem;
+import com.sistemamoeda.model.VantagemFoto;
 import com.sistemamoeda.repository.EmpresaRepository;
+import com.sistemamoeda.repository.VantagemFotoRepository;
 import com.sistemamoeda.repository.VantagemRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,8 +28,14 @@ import java.util.stream.Collectors;
 @Transactional
 public class VantagemService {
     
+    private static final int TAMANHO_VERSAO_FOTO = 16;
+    
     private final VantagemRepository vantagemRepository;
     private final EmpresaRepository empresaRepository;
+    private final VantagemFotoRepository vantagemFotoRepository;
+    private final ImagemService imagemService;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogoVantagensCache catalogoCache;
     
     // Criar nova vantagem
     public VantagemResponseDTO criarVantagem(VantagemRequestDTO request) {
@@ -36,11 +49,14 @@ public class VantagemService {
             empresa,
             request.getNome().trim(),
             request.getDescricao().trim(),
-            request.getCustoMoedas(),
-            fotoBytes
+            request.getCustoMoedas()
         );
         
         vantagem = vantagemRepository.save(vantagem);
+        catalogoCache.invalidarAposCommit();
+        if (fotoBytes != null) {
+            salvarFoto(vantagem, imagemService.processar(fotoBytes));
+        }
         
         return convertToResponseDTO(vantagem);
     }
@@ -53,12 +69,10 @@ public class VantagemService {
                 .collect(Collectors.toList());
     }
     
-    @Transactional(readOnly = true)
+    // Catálogo ativo servido do cache (sem transação: no acerto, o banco não é consultado)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<VantagemResponseDTO> listarAtivas() {
-        return vantagemRepository.findByAtivaTrue()
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return catalogo().getAtivas();
     }
     
     @Transactional(readOnly = true)
@@ -84,12 +98,15 @@ public class VantagemService {
         vantagem.setDescricao(request.getDescricao().trim());
         vantagem.setCustoMoedas(request.getCustoMoedas());
         
-        // Atualiza a foto apenas se uma nova string Base64 for enviada
-        if (request.getFotoUrl() != null && !request.getFotoUrl().trim().isEmpty()) {
-            vantagem.setFoto(converterBase64ParaBytes(request.getFotoUrl()));
+        // Atualiza a foto apenas se uma nova imagem Base64 for enviada
+        // (a URL /api/vantagens/{id}/foto devolvida nas listagens é ignorada)
+        byte[] fotoBytes = converterBase64ParaBytes(request.getFotoUrl());
+        if (fotoBytes != null) {
+            salvarFoto(vantagem, imagemService.processar(fotoBytes));
         }
         
         vantagem = vantagemRepository.save(vantagem);
+        catalogoCache.invalidarAposCommit();
         
         return convertToResponseDTO(vantagem);
     }
@@ -98,7 +115,9 @@ public class VantagemService {
         Vantagem vantagem = vantagemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Vantagem não encontrada"));
         
+        vantagemFotoRepository.deleteByVantagemId(vantagem.getId());
         vantagemRepository.delete(vantagem);
+        catalogoCache.invalidarAposCommit();
     }
     
     public VantagemResponseDTO ativarVantagem(Long id) {
@@ -107,6 +126,7 @@ public class VantagemService {
         
         vantagem.ativar();
         vantagem = vantagemRepository.save(vantagem);
+        catalogoCache.invalidarAposCommit();
         
         return convertToResponseDTO(vantagem);
     }
@@ -117,6 +137,7 @@ public class VantagemService {
         
         vantagem.desativar();
         vantagem = vantagemRepository.save(vantagem);
+        catalogoCache.invalidarAposCommit();
         
         return convertToResponseDTO(vantagem);
     }
@@ -161,28 +182,19 @@ public class VantagemService {
                 .collect(Collectors.toList());
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<VantagemResponseDTO> buscarQueAlunoConseguePagar(BigDecimal saldoAluno) {
-        return vantagemRepository.findVantagensQueAlunoConseguePagar(saldoAluno)
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return catalogo().acessiveis(saldoAluno);
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<VantagemResponseDTO> buscarMaisBaratas() {
-        return vantagemRepository.findVantagensOrdemCrescente()
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return catalogo().getPorCustoCrescente();
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<VantagemResponseDTO> buscarMaisCaras() {
-        return vantagemRepository.findVantagensOrdemDecrescente()
-                .stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return catalogo().getPorCustoDecrescente();
     }
     
     @Transactional(readOnly = true)
@@ -200,16 +212,111 @@ public class VantagemService {
         return vantagemRepository.findCustoMaximoPorEmpresa(empresaId);
     }
     
+    // Hashes de uma rendição da foto (sem ler os bytes), usados para responder 304 nas revalidações
+    @Transactional(readOnly = true)
+    public Optional<VantagemFotoRepository.HashesFoto> buscarHashesFoto(Long vantagemId, FotoRendicao rendicao) {
+        if (!vantagemRepository.existsById(vantagemId)) {
+            throw new EntityNotFoundException("Vantagem não encontrada");
+        }
+        return vantagemFotoRepository.findHashesByVantagemIdAndRendicao(vantagemId, rendicao);
+    }
+    
+    @Transactional(readOnly = true)
+    public VantagemFoto buscarFoto(Long vantagemId, FotoRendicao rendicao) {
+        return vantagemFotoRepository.findByVantagemIdAndRendicao(vantagemId, rendicao)
+                .orElseThrow(() -> new EntityNotFoundException("Vantagem sem foto"));
+    }
+    
+    // Grava (ou substitui) a foto de uma vantagem já existente
+    public void atualizarFoto(Long vantagemId, byte[] fotoBytes) {
+        Vantagem vantagem = vantagemRepository.findById(vantagemId)
+                .orElseThrow(() -> new EntityNotFoundException("Vantagem não encontrada"));
+        salvarFoto(vantagem, imagemService.processar(fotoBytes));
+    }
+    
+    // Upload da foto direto do corpo da requisição. A leitura/processamento do stream acontece fora de transação
+    // (um upload lento não segura conexão do banco); só a gravação das rendições é transacional.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VantagemResponseDTO atualizarFoto(Long vantagemId, InputStream foto) {
+        if (!vantagemRepository.existsById(vantagemId)) {
+            throw new EntityNotFoundException("Vantagem não encontrada");
+        }
+        
+        ImagemService.FotoProcessada processada = imagemService.processar(foto);
+        
+        return transactionTemplate.execute(status -> {
+            Vantagem vantagem = vantagemRepository.findById(vantagemId)
+                    .orElseThrow(() -> new EntityNotFoundException("Vantagem não encontrada"));
+            salvarFoto(vantagem, processada);
+            return convertToResponseDTO(vantagemRepository.save(vantagem));
+        });
+    }
+    
+    // Snapshot do catálogo; na falta, carrega as vantagens ativas com a empresa em uma única consulta
+    private CatalogoVantagensCache.Snapshot catalogo() {
+        return catalogoCache.obter(() -> vantagemRepository.findAtivasComEmpresa()
+                .stream()
+                .map(this::convertToResponseDTO)
+                .collect(Collectors.toList()));
+    }
+    
+    public long getTamanhoMaximoFoto() {
+        return imagemService.getTamanhoMaximo();
+    }
+    
+    // URL relativa de uma rendição da foto; o parâmetro v muda a cada nova foto, então o navegador pode guardar a imagem indefinidamente
+    public static String montarFotoUrl(Long vantagemId, String fotoHash, FotoRendicao rendicao) {
+        if (fotoHash == null) {
+            return null;
+        }
+        return "/api/vantagens/" + vantagemId + "/foto?rendicao=" + rendicao.name().toLowerCase()
+                + "&v=" + versaoFoto(fotoHash);
+    }
+    
+    // Valor de v nas URLs da foto: início fixo do hash do arquivo enviado (o controller exige exatamente este valor)
+    public static String versaoFoto(String fotoHash) {
+        return fotoHash.substring(0, TAMANHO_VERSAO_FOTO);
+    }
+    
+    // Grava uma linha por rendição da imagem já processada
+    private void salvarFoto(Vantagem vantagem, ImagemService.FotoProcessada processada) {
+        if (processada.getHashOrigem().equals(vantagem.getFotoHash())) {
+            return; // mesma imagem já gravada
+        }
+        
+        processada.getRendicoes().forEach((rendicao, imagem) -> {
+            VantagemFoto foto = vantagemFotoRepository.findByVantagemIdAndRendicao(vantagem.getId(), rendicao)
+                    .orElseGet(VantagemFoto::new);
+            foto.setVantagemId(vantagem.getId());
+            foto.setRendicao(rendicao);
+            foto.setDados(imagem.getDados());
+            foto.setContentType(ImagemService.CONTENT_TYPE_RENDICOES);
+            foto.setHash(imagem.getHash());
+            foto.setHashOrigem(processada.getHashOrigem());
+            foto.setLargura(imagem.getLargura());
+            foto.setAltura(imagem.getAltura());
+            foto.setTamanho(imagem.getDados().length);
+            vantagemFotoRepository.save(foto);
+        });
+        vantagem.setFotoHash(processada.getHashOrigem());
+        catalogoCache.invalidarAposCommit();
+    }
+    
     // Função auxiliar para converter String Base64 -> byte[]
     private byte[] converterBase64ParaBytes(String base64) {
         if (base64 == null || base64.trim().isEmpty()) {
             return null;
         }
+        // A própria URL da foto (devolvida nas listagens) não é uma imagem nova
+        if (base64.startsWith("/api/") || base64.startsWith("http")) {
+            return null;
+        }
         try {
             if (base64.contains(",")) {
                 base64 = base64.split(",")[1];
             }
-            return Base64.getDecoder().decode(base64);
+            byte[] bytes = Base64.getDecoder().decode(base64);
+            return bytes.length > 0 ? bytes : null;
         } catch (IllegalArgumentException e) {
             return null;
         }
@@ -217,23 +324,17 @@ public class VantagemService {
 
     // Converter entidade para DTO de resposta
     private VantagemResponseDTO convertToResponseDTO(Vantagem vantagem) {
-        VantagemResponseDTO dto = new VantagemResponseDTO();
-        dto.setId(vantagem.getId());
-        dto.setEmpresaId(vantagem.getEmpresa().getId());
-        dto.setEmpresaNome(vantagem.getEmpresa().getNomeFantasia());
-        dto.setNome(vantagem.getNome());
-        dto.setDescricao(vantagem.getDescricao());
-        dto.setCustoMoedas(vantagem.getCustoMoedas());
-        
-        if (vantagem.getFoto() != null && vantagem.getFoto().length > 0) {
-            String base64 = Base64.getEncoder().encodeToString(vantagem.getFoto());
-            dto.setFotoUrl("data:image/jpeg;base64," + base64);
-        } else {
-            dto.setFotoUrl(null);
-        }
-        
-        dto.setAtiva(vantagem.getAtiva());
-        dto.setDataCriacao(vantagem.getDataCriacao());
-        return dto;
+        return new VantagemResponseDTO(
+            vantagem.getId(),
+            vantagem.getEmpresa().getId(),
+            vantagem.getEmpresa().getNomeFantasia(),
+            vantagem.getNome(),
+            vantagem.getDescricao(),
+            vantagem.getCustoMoedas(),
+            montarFotoUrl(vantagem.getId(), vantagem.getFotoHash(), FotoRendicao.CARD),
+            montarFotoUrl(vantagem.getId(), vantagem.getFotoHash(), FotoRendicao.MINIATURA),
+            vantagem.getAtiva(),
+            vantagem.getDataCriacao()
+        );
     }
 }
\ No newline at end of file
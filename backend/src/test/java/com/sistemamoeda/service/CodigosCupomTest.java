@@ -0,0 +1,107 @@
+package com.sistemamoeda.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Códigos de cupom assinados: ida e volta nos limites dos ids, recusa de qualquer caractere trocado ou assinatura de
+// outro código, forma canônica do que o aluno digita e códigos antigos (CUP-) fora do formato assinado
+class CodigosCupomTest {
+
+    private static final String ALFABETO = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final long MAXIMO_CUPOM = (1L << 40) - 1;
+    private static final long MAXIMO_VANTAGEM = (1L << 32) - 1;
+
+    private final CodigosCupom codigos = new CodigosCupom("chave-dos-testes-automatizados-0123456789abcdef");
+
+    @Test
+    void geraEVerificaNosLimitesDosIds() {
+        long[][] casos = {{0, 0}, {1, 1}, {MAXIMO_CUPOM, 0}, {0, MAXIMO_VANTAGEM}, {MAXIMO_CUPOM, MAXIMO_VANTAGEM}};
+        for (long[] caso : casos) {
+            String codigo = codigos.gerar(caso[0], caso[1]);
+            assertThat(codigo).matches("CP(-[0-9A-HJKMNP-TV-Z]{6}){4}");
+            assertThat(codigos.ehAssinado(codigo)).isTrue();
+            assertThat(codigos.canonico(codigo)).isEqualTo(codigo);
+            assertThat(codigos.verificar(codigo)).contains(new CodigosCupom.Conteudo(caso[0], caso[1]));
+        }
+    }
+
+    @Test
+    void recusaIdsForaDoIntervalo() {
+        assertThatThrownBy(() -> codigos.gerar(-1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codigos.gerar(MAXIMO_CUPOM + 1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codigos.gerar(0, MAXIMO_VANTAGEM + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recusaQualquerCaractereTrocado() {
+        String codigo = codigos.gerar(123_456_789L, 42);
+        for (int i = "CP-".length(); i < codigo.length(); i++) {
+            if (codigo.charAt(i) == '-') {
+                continue;
+            }
+            for (char trocado : ALFABETO.toCharArray()) {
+                if (trocado == codigo.charAt(i)) {
+                    continue;
+                }
+                String alterado = codigo.substring(0, i) + trocado + codigo.substring(i + 1);
+                assertThat(codigos.verificar(alterado)).as(alterado).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void recusaAssinaturaDeOutroCodigoOuDeOutraChave() {
+        String codigo = codigos.gerar(1000, 7);
+        String outro = codigos.gerar(1001, 7);
+        // Mesmo conteúdo, último grupo (só assinatura) trocado pelo de outro código
+        String assinaturaTrocada = codigo.substring(0, codigo.lastIndexOf('-')) + outro.substring(outro.lastIndexOf('-'));
+        assertThat(codigos.verificar(assinaturaTrocada)).isEmpty();
+
+        CodigosCupom outraChave = new CodigosCupom("outra-chave-dos-testes-automatizados-0123456789");
+        assertThat(outraChave.verificar(codigo)).isEmpty();
+    }
+
+    @Test
+    void canonicoAceitaMinusculasSemHifensEOIL() {
+        // Código com os dígitos 0 e 1, que o aluno pode digitar como O, I ou L
+        String codigo = LongStream.rangeClosed(1, 10_000)
+                .mapToObj(id -> codigos.gerar(id, 3))
+                .filter(c -> c.indexOf('0', 3) >= 0 && c.indexOf('1', 3) >= 0)
+                .findFirst()
+                .orElseThrow();
+        String digitado = codigo.replace("-", "").toLowerCase()
+                .replaceFirst("0", "o")
+                .replace("0", "O")
+                .replaceFirst("1", "i")
+                .replace("1", "L");
+
+        assertThat(digitado).doesNotContain("-").containsAnyOf("o", "O").contains("i");
+        assertThat(codigos.canonico(digitado)).isEqualTo(codigo);
+        assertThat(codigos.canonico("  " + codigo.toLowerCase() + " ")).isEqualTo(codigo);
+        assertThat(codigos.verificar(codigos.canonico(digitado))).contains(new CodigosCupom.Conteudo(
+                codigos.verificar(codigo).orElseThrow().cupomId(), 3));
+    }
+
+    @Test
+    void codigosAntigosNaoSaoAssinados() {
+        assertThat(codigos.canonico(" cup-1a2b3c4d ")).isEqualTo("CUP-1A2B3C4D");
+        assertThat(codigos.ehAssinado("CUP-1A2B3C4D")).isFalse();
+        assertThat(codigos.verificar("CUP-1A2B3C4D")).isEmpty();
+        // Caractere fora do alfabeto: fica como digitado e não passa na verificação
+        String codigo = codigos.gerar(5, 5);
+        String invalido = codigo.substring(0, codigo.length() - 1) + "U";
+        assertThat(codigos.canonico(invalido)).isEqualTo(invalido);
+        assertThat(codigos.verificar(invalido)).isEmpty();
+    }
+
+    @Test
+    void recusaChaveCurtaOuDeExemplo() {
+        assertThatThrownBy(() -> new CodigosCupom("curta")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new CodigosCupom("troque-esta-chave-de-cupons-em-producao-0123456789"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
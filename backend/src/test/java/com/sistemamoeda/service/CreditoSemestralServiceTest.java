@@ -0,0 +1,52 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.repository.CreditoSemestralExecucaoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Semestre informado errado não pode creditar todos os professores de novo: futuro é recusado e anterior sem
+// execução registrada exige a confirmação; nenhum dos dois chega a criar a execução
+@SpringBootTest
+@ActiveProfiles("test")
+class CreditoSemestralServiceTest {
+
+    @Autowired
+    private CreditoSemestralService creditoSemestralService;
+
+    @Autowired
+    private CreditoSemestralExecucaoRepository execucaoRepository;
+
+    @Test
+    void recusaSemestreFuturoMesmoConfirmado() {
+        String proximo = (LocalDate.now().getYear() + 1) + "-1";
+        assertThatThrownBy(() -> creditoSemestralService.executar(proximo, proximo))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ainda não começou");
+        assertThat(execucaoRepository.findBySemestre(proximo)).isEmpty();
+    }
+
+    @Test
+    void semestreAnteriorExigeConfirmacaoComOMesmoSemestre() {
+        String anterior = (LocalDate.now().getYear() - 1) + "-2";
+        assertThatThrownBy(() -> creditoSemestralService.executar(anterior, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("confirmacao=" + anterior);
+        assertThatThrownBy(() -> creditoSemestralService.executar(anterior, (LocalDate.now().getYear() - 1) + "-1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(execucaoRepository.findBySemestre(anterior)).isEmpty();
+    }
+
+    @Test
+    void recusaFormatoInvalido() {
+        assertThatThrownBy(() -> creditoSemestralService.executar("2026-3", "2026-3"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("AAAA-1 ou AAAA-2");
+    }
+}
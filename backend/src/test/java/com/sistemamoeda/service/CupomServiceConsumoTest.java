@@ -0,0 +1,116 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.CupomResponseDTO;
+import com.sistemamoeda.dto.ResgateVantagemRequestDTO;
+import com.sistemamoeda.dto.ValidacaoCupomRequestDTO;
+import com.sistemamoeda.dto.ValidacaoCupomResponseDTO;
+import com.sistemamoeda.model.StatusCupom;
+import com.sistemamoeda.model.Vantagem;
+import com.sistemamoeda.repository.AlunoRepository;
+import com.sistemamoeda.repository.CupomRepository;
+import com.sistemamoeda.repository.VantagemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Consumo do mesmo cupom por várias threads ao mesmo tempo (a empresa confirmando em dois caixas): o UPDATE
+// condicional deixa exatamente uma marcar o cupom como USADO; as outras recebem valido = false com o motivo
+@SpringBootTest
+@ActiveProfiles("test")
+class CupomServiceConsumoTest {
+
+    private static final int CUPONS = 10;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private CupomService cupomService;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private AlunoRepository alunoRepository;
+
+    @Autowired
+    private VantagemRepository vantagemRepository;
+
+    @Autowired
+    private CupomRepository cupomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void consumoConcorrenteUsaCadaCupomUmaVez() throws Exception {
+        Long alunoId = alunoRepository.findAll().get(0).getId();
+        Vantagem vantagem = vantagemRepository.findAll().get(0);
+        Long empresaId = jdbcTemplate.queryForObject("SELECT empresa_id FROM vantagem WHERE id = ?", Long.class, vantagem.getId());
+        List<String> codigos = resgatarCupons(alunoId, vantagem);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (String codigo : codigos) {
+                CountDownLatch largada = new CountDownLatch(1);
+                List<Future<ValidacaoCupomResponseDTO>> consumos = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    // Metade informa o aluno, metade só o código: os dois caminhos disputam o mesmo UPDATE
+                    Long alunoInformado = t % 2 == 0 ? alunoId : null;
+                    consumos.add(executor.submit(() -> {
+                        largada.await();
+                        return cupomService.consumirCupom(empresaId, new ValidacaoCupomRequestDTO(codigo, alunoInformado));
+                    }));
+                }
+                largada.countDown();
+
+                int validos = 0;
+                for (Future<ValidacaoCupomResponseDTO> consumo : consumos) {
+                    ValidacaoCupomResponseDTO resposta = consumo.get(30, TimeUnit.SECONDS);
+                    if (resposta.isValido()) {
+                        validos++;
+                    } else {
+                        assertThat(resposta.getMotivo()).isNotBlank();
+                    }
+                }
+                assertThat(validos).as(codigo).isEqualTo(1);
+                assertThat(cupomRepository.findSituacaoByCodigo(codigo).orElseThrow().getStatus()).isEqualTo(StatusCupom.USADO);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // CUPONS resgates novos; devolve só os códigos criados aqui (outros testes também resgatam com o mesmo aluno)
+    private List<String> resgatarCupons(Long alunoId, Vantagem vantagem) {
+        Set<String> antes = ativos(alunoId);
+        jdbcTemplate.update("UPDATE aluno SET saldo_moedas = ? WHERE id = ?",
+                vantagem.getCustoMoedas().multiply(BigDecimal.valueOf(CUPONS)), alunoId);
+        for (int i = 0; i < CUPONS; i++) {
+            transacaoService.resgatarVantagem(new ResgateVantagemRequestDTO(alunoId, vantagem.getId()));
+        }
+        List<String> novos = ativos(alunoId).stream().filter(c -> !antes.contains(c)).toList();
+        assertThat(novos).hasSize(CUPONS);
+        return novos;
+    }
+
+    private Set<String> ativos(Long alunoId) {
+        return cupomService.listarCuponsDoAluno(alunoId).stream()
+                .filter(c -> StatusCupom.ATIVO.name().equals(c.getStatus()))
+                .map(CupomResponseDTO::getCodigoCupom)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,94 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.repository.CupomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Filtro de Bloom dos códigos antigos, carregado pela leitura paginada da tabela cupom (repositório simulado):
+// nenhum código carregado é recusado (sem falso negativo) e a taxa de falsos positivos fica perto da configurada
+class FiltroCodigosCupomTest {
+
+    private static final int CODIGOS = 20_000;
+    private static final int AUSENTES = 200_000;
+    private static final double FALSOS_POSITIVOS = 0.001;
+
+    private record Linha(Long getId, String getCodigo) implements CupomRepository.CodigoCupom {}
+
+    private final CodigosCupom codigosCupom = new CodigosCupom("chave-dos-testes-automatizados-0123456789abcdef");
+
+    @Test
+    void semFalsoNegativoEFalsosPositivosLimitados() {
+        Random aleatorio = new Random(7);
+        Set<String> carregados = new HashSet<>();
+        while (carregados.size() < CODIGOS) {
+            carregados.add(codigoAntigo(aleatorio));
+        }
+        List<Linha> tabela = new ArrayList<>();
+        for (String codigo : carregados) {
+            tabela.add(new Linha((long) tabela.size() + 1, codigo));
+        }
+        // Códigos assinados na mesma tabela não entram no filtro
+        String assinado = codigosCupom.gerar(tabela.size() + 1, 1);
+        tabela.add(new Linha((long) tabela.size() + 1, assinado));
+
+        FiltroCodigosCupom filtro = new FiltroCodigosCupom(repositorio(tabela), codigosCupom, new SimpleMeterRegistry(),
+                CODIGOS, FALSOS_POSITIVOS);
+        // Antes da primeira carga deixa tudo passar
+        assertThat(filtro.podeExistir("CUP-00000000")).isTrue();
+        filtro.atualizar();
+
+        for (String codigo : carregados) {
+            assertThat(filtro.podeExistir(codigo)).as(codigo).isTrue();
+        }
+
+        int falsosPositivos = 0;
+        int testados = 0;
+        while (testados < AUSENTES) {
+            String codigo = codigoAntigo(aleatorio);
+            if (carregados.contains(codigo)) {
+                continue;
+            }
+            testados++;
+            if (filtro.podeExistir(codigo)) {
+                falsosPositivos++;
+            }
+        }
+        double taxa = (double) falsosPositivos / AUSENTES;
+        System.out.printf("Filtro de cupons: %d códigos, %d ausentes testados, %d falsos positivos (%.4f%%)%n",
+                CODIGOS, AUSENTES, falsosPositivos, taxa * 100);
+        assertThat(taxa).isLessThan(FALSOS_POSITIVOS * 3);
+    }
+
+    private static String codigoAntigo(Random aleatorio) {
+        return "CUP-" + String.format(Locale.ROOT, "%08X", aleatorio.nextInt());
+    }
+
+    // findCodigosAposId paginado como no banco: ids acima do informado, em ordem, até o tamanho da página
+    private static CupomRepository repositorio(List<Linha> tabela) {
+        CupomRepository repositorio = mock(CupomRepository.class);
+        when(repositorio.findCodigosAposId(anyLong(), any(Pageable.class))).thenAnswer(chamada -> {
+            long desde = chamada.getArgument(0);
+            Pageable pagina = chamada.getArgument(1);
+            return tabela.stream()
+                    .filter(linha -> linha.getId() > desde)
+                    .limit(pagina.getPageSize())
+                    .map(CupomRepository.CodigoCupom.class::cast)
+                    .toList();
+        });
+        return repositorio;
+    }
+}
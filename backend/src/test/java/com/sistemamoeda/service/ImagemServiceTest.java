@@ -0,0 +1,88 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.model.FotoRendicao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Bytes trafegados antes e depois das rendições: antes, cada card do catálogo e cada e-mail de cupom levavam o
+// arquivo enviado pela empresa, inteiro; agora o catálogo usa MINIATURA e o e-mail usa EMAIL.
+// As fotos de entrada imitam fotos reais (gradiente + ruído, que comprime mal) nos formatos mais comuns de upload.
+class ImagemServiceTest {
+
+    // Vantagens exibidas de uma vez na grade do catálogo do aluno
+    private static final int VANTAGENS_POR_PAGINA = 12;
+
+    private ImagemService imagemService;
+
+    @BeforeEach
+    void configurar() {
+        imagemService = new ImagemService();
+        ReflectionTestUtils.setField(imagemService, "maxMegapixels", 50);
+        ReflectionTestUtils.setField(imagemService, "tamanhoMaximo", DataSize.ofMegabytes(10));
+    }
+
+    @ParameterizedTest(name = "{0} {1}x{2}")
+    @CsvSource({
+        "jpeg, 4000, 3000",  // foto de celular (12 MP)
+        "jpeg, 1920, 1080",
+        "png, 1600, 1200",   // captura/arte exportada em PNG
+    })
+    void rendicoesReduzemBytesDoCatalogoEDoEmail(String formato, int largura, int altura) throws Exception {
+        byte[] original = foto(formato, largura, altura);
+
+        ImagemService.FotoProcessada processada = imagemService.processar(original);
+
+        for (FotoRendicao rendicao : FotoRendicao.values()) {
+            ImagemService.ImagemProcessada imagem = processada.getRendicoes().get(rendicao);
+            assertThat(Math.max(imagem.getLargura(), imagem.getAltura())).isEqualTo(rendicao.getLadoMaximo());
+            // JPEG de verdade (SOI), o que o e-mail declara como image/jpeg
+            assertThat(imagem.getDados()).startsWith((byte) 0xFF, (byte) 0xD8);
+        }
+
+        long catalogoAntes = (long) VANTAGENS_POR_PAGINA * original.length;
+        long catalogoDepois = (long) VANTAGENS_POR_PAGINA * processada.getRendicoes().get(FotoRendicao.MINIATURA).getDados().length;
+        long emailAntes = original.length;
+        long emailDepois = processada.getRendicoes().get(FotoRendicao.EMAIL).getDados().length;
+
+        System.out.printf("%s %dx%d (%d KB): catálogo (%d fotos) %d KB -> %d KB (%.1fx), e-mail %d KB -> %d KB (%.1fx)%n",
+                formato, largura, altura, original.length / 1024, VANTAGENS_POR_PAGINA,
+                catalogoAntes / 1024, catalogoDepois / 1024, (double) catalogoAntes / catalogoDepois,
+                emailAntes / 1024, emailDepois / 1024, (double) emailAntes / emailDepois);
+
+        assertThat(catalogoDepois).isLessThan(catalogoAntes / 5);
+        assertThat(emailDepois).isLessThan(emailAntes / 3);
+    }
+
+    private static byte[] foto(String formato, int largura, int altura) throws Exception {
+        Random aleatorio = new Random(42);
+        BufferedImage imagem = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < altura; y++) {
+            for (int x = 0; x < largura; x++) {
+                int r = canal(255 * x / largura, aleatorio);
+                int g = canal(255 * y / altura, aleatorio);
+                int b = canal(128 + 127 * (x - y) / Math.max(largura, altura), aleatorio);
+                imagem.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(imagem, formato, saida);
+        // Confere que a entrada é legível antes de medir
+        assertThat(ImageIO.read(new ByteArrayInputStream(saida.toByteArray()))).isNotNull();
+        return saida.toByteArray();
+    }
+
+    private static int canal(int base, Random aleatorio) {
+        return Math.max(0, Math.min(255, base + aleatorio.nextInt(49) - 24));
+    }
+}
@@ -0,0 +1,85 @@
+package com.sistemamoeda.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rajada de logins com senha errada para a mesma conta, do mesmo IP, todos ao mesmo tempo: a tentativa é contada
+// ao ser admitida, então no máximo maximo-conta chegam ao BCrypt e o resto recebe 429 (TentativasExcedidasException)
+@SpringBootTest
+@ActiveProfiles("test")
+class LoginServiceTentativasTest {
+
+    private static final int TENTATIVAS = 40;
+
+    @Autowired
+    private LoginService loginService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.login.tentativas.maximo-conta}")
+    private int maximoConta;
+
+    @Test
+    void rajadaDeSenhasErradasNaoPassaDoLimiteDaConta() throws Exception {
+        String ip = "203.0.113.10";
+        long hashesAntes = hashesComFalha();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(TENTATIVAS);
+        List<Future<CompletableFuture<?>>> chamadas = new ArrayList<>();
+        for (int i = 0; i < TENTATIVAS; i++) {
+            chamadas.add(threads.submit(() -> {
+                largada.await();
+                return loginService.entrar("professor@teste.com", "senha-errada", ip);
+            }));
+        }
+        largada.countDown();
+
+        int senhaErrada = 0;
+        int bloqueadas = 0;
+        for (Future<CompletableFuture<?>> chamada : chamadas) {
+            try {
+                chamada.get(30, TimeUnit.SECONDS).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof AuthenticationException) {
+                    senhaErrada++;
+                } else if (e.getCause() instanceof LoginService.TentativasExcedidasException) {
+                    bloqueadas++;
+                }
+            }
+        }
+        threads.shutdown();
+
+        long hashes = hashesComFalha() - hashesAntes;
+        assertThat(hashes).isLessThanOrEqualTo(maximoConta);
+        assertThat(senhaErrada).isEqualTo((int) hashes);
+        assertThat(bloqueadas).isEqualTo(TENTATIVAS - senhaErrada);
+        // A conta continua bloqueada neste IP depois da rajada
+        assertThat(loginService.entrar("professor@teste.com", "123456", ip))
+                .failsWithin(30, TimeUnit.SECONDS)
+                .withThrowableOfType(Exception.class)
+                .withCauseInstanceOf(LoginService.TentativasExcedidasException.class);
+    }
+
+    private long hashesComFalha() {
+        return registry.get("login.hash").tag("resultado", "falha").timer().count();
+    }
+}
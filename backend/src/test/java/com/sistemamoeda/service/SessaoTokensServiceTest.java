@@ -0,0 +1,128 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.config.JwtAuthenticationFilter;
+import com.sistemamoeda.config.UsuarioAutenticado;
+import com.sistemamoeda.dto.TokensResponseDTO;
+import com.sistemamoeda.model.TokenRevogado;
+import com.sistemamoeda.repository.TokenRevogadoRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Rotação dos tokens de renovação e revogação: cada token de renovação vale uma vez, não serve como token de
+// acesso no filtro, e um jti revogado por outra instância (linha nova em token_revogado) é recusado depois da
+// próxima leitura incremental (no perfil test a leitura agendada fica parada; o teste chama atualizar())
+@SpringBootTest
+@ActiveProfiles("test")
+class SessaoTokensServiceTest {
+
+    private static final String EMAIL = "professor@teste.com";
+
+    @Autowired
+    private SessaoTokensService sessaoTokens;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private RevogacaoTokens revogacoes;
+
+    @Autowired
+    private TokenRevogadoRepository tokenRevogadoRepository;
+
+    @Autowired
+    private JwtAuthenticationFilter filtro;
+
+    @BeforeEach
+    @AfterEach
+    void limparContexto() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenDeRenovacaoValeUmaVez() {
+        TokensResponseDTO login = sessaoTokens.emitir(EMAIL);
+
+        TokensResponseDTO renovado = sessaoTokens.renovar(login.getTokenRenovacao());
+        assertThat(renovado.getTokenRenovacao()).isNotEqualTo(login.getTokenRenovacao());
+
+        // Reapresentar o token já usado (cópia roubada ou requisição repetida) é recusado; o par novo continua valendo
+        assertThatThrownBy(() -> sessaoTokens.renovar(login.getTokenRenovacao()))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(sessaoTokens.renovar(renovado.getTokenRenovacao()).getTokenAcesso()).isNotBlank();
+    }
+
+    @Test
+    void tokenDeAcessoNaoServeParaRenovar() {
+        TokensResponseDTO login = sessaoTokens.emitir(EMAIL);
+        assertThatThrownBy(() -> sessaoTokens.renovar(login.getTokenAcesso()))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void filtroRecusaTokenDeRenovacaoComoAcesso() throws Exception {
+        TokensResponseDTO login = sessaoTokens.emitir(EMAIL);
+
+        MockFilterChain aceito = filtrar(login.getTokenAcesso(), HttpServletResponse.SC_OK);
+        assertThat(aceito.getRequest()).isNotNull();
+        SecurityContextHolder.clearContext();
+
+        MockFilterChain recusado = filtrar(login.getTokenRenovacao(), HttpServletResponse.SC_UNAUTHORIZED);
+        assertThat(recusado.getRequest()).isNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void jtiRevogadoEmOutraInstanciaERecusadoAposAtualizar() throws Exception {
+        TokensResponseDTO login = sessaoTokens.emitir(EMAIL);
+        Claims claims = jwtService.verificar(login.getTokenAcesso());
+
+        // Logout feito em outro nó: só a tabela sabe da revogação até a próxima leitura
+        tokenRevogadoRepository.saveAndFlush(new TokenRevogado(claims.getId(),
+                LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault())));
+        assertThat(revogacoes.revogado(claims.getId())).isFalse();
+        filtrar(login.getTokenAcesso(), HttpServletResponse.SC_OK);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+                .isInstanceOfSatisfying(UsuarioAutenticado.class, usuario -> assertThat(usuario.email()).isEqualTo(EMAIL));
+        SecurityContextHolder.clearContext();
+
+        revogacoes.atualizar();
+
+        assertThat(revogacoes.revogado(claims.getId())).isTrue();
+        assertThat(filtrar(login.getTokenAcesso(), HttpServletResponse.SC_UNAUTHORIZED).getRequest()).isNull();
+        // O mesmo vale para o token de renovação revogado em outro nó
+        Claims renovacao = jwtService.verificar(login.getTokenRenovacao());
+        tokenRevogadoRepository.saveAndFlush(new TokenRevogado(renovacao.getId(),
+                LocalDateTime.ofInstant(renovacao.getExpiration().toInstant(), ZoneId.systemDefault())));
+        revogacoes.atualizar();
+        assertThatThrownBy(() -> sessaoTokens.renovar(login.getTokenRenovacao()))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    private MockFilterChain filtrar(String token, int statusEsperado) throws Exception {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest("GET", "/api/alunos");
+        requisicao.setServletPath("/api/alunos");
+        requisicao.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        MockFilterChain cadeia = new MockFilterChain();
+        filtro.doFilter(requisicao, resposta, cadeia);
+        assertThat(resposta.getStatus()).isEqualTo(statusEsperado);
+        return cadeia;
+    }
+}
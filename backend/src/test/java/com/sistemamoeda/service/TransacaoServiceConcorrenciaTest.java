@@ -0,0 +1,147 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.ResgateVantagemRequestDTO;
+import com.sistemamoeda.dto.TransacaoRequestDTO;
+import com.sistemamoeda.model.Vantagem;
+import com.sistemamoeda.repository.AlunoRepository;
+import com.sistemamoeda.repository.ProfessorRepository;
+import com.sistemamoeda.repository.VantagemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Débitos concorrentes no mesmo saldo: muito mais tentativas do que o saldo cobre, todas ao mesmo tempo. Nenhum
+// débito pode se perder (saldo final = inicial - débitos que deram certo) e o saldo nunca fica negativo.
+// A vazão de cada cenário sai no log do teste.
+@SpringBootTest
+@ActiveProfiles("test")
+class TransacaoServiceConcorrenciaTest {
+
+    private static final int THREADS = 16;
+    private static final int CHAMADAS_POR_THREAD = 25;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private ProfessorRepository professorRepository;
+
+    @Autowired
+    private AlunoRepository alunoRepository;
+
+    @Autowired
+    private VantagemRepository vantagemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private record Resultado(int sucessos, int saldoInsuficiente, List<Throwable> erros, double porSegundo) {}
+
+    @Test
+    void enviarMoedasConcorrenteNaoPerdeDebitos() throws Exception {
+        Long professorId = professorRepository.findAll().get(0).getId();
+        Long alunoId = alunoRepository.findAll().get(0).getId();
+        BigDecimal valor = BigDecimal.ONE;
+        BigDecimal saldoInicial = new BigDecimal("200.00");
+        jdbcTemplate.update("UPDATE professor SET saldo_moedas = ? WHERE id = ?", saldoInicial, professorId);
+        BigDecimal saldoAlunoInicial = alunoRepository.findSaldoMoedasById(alunoId);
+
+        Resultado resultado = executarConcorrente("enviarMoedas", () -> transacaoService.enviarMoedas(
+                new TransacaoRequestDTO(professorId, alunoId, valor, "Teste de concorrência")));
+
+        BigDecimal debitado = valor.multiply(BigDecimal.valueOf(resultado.sucessos()));
+        BigDecimal saldoFinal = professorRepository.findSaldoMoedasById(professorId);
+        assertThat(resultado.erros()).isEmpty();
+        assertThat(saldoFinal).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+        assertThat(saldoFinal).isEqualByComparingTo(saldoInicial.subtract(debitado));
+        // 400 tentativas de 1 moeda contra 200 de saldo: exatamente 200 passam
+        assertThat(resultado.sucessos()).isEqualTo(200);
+        assertThat(alunoRepository.findSaldoMoedasById(alunoId)).isEqualByComparingTo(saldoAlunoInicial.add(debitado));
+    }
+
+    @Test
+    void resgatarVantagemConcorrenteNaoPerdeDebitos() throws Exception {
+        Long alunoId = alunoRepository.findAll().get(0).getId();
+        Vantagem vantagem = vantagemRepository.findAll().get(0);
+        BigDecimal custo = vantagem.getCustoMoedas();
+        int resgatesPossiveis = 30;
+        // Saldo para 30 resgates e um pouco mais (que não paga um 31º)
+        BigDecimal saldoInicial = custo.multiply(BigDecimal.valueOf(resgatesPossiveis)).add(custo.subtract(BigDecimal.ONE));
+        jdbcTemplate.update("UPDATE aluno SET saldo_moedas = ? WHERE id = ?", saldoInicial, alunoId);
+
+        Resultado resultado = executarConcorrente("resgatarVantagem", () -> transacaoService.resgatarVantagem(
+                new ResgateVantagemRequestDTO(alunoId, vantagem.getId())));
+
+        BigDecimal saldoFinal = alunoRepository.findSaldoMoedasById(alunoId);
+        assertThat(resultado.erros()).isEmpty();
+        assertThat(saldoFinal).isGreaterThanOrEqualTo(BigDecimal.ZERO);
+        assertThat(saldoFinal).isEqualByComparingTo(
+                saldoInicial.subtract(custo.multiply(BigDecimal.valueOf(resultado.sucessos()))));
+        assertThat(resultado.sucessos()).isEqualTo(resgatesPossiveis);
+    }
+
+    // THREADS threads liberadas juntas, cada uma com CHAMADAS_POR_THREAD chamadas. "Saldo insuficiente" é o
+    // resultado esperado de quem chega depois; qualquer outra exceção é guardada e falha o teste
+    private Resultado executarConcorrente(String nome, Runnable chamada) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger saldoInsuficiente = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> erros = new ConcurrentLinkedQueue<>();
+
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < CHAMADAS_POR_THREAD; i++) {
+                        try {
+                            chamada.run();
+                            sucessos.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            String mensagem = String.valueOf(e.getMessage());
+                            if (mensagem.contains("saldo suficiente") || mensagem.startsWith("Saldo insuficiente")) {
+                                saldoInsuficiente.incrementAndGet();
+                            } else {
+                                erros.add(e);
+                            }
+                        } catch (RuntimeException e) {
+                            erros.add(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(2, TimeUnit.MINUTES);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            int tentativas = THREADS * CHAMADAS_POR_THREAD;
+            double porSegundo = tentativas / segundos;
+            System.out.printf("%s: %d threads, %d tentativas em %.2fs (%.0f/s): %d debitadas, %d sem saldo, %d erros%n",
+                    nome, THREADS, tentativas, segundos, porSegundo, sucessos.get(), saldoInsuficiente.get(), erros.size());
+            return new Resultado(sucessos.get(), saldoInsuficiente.get(), List.copyOf(erros), porSegundo);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.sistemamoeda.service;
+
+import com.sistemamoeda.dto.ResgateVantagemRequestDTO;
+import com.sistemamoeda.dto.TransacaoRequestDTO;
+import com.sistemamoeda.dto.TransacaoResponseDTO;
+import com.sistemamoeda.model.Aluno;
+import com.sistemamoeda.model.Professor;
+import com.sistemamoeda.model.TipoTransacao;
+import com.sistemamoeda.model.Vantagem;
+import com.sistemamoeda.repository.AlunoRepository;
+import com.sistemamoeda.repository.ProfessorRepository;
+import com.sistemamoeda.repository.VantagemRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Listagens de transações projetadas direto em TransacaoResponseDTO: o número de statements não depende da
+// quantidade de linhas (sem N+1 em remetente, destinatário, vantagem e empresa). Conta os statements preparados
+// pelo Hibernate (generate_statistics no perfil test).
+@SpringBootTest
+@ActiveProfiles("test")
+class TransacaoServiceConsultasTest {
+
+    private static final int ENVIOS = 12;
+    private static final int RESGATES = 8;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private ProfessorRepository professorRepository;
+
+    @Autowired
+    private AlunoRepository alunoRepository;
+
+    @Autowired
+    private VantagemRepository vantagemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+    private Long usuarioAlunoId;
+
+    @BeforeEach
+    void criarTransacoes() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Professor professor = professorRepository.findAll().get(0);
+        Aluno aluno = alunoRepository.findAll().get(0);
+        Vantagem vantagem = vantagemRepository.findAll().get(0);
+        usuarioAlunoId = aluno.getUsuario().getId();
+
+        jdbcTemplate.update("UPDATE professor SET saldo_moedas = ? WHERE id = ?", new BigDecimal("1000.00"), professor.getId());
+        jdbcTemplate.update("UPDATE aluno SET saldo_moedas = ? WHERE id = ?",
+                vantagem.getCustoMoedas().multiply(BigDecimal.valueOf(RESGATES)), aluno.getId());
+        for (int i = 0; i < ENVIOS; i++) {
+            transacaoService.enviarMoedas(new TransacaoRequestDTO(professor.getId(), aluno.getId(), BigDecimal.ONE, "Consulta " + i));
+        }
+        for (int i = 0; i < RESGATES; i++) {
+            transacaoService.resgatarVantagem(new ResgateVantagemRequestDTO(aluno.getId(), vantagem.getId()));
+        }
+    }
+
+    @Test
+    void listarTodasUsaUmaConsulta() {
+        List<TransacaoResponseDTO> transacoes = contarStatements(1, transacaoService::listarTodas);
+        assertThat(transacoes).hasSizeGreaterThanOrEqualTo(ENVIOS + RESGATES);
+        // A projeção preenche as associações (as que eram carregadas sob demanda antes)
+        assertThat(transacoes).anySatisfy(t -> assertThat(t.getEmpresaNome()).isNotNull());
+        assertThat(transacoes).anySatisfy(t -> assertThat(t.getRemetenteNome()).isNotNull());
+    }
+
+    @Test
+    void buscarPorTipoUsaUmaConsulta() {
+        assertThat(contarStatements(1, () -> transacaoService.buscarPorTipo(TipoTransacao.RESGATE_VANTAGEM)))
+                .hasSizeGreaterThanOrEqualTo(RESGATES);
+        assertThat(contarStatements(1, () -> transacaoService.buscarPorTipo(TipoTransacao.ENVIO_MOEDA)))
+                .hasSizeGreaterThanOrEqualTo(ENVIOS);
+    }
+
+    @Test
+    void buscarPorPeriodoUsaUmaConsulta() {
+        LocalDateTime agora = LocalDateTime.now();
+        assertThat(contarStatements(1, () -> transacaoService.buscarPorPeriodo(agora.minusDays(1), agora.plusDays(1))))
+                .hasSizeGreaterThanOrEqualTo(ENVIOS + RESGATES);
+    }
+
+    // Extratos: 1 statement para verificar se o usuário existe + 1 da listagem
+    @Test
+    void buscarExtratoUsuarioUsaUmaConsultaDeListagem() {
+        assertThat(contarStatements(2, () -> transacaoService.buscarExtratoUsuario(usuarioAlunoId)))
+                .hasSizeGreaterThanOrEqualTo(ENVIOS + RESGATES);
+    }
+
+    @Test
+    void buscarExtratoPorPeriodoUsaUmaConsultaDeListagem() {
+        LocalDateTime agora = LocalDateTime.now();
+        assertThat(contarStatements(2, () ->
+                transacaoService.buscarExtratoPorPeriodo(usuarioAlunoId, agora.minusDays(1), agora.plusDays(1))))
+                .hasSizeGreaterThanOrEqualTo(ENVIOS + RESGATES);
+    }
+
+    // Extrato paginado: verificação do usuário + ids da página (keyset) + uma projeção para a página inteira
+    @Test
+    void buscarExtratoPaginadoUsaConsultasFixasPorPagina() {
+        assertThat(contarStatements(3, () -> transacaoService.buscarExtratoUsuarioPaginado(usuarioAlunoId, null, 15))
+                .getTransacoes()).hasSize(15);
+    }
+
+    private <T> T contarStatements(long esperado, Supplier<T> chamada) {
+        estatisticas.clear();
+        T resultado = chamada.get();
+        assertThat(estatisticas.getPrepareStatementCount())
+                .as("statements preparados")
+                .isEqualTo(esperado);
+        return resultado;
+    }
+}
@@ -43,7 +43,21 @@ function setupLogout(loginPath) { // <-- MUDANÇA
     document.getElementById("logout-btn").addEventListener("click", (e) => {
         e.preventDefault();
         
+        // Revoga os tokens no servidor (melhor esforço: o redirecionamento não espera a resposta)
+        const API_URL = "http://localhost:8080/api";
+        const token = localStorage.getItem("authToken");
+        fetch(`${API_URL}/auth/logout`, {
+            method: "POST",
+            keepalive: true,
+            headers: {
+                "Content-Type": "application/json",
+                ...(token ? { "Authorization": "Bearer " + token } : {})
+            },
+            body: JSON.stringify({ tokenRenovacao: localStorage.getItem("refreshToken") })
+        }).catch(() => {});
+        
         localStorage.removeItem("authToken");
+        localStorage.removeItem("refreshToken");
         localStorage.removeItem("userProfile");
         
         window.location.href = loginPath; // <-- MUDANÇA
@@ -29,8 +29,11 @@ document.addEventListener("DOMContentLoaded", () => {
                 throw new Error("Email ou senha inválidos.");
             }
 
-            const token = await loginResponse.text();
+            // Par de tokens: o de acesso vai em cada requisição, o de renovação troca o par quando o de acesso expira
+            const tokens = await loginResponse.json();
+            const token = tokens.tokenAcesso;
             localStorage.setItem("authToken", token);
+            localStorage.setItem("refreshToken", tokens.tokenRenovacao);
 
             const profileResponse = await fetch(`${API_URL}/auth/me`, {
                 method: "GET",
@@ -21,6 +21,12 @@ const formatCurrency = (value) => {
     return new Intl.NumberFormat('pt-BR', { minimumFractionDigits: 2, maximumFractionDigits: 2 }).format(num);
 };
 
+// URLs devolvidas pela API como "/api/..." (ex: fotos das vantagens) apontam para o backend
+const resolveApiUrl = (url) => {
+    if (!url || !url.startsWith('/api/')) return url;
+    return API_BASE_URL.replace(/\/api$/, '') + url;
+};
+
 const showAlert = (message, type = 'info') => {
     const alertDiv = document.createElement('div');
     alertDiv.className = `alert alert-${type}`;
@@ -93,19 +99,58 @@ const httpClient = {
         return parsed;
     },
 
-    async _request(url, method, data = null) {
-        const headers = {
-            'Content-Type': 'application/json',
+    // Uma única renovação em andamento por vez: várias requisições que recebem 401 juntas esperam a mesma
+    async _renovarToken() {
+        if (!this._renovacao) {
+            this._renovacao = (async () => {
+                const tokenRenovacao = localStorage.getItem('refreshToken');
+                if (!tokenRenovacao) return false;
+                const response = await fetch(`${API_BASE_URL}/auth/refresh`, {
+                    method: 'POST',
+                    headers: { 'Content-Type': 'application/json' },
+                    body: JSON.stringify({ tokenRenovacao })
+                });
+                if (!response.ok) return false;
+                const tokens = await response.json();
+                localStorage.setItem('authToken', tokens.tokenAcesso);
+                localStorage.setItem('refreshToken', tokens.tokenRenovacao);
+                return true;
+            })().catch(() => false).finally(() => { this._renovacao = null; });
+        }
+        return this._renovacao;
+    },
+
+    // Envia com o token de acesso atual; em 401 renova o par uma vez e repete. Se a renovação falhar, volta ao login
+    async _fetchAutenticado(url, config) {
+        const enviar = () => {
+            const token = localStorage.getItem('authToken');
+            const headers = { ...config.headers };
+            if (token) {
+                headers['Authorization'] = `Bearer ${token}`;
+            }
+            return fetch(`${API_BASE_URL}${url}`, { ...config, headers });
         };
 
-        const token = localStorage.getItem('authToken');
-        if (token) {
-            headers['Authorization'] = `Bearer ${token}`;
+        let response = await enviar();
+        if (response.status === 401 && localStorage.getItem('refreshToken')) {
+            if (await this._renovarToken()) {
+                response = await enviar();
+            } else {
+                localStorage.removeItem('authToken');
+                localStorage.removeItem('refreshToken');
+                localStorage.removeItem('userProfile');
+                window.location.href = window.location.pathname.includes('/pages/') ? 'login.html' : 'pages/login.html';
+            }
         }
+        return response;
+    },
 
+    async _request(url, method, data = null) {
         const config = {
             method: method,
-            headers: headers,
+            headers: {
+                'Content-Type': 'application/json',
+            },
         };
 
         if (data) {
@@ -113,7 +158,7 @@ const httpClient = {
         }
 
         try {
-            const response = await fetch(`${API_BASE_URL}${url}`, config);
+            const response = await this._fetchAutenticado(url, config);
             return await this._handleResponse(response);
 
         } catch (error) {
@@ -136,6 +181,13 @@ const httpClient = {
 
     async delete(url) {
         return this._request(url, 'DELETE');
+    },
+
+    // Envia um arquivo como corpo binário da requisição (sem Base64)
+    async putFile(url, file) {
+        const headers = { 'Content-Type': file.type || 'application/octet-stream' };
+        const response = await this._fetchAutenticado(url, { method: 'PUT', headers, body: file });
+        return this._handleResponse(response);
     }
 };
 
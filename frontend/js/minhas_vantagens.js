@@ -82,7 +82,7 @@ class MinhasVantagensManager {
             <div class="col-md-6 col-lg-4 mb-4">
                 <div class="card h-100 shadow-sm">
                     ${v.fotoUrl ? `
-                        <img src="${v.fotoUrl}" class="card-img-top" alt="${v.nome}" 
+                        <img src="${resolveApiUrl(v.fotoUrl)}" class="card-img-top" alt="${v.nome}" 
                              style="height: 200px; object-fit: cover;"
                              onerror="this.src='https://via.placeholder.com/300x200?text=Sem+Imagem'">
                     ` : `
@@ -221,7 +221,7 @@ class MinhasVantagensManager {
             document.getElementById('fotoBase64').value = v.fotoUrl;
             const previewContainer = document.getElementById('previewContainer');
             const previewImg = document.getElementById('fotoPreview');
-            previewImg.src = v.fotoUrl;
+            previewImg.src = resolveApiUrl(v.fotoUrl);
             previewContainer.classList.remove('d-none');
         } else {
             this.clearFotoPreview();
@@ -259,8 +259,8 @@ class MinhasVantagensManager {
             empresaId: this.empresaId, 
             nome: document.getElementById('nome').value,
             custoMoedas: parseFloat(document.getElementById('custoMoedas').value),
-            // Agora enviamos o Base64 em vez de URL
-            fotoUrl: document.getElementById('fotoBase64').value, 
+            // A foto nova vai depois, como arquivo binário (PUT /vantagens/{id}/foto)
+            fotoUrl: null,
             descricao: document.getElementById('descricao').value,
             ativa: document.getElementById('ativa').checked
         };
@@ -271,10 +271,16 @@ class MinhasVantagensManager {
         btn.innerHTML = '<i class="fas fa-spinner fa-spin"></i> Salvando...';
 
         try {
+            let vantagem;
             if (this.currentEditId) {
-                await appUtils.httpClient.put(`/vantagens/${this.currentEditId}`, payload);
+                vantagem = await appUtils.httpClient.put(`/vantagens/${this.currentEditId}`, payload);
             } else {
-                await appUtils.httpClient.post('/vantagens', payload);
+                vantagem = await appUtils.httpClient.post('/vantagens', payload);
+            }
+
+            const fotoArquivo = document.getElementById('fotoInput').files[0];
+            if (fotoArquivo) {
+                await appUtils.httpClient.putFile(`/vantagens/${vantagem.id}/foto`, fotoArquivo);
             }
 
             Swal.fire({
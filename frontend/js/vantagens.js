@@ -111,7 +111,7 @@ class VantagensManager {
             <div class="col-md-6 col-lg-4 mb-4">
                 <div class="card h-100 shadow-sm">
                     ${vantagem.fotoUrl ? `
-                        <img src="${vantagem.fotoUrl}" class="card-img-top" alt="${vantagem.nome}" 
+                        <img src="${resolveApiUrl(vantagem.fotoUrl)}" class="card-img-top" alt="${vantagem.nome}" 
                              style="height: 200px; object-fit: cover;"
                              onerror="this.src='https://via.placeholder.com/300x200?text=Sem+Imagem'">
                     ` : `
@@ -314,7 +314,7 @@ class VantagensManager {
             <div class="row">
                 <div class="col-md-6">
                     ${vantagem.fotoUrl ? `
-                        <img src="${vantagem.fotoUrl}" class="img-fluid rounded mb-3 shadow-sm" 
+                        <img src="${resolveApiUrl(vantagem.fotoUrl)}" class="img-fluid rounded mb-3 shadow-sm" 
                              alt="${vantagem.nome}"
                              onerror="this.src='https://via.placeholder.com/400x300?text=Sem+Imagem'">
                     ` : `
@@ -391,7 +391,7 @@ class VantagensManager {
             const previewImg = document.getElementById('fotoPreview');
             const removeBtn = document.getElementById('removeFotoBtn');
             
-            previewImg.src = vantagem.fotoUrl;
+            previewImg.src = resolveApiUrl(vantagem.fotoUrl);
             
             placeholder.style.display = 'none';
             previewImg.style.display = 'block';
@@ -430,14 +430,17 @@ class VantagensManager {
             saveBtn.innerHTML = '<i class="fas fa-spinner fa-spin"></i> Salvando...';
 
             try {
-                if (this.currentEditId) {
-                    await appUtils.httpClient.put(`/vantagens/${this.currentEditId}`, formData);
-                    Swal.fire('Sucesso', 'Vantagem atualizada com sucesso!', 'success');
-                } else {
-                    await appUtils.httpClient.post('/vantagens', formData);
-                    Swal.fire('Sucesso', 'Vantagem cadastrada com sucesso!', 'success');
+                const vantagem = this.currentEditId
+                    ? await appUtils.httpClient.put(`/vantagens/${this.currentEditId}`, formData)
+                    : await appUtils.httpClient.post('/vantagens', formData);
+
+                const fotoArquivo = document.getElementById('fotoInput').files[0];
+                if (fotoArquivo) {
+                    await appUtils.httpClient.putFile(`/vantagens/${vantagem.id}/foto`, fotoArquivo);
                 }
 
+                Swal.fire('Sucesso', this.currentEditId ? 'Vantagem atualizada com sucesso!' : 'Vantagem cadastrada com sucesso!', 'success');
+
                 const modalEl = document.getElementById('vantagemModal');
                 const modal = bootstrap.Modal.getInstance(modalEl);
                 modal.hide();
@@ -458,8 +461,8 @@ class VantagensManager {
             nome: document.getElementById('nome').value.trim(),
             descricao: document.getElementById('descricao').value.trim(),
             custoMoedas: parseFloat(document.getElementById('custoMoedas').value),
-            // Agora pega o Base64 do campo oculto
-            fotoUrl: document.getElementById('fotoBase64').value || null
+            // A foto nova vai depois, como arquivo binário (PUT /vantagens/{id}/foto)
+            fotoUrl: null
         };
     }
 
@@ -70,35 +70,18 @@ class VantagensAlunoManager {
         }
     }
     
-    // MUDANÇA: Lógica de posse de cupom corrigida
+    // Cupons que o aluno possui hoje, direto da API (sem reconstruir a posse pelo extrato)
     async loadMeusCupons() {
-        if (!this.aluno || !this.aluno.usuarioId) return;
+        if (!this.aluno || !this.aluno.id) return;
         
         try {
-            const extrato = await appUtils.httpClient.get(`/transacoes/extrato/usuario/${this.aluno.usuarioId}`);
-            
-            // 1. Encontrar todos os cupons que o usuário *recebeu* (seja resgate ou troca)
-            const cuponsRecebidos = extrato.filter(tx =>
-                (tx.tipoTransacao === 'RESGATE_VANTAGEM' || tx.tipoTransacao === 'TROCA_VANTAGEM') &&
-                tx.destinatarioId === this.aluno.usuarioId &&
-                tx.codigoCupom
-            );
-
-            // 2. Encontrar todos os códigos de cupom que o usuário *enviou*
-            const cuponsEnviados = new Set(
-                extrato
-                    .filter(tx => tx.tipoTransacao === 'TROCA_VANTAGEM' && tx.remetenteId === this.aluno.usuarioId && tx.codigoCupom)
-                    .map(tx => tx.codigoCupom)
-            );
-
-            // 3. A lista final é: cupons recebidos MENOS cupons enviados
-            this.meusCupons = cuponsRecebidos.filter(cupom => !cuponsEnviados.has(cupom.codigoCupom));
+            this.meusCupons = await appUtils.httpClient.get(`/alunos/${this.aluno.id}/cupons`);
             
             this.renderMeusCupons();
         } catch (error) {
             console.error("Erro ao carregar meus cupons:", error);
             const cupomBody = document.getElementById('meusCuponsTableBody');
-            if(cupomBody) cupomBody.innerHTML = `<tr><td colspan="5" class="text-center text-danger">Erro ao carregar seus cupons.</td></tr>`;
+            if(cupomBody) cupomBody.innerHTML = `<tr><td colspan="6" class="text-center text-danger">Erro ao carregar seus cupons.</td></tr>`;
         }
     }
     
@@ -155,7 +138,7 @@ class VantagensAlunoManager {
             const badgeClass = acessivel ? 'bg-success' : 'bg-danger';
             const buttonText = acessivel ? 'Resgatar' : 'Saldo Insuficiente';
             const buttonDisabled = !acessivel ? 'disabled' : '';
-            const foto = v.fotoUrl || `https://placehold.co/300x200/0d6efd/white?text=${v.nome.split(' ').join('+')}`;
+            const foto = resolveApiUrl(v.miniaturaUrl || v.fotoUrl) || `https://placehold.co/300x200/0d6efd/white?text=${v.nome.split(' ').join('+')}`;
             const empresaNome = v.empresaNome || '';
 
             return `
@@ -187,19 +170,25 @@ class VantagensAlunoManager {
         if (!tableBody) return;
 
         if (this.meusCupons.length === 0) {
-            tableBody.innerHTML = '<tr><td colspan="5" class="text-center text-muted p-3">Você ainda não resgatou nenhum cupom.</td></tr>';
+            tableBody.innerHTML = '<tr><td colspan="6" class="text-center text-muted p-3">Você ainda não resgatou nenhum cupom.</td></tr>';
             return;
         }
 
-        tableBody.innerHTML = this.meusCupons.map(tx => `
+        tableBody.innerHTML = this.meusCupons.map(cupom => `
             <tr>
-                <td>${tx.vantagemNome || 'N/A'}</td>
-                <td>${tx.empresaNome || 'N/A'}</td>
-                <td><strong>${tx.codigoCupom}</strong></td>
-                <td>${appUtils.formatDate(tx.dataTransacao)}</td>
+                <td>${cupom.vantagemNome || 'N/A'}</td>
+                <td>${cupom.empresaNome || 'N/A'}</td>
+                <td><strong>${cupom.codigoCupom}</strong></td>
+                <td>
+                    <a href="${this.qrCodeUrl(cupom.codigoCupom, 'png')}" target="_blank" title="Abrir QR Code">
+                        <img src="${this.qrCodeUrl(cupom.codigoCupom, 'svg')}" alt="QR Code do cupom ${cupom.codigoCupom}"
+                             width="72" height="72" loading="lazy">
+                    </a>
+                </td>
+                <td>${appUtils.formatDate(cupom.dataResgate)}</td>
                 <td>
                     <button class="btn btn-sm btn-primary" 
-                            onclick="vantagensAlunoManager.showTransferirModal('${tx.codigoCupom}', '${tx.vantagemNome}')">
+                            onclick="vantagensAlunoManager.showTransferirModal('${cupom.codigoCupom}', '${cupom.vantagemNome}')">
                         <i class="fas fa-paper-plane me-1"></i> Transferir
                     </button>
                 </td>
@@ -207,6 +196,11 @@ class VantagensAlunoManager {
         `).join('');
     }
 
+    // QR code servido pela API (cacheado pelo navegador, não muda para o mesmo cupom)
+    qrCodeUrl(codigoCupom, formato) {
+        return resolveApiUrl(`/api/cupons/${encodeURIComponent(codigoCupom)}/qrcode?formato=${formato}`);
+    }
+
     getFilteredVantagens() {
         let filtered = this.vantagens.filter(v => v.ativa); 
 